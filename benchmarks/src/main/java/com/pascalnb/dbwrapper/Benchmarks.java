@@ -0,0 +1,28 @@
+package com.pascalnb.dbwrapper;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so the allocation rate per operation is reported next to throughput and
+ * average time. Accepts the same arguments as the JMH runner, e.g. a regular expression of benchmarks to run.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+            .parent(options)
+            .addProfiler(GCProfiler.class)
+            .build()
+        ).run();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.pascalnb.dbwrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.PreparedStatement;
+
+/**
+ * Binding the arguments of a query to a statement in {@link JDBC}.
+ */
+@State(Scope.Thread)
+public class BindBenchmark extends BaseBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int arguments;
+
+    private final JDBC jdbc = new JDBC();
+    private PreparedStatement statement;
+    private Object[] variables;
+
+    @Setup
+    public void setup() {
+        statement = new StubResult(new ColumnType[]{ColumnType.INT}, 0).statement();
+        variables = new Object[arguments];
+        for (int i = 0; i < arguments; i++) {
+            variables[i] = switch (i % 4) {
+                case 0 -> i;
+                case 1 -> "value-" + i;
+                case 2 -> (long) i;
+                default -> i * 1.5;
+            };
+        }
+    }
+
+    @Benchmark
+    public PreparedStatement setVariables() {
+        return jdbc.setVariables(statement, variables);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.pascalnb.dbwrapper;
+
+import java.sql.Types;
+
+/**
+ * The column types of a {@link StubResult}, with the value of every row.
+ */
+public enum ColumnType {
+
+    INT(Types.INTEGER) {
+        @Override
+        Object value(int row) {
+            return row;
+        }
+    },
+    LONG(Types.BIGINT) {
+        @Override
+        Object value(int row) {
+            return row * 1_000_003L;
+        }
+    },
+    DOUBLE(Types.DOUBLE) {
+        @Override
+        Object value(int row) {
+            return row * 1.5;
+        }
+    },
+    STRING(Types.VARCHAR) {
+        @Override
+        Object value(int row) {
+            return "value-" + row;
+        }
+    },
+    BOOLEAN(Types.BOOLEAN) {
+        @Override
+        Object value(int row) {
+            return row % 2 == 0;
+        }
+    },
+    /**
+     * An integer column where every tenth row is null.
+     */
+    NULLABLE_INT(Types.INTEGER) {
+        @Override
+        Object value(int row) {
+            return row % 10 == 0 ? null : row;
+        }
+    };
+
+    private final int sqlType;
+
+    ColumnType(int sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    abstract Object value(int row);
+
+    int getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Parses a list of column types separated by spaces or commas. Benchmark parameters use spaces, as commas
+     * separate the values of parameters on the command line.
+     *
+     * @param types the column types, e.g. {@code INT STRING}
+     * @return the column types
+     */
+    public static ColumnType[] parse(String types) {
+        String[] names = types.trim().split("[,\\s]+");
+        ColumnType[] result = new ColumnType[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = valueOf(names[i]);
+        }
+        return result;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.pascalnb.dbwrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Reading results in {@link JDBC}, into a table or through a row mapper.
+ */
+@State(Scope.Thread)
+public class JdbcBenchmark extends BaseBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int rows;
+
+    @Param({"INT STRING", "INT LONG DOUBLE STRING BOOLEAN NULLABLE_INT"})
+    public String columns;
+
+    private final JDBC jdbc = new JDBC();
+    private StubResult result;
+    private RowMapper<Object[]> rowMapper;
+
+    @Setup
+    public void setup() {
+        result = new StubResult(ColumnType.parse(columns), rows);
+        rowMapper = row -> {
+            Object[] values = new Object[row.getColumnCount()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row.getString(i);
+            }
+            return values;
+        };
+    }
+
+    @Benchmark
+    public Table parseResult() {
+        return jdbc.parseResult(result.resultSet());
+    }
+
+    @Benchmark
+    public List<Object[]> parseResultRows() {
+        return jdbc.parseResult(result.resultSet(), rowMapper);
+    }
+
+}
\ No newline at end of file
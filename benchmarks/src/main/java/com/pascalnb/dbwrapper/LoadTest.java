@@ -0,0 +1,43 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.action.DatabaseAction;
+import com.pascalnb.dbwrapper.sim.LoadGenerator;
+import com.pascalnb.dbwrapper.sim.LoadReport;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Load test of a query against the database of a config file, by default the simulated database of {@code sim.cfg}.
+ * <br><br>
+ * Arguments: {@code [rate per second] [seconds] [threads, 0 for a thread per action] [config file] [query]}.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        double rate = args.length > 0 ? Double.parseDouble(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        String config = args.length > 3 ? args[3] : "sim.cfg";
+        String query = args.length > 4 ? args[4] : "SELECT * FROM test WHERE id=?;";
+
+        DatabaseAuthenticator.setImplementation(() -> new ConfigAuthenticator(config));
+        ExecutorService executor = threads > 0 ? Executors.newFixedThreadPool(threads) : null;
+        DatabaseAction<Table> action = DatabaseAction.of(query, 1);
+        DatabaseAction<Table> configured = executor == null ? action : action.withExecutor(executor);
+
+        try {
+            LoadReport report = new LoadGenerator(() -> configured, rate, Duration.ofSeconds(seconds)).run();
+            System.out.println(report);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+}
\ No newline at end of file
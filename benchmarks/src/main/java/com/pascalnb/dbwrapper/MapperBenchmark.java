@@ -0,0 +1,81 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.annotation.ParseField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mapping tables to objects and values.
+ */
+@State(Scope.Thread)
+public class MapperBenchmark extends BaseBenchmark {
+
+    private static final ColumnType[] TYPES = {
+        ColumnType.INT, ColumnType.LONG, ColumnType.DOUBLE, ColumnType.STRING, ColumnType.BOOLEAN,
+        ColumnType.NULLABLE_INT
+    };
+
+    @Param({"10", "1000", "10000"})
+    public int rows;
+
+    private Table table;
+    private ObjectMapper<Entity> objectMapper;
+    private Mapper<List<Integer>> valueList;
+    private String[] values;
+
+    @Setup
+    public void setup() {
+        StubResult result = new StubResult(TYPES, rows);
+        table = new Table(result.getColumns(), Arrays.asList(result.getStrings()));
+        objectMapper = new ObjectMapper<>(Entity.class);
+        valueList = Mapper.valueList(Integer::parseInt);
+        values = table.getColumn(0);
+    }
+
+    @Benchmark
+    public List<Entity> objectMapperApplyAll() {
+        return objectMapper.applyAll(table);
+    }
+
+    @Benchmark
+    public List<Integer> valueList() {
+        return valueList.apply(table);
+    }
+
+    @Benchmark
+    public void stringMapperCast(Blackhole blackhole) {
+        for (String value : values) {
+            blackhole.consume(new StringMapper(value).to(Integer.class));
+        }
+    }
+
+    public static class Entity {
+
+        @ParseField("c0")
+        private int id;
+
+        @ParseField("c1")
+        private long count;
+
+        @ParseField("c2")
+        private double amount;
+
+        @ParseField("c3")
+        private String name;
+
+        @ParseField("c4")
+        private boolean active;
+
+        @ParseField("c5")
+        private Integer parent;
+
+    }
+
+}
\ No newline at end of file
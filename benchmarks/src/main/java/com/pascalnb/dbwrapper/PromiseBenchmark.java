@@ -0,0 +1,61 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.action.DatabaseAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The overhead of actions, promises and combined actions, on a database that returns a fixed table.
+ */
+@State(Scope.Thread)
+public class PromiseBenchmark extends BaseBenchmark {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Param({"1", "10"})
+    public int children;
+
+    private DatabaseAction<Table> action;
+    private DatabaseAction<List<Table>> multiAction;
+
+    @Setup
+    public void setup() {
+        StubResult result = new StubResult(new ColumnType[]{ColumnType.INT, ColumnType.STRING}, 10);
+        StubDatabase.install(new Table(result.getColumns(), List.of(result.getStrings())));
+
+        action = DatabaseAction.of("SELECT * FROM stub WHERE id=?;", 1).withExecutor(DIRECT);
+        List<DatabaseAction<Table>> actions = new ArrayList<>();
+        for (int i = 0; i < children; i++) {
+            actions.add(DatabaseAction.of("SELECT * FROM stub WHERE id=?;", i));
+        }
+        multiAction = DatabaseAction.allOf(actions).withExecutor(DIRECT);
+    }
+
+    @Benchmark
+    public Table await() {
+        return action.query().await();
+    }
+
+    @Benchmark
+    public Integer mapChain() {
+        return action.query().map(Table::getRowCount).map(rows -> rows + 1).await();
+    }
+
+    @Benchmark
+    public Table stage() {
+        return action.query().stage().await();
+    }
+
+    @Benchmark
+    public List<Table> allOf() {
+        return multiAction.query().await();
+    }
+
+}
\ No newline at end of file
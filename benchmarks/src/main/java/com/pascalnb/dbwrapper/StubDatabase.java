@@ -0,0 +1,57 @@
+package com.pascalnb.dbwrapper;
+
+/**
+ * Database that returns the same table for every query, to measure the overhead of actions and promises without any
+ * JDBC work.
+ */
+public class StubDatabase extends Database {
+
+    private final Table table;
+
+    public StubDatabase(Table table) {
+        this.table = table;
+    }
+
+    /**
+     * Makes {@link Database#getInstance()} return databases that return the given table.
+     *
+     * @param table the table
+     */
+    public static void install(Table table) {
+        setUrl("jdbc:stub:");
+        setImplementation(() -> new StubDatabase(table));
+    }
+
+    @Override
+    public Database connect() {
+        return this;
+    }
+
+    @Override
+    public Database connect(boolean autoCommit) {
+        return this;
+    }
+
+    @Override
+    public Database commit() {
+        return this;
+    }
+
+    @Override
+    protected void checkConnection() {
+    }
+
+    @Override
+    public Table queryStatement(Query query) {
+        return table;
+    }
+
+    @Override
+    public void executeStatement(Query query) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
\ No newline at end of file
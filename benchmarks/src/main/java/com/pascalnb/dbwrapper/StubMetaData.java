@@ -0,0 +1,136 @@
+package com.pascalnb.dbwrapper;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Metadata of the columns of a {@link StubResult}, shared by all of its result sets.
+ */
+final class StubMetaData implements ResultSetMetaData {
+
+    private final String[] columns;
+    private final ColumnType[] types;
+
+    StubMetaData(String[] columns, ColumnType[] types) {
+        this.columns = columns;
+        this.types = types;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnLabel(int column) {
+        return columns[column - 1];
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column - 1];
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return types[column - 1].getSqlType();
+    }
+
+    @Override
+    public String getColumnTypeName(int column) {
+        return types[column - 1].name();
+    }
+
+    // not used by the library, so not needed to measure it
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getSchemaName");
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTableName");
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getCatalogName");
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getColumnClassName");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLFeatureNotSupportedException("unwrap");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return false;
+    }
+}
\ No newline at end of file
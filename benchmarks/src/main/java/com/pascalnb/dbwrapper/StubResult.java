@@ -0,0 +1,87 @@
+package com.pascalnb.dbwrapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+/**
+ * In-memory result with generated rows, served through stub {@link ResultSet}s, {@link PreparedStatement}s and
+ * {@link Connection}s so the JDBC code paths can be measured without a database.
+ * <br><br>
+ * The stubs are plain classes that only implement the methods used by this library, which read the generated values
+ * without allocating, so the measured allocations and time are those of the library and not of the stubs.
+ */
+public final class StubResult {
+
+    private final String[] columns;
+    private final Object[][] values;
+    private final String[][] strings;
+    private final ResultSetMetaData metaData;
+
+    /**
+     * @param types the types of the columns, which are named {@code c0}, {@code c1}, ...
+     * @param rows  the number of rows
+     */
+    public StubResult(ColumnType[] types, int rows) {
+        this.columns = new String[types.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = "c" + i;
+        }
+        this.values = new Object[rows][types.length];
+        this.strings = new String[rows][types.length];
+        this.metaData = new StubMetaData(columns, types);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < types.length; column++) {
+                Object value = types[column].value(row);
+                values[row][column] = value;
+                strings[row][column] = value == null ? null : value.toString();
+            }
+        }
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return values.length;
+    }
+
+    /**
+     * @return the rows as strings, as they are stored in a {@link Table}
+     */
+    public String[][] getStrings() {
+        return strings;
+    }
+
+    /**
+     * @return a new result set positioned before the first row
+     */
+    public ResultSet resultSet() {
+        return resultSet(values.length);
+    }
+
+    /**
+     * @param rows the number of rows to return, at most the number of rows of this result
+     * @return a new result set of the first rows of this result, positioned before the first row
+     */
+    public ResultSet resultSet(int rows) {
+        return new StubResultSet(columns, values, strings, metaData, Math.min(rows, values.length));
+    }
+
+    /**
+     * @return a new statement of which every execution returns a new result set of this result
+     */
+    public PreparedStatement statement() {
+        return new StubStatement(this);
+    }
+
+    /**
+     * @return a new connection of which every statement returns this result
+     */
+    public Connection connection() {
+        return new StubConnection(this);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,939 @@
+package com.pascalnb.dbwrapper;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Forward-only result set over the first rows of a {@link StubResult}.
+ */
+final class StubResultSet implements ResultSet {
+
+    private final String[] columns;
+    private final Object[][] values;
+    private final String[][] strings;
+    private final ResultSetMetaData metaData;
+    private final int rows;
+    private int row = -1;
+    private boolean wasNull = false;
+
+    StubResultSet(String[] columns, Object[][] values, String[][] strings, ResultSetMetaData metaData, int rows) {
+        this.columns = columns;
+        this.values = values;
+        this.strings = strings;
+        this.metaData = metaData;
+        this.rows = rows;
+    }
+
+    @Override
+    public boolean next() {
+        return ++row < rows;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() {
+        return metaData;
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(columnLabel)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("Column " + columnLabel + " not found");
+    }
+
+    @Override
+    public boolean isClosed() {
+        return row >= rows;
+    }
+
+    @Override
+    public void close() {
+        row = rows;
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+        String value = strings[row][columnIndex - 1];
+        wasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public Object getObject(int columnIndex) {
+        Object value = values[row][columnIndex - 1];
+        wasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value instanceof Boolean b ? b : value != null && ((Number) value).intValue() != 0;
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value instanceof Number number ? number.byteValue() : (byte) toDouble(value);
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException {
+        return getByte(findColumn(columnLabel));
+    }
+
+    @Override
+    public short getShort(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value instanceof Number number ? number.shortValue() : (short) toDouble(value);
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException {
+        return getShort(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value instanceof Number number ? number.intValue() : (int) toDouble(value);
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value instanceof Number number ? number.longValue() : (long) toDouble(value);
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value instanceof Number number ? number.floatValue() : (float) toDouble(value);
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException {
+        return getFloat(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+        Object value = getObject(columnIndex);
+        return value instanceof Number number ? number.doubleValue() : toDouble(value);
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    /**
+     * Converts a value that is not a number, like a driver would: null is 0, booleans are 0 or 1 and strings are
+     * parsed.
+     */
+    private static double toDouble(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Boolean b) {
+            return b ? 1 : 0;
+        }
+        return Double.parseDouble((String) value);
+    }
+
+    // not used by the library, so not needed to measure it
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBigDecimal");
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBytes");
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getDate");
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTime");
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTimestamp");
+    }
+
+    @Override
+    public java.io.InputStream getAsciiStream(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getAsciiStream");
+    }
+
+    @Override
+    public java.io.InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getUnicodeStream");
+    }
+
+    @Override
+    public java.io.InputStream getBinaryStream(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBinaryStream");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBigDecimal");
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBytes");
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getDate");
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTime");
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTimestamp");
+    }
+
+    @Override
+    public java.io.InputStream getAsciiStream(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getAsciiStream");
+    }
+
+    @Override
+    public java.io.InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getUnicodeStream");
+    }
+
+    @Override
+    public java.io.InputStream getBinaryStream(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBinaryStream");
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        throw new SQLFeatureNotSupportedException("getWarnings");
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+        throw new SQLFeatureNotSupportedException("getCursorName");
+    }
+
+    @Override
+    public java.io.Reader getCharacterStream(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getCharacterStream");
+    }
+
+    @Override
+    public java.io.Reader getCharacterStream(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getCharacterStream");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBigDecimal");
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBigDecimal");
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public boolean absolute( int row ) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean relative( int rows ) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public int getConcurrency() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException {
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException {
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException {
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException {
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException {
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, java.io.InputStream x, int length) throws SQLException {
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, java.io.InputStream x, int length) throws SQLException {
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, java.io.Reader x, int length) throws SQLException {
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException {
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException {
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException {
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException {
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException {
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, java.io.InputStream x, int length) throws SQLException {
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, java.io.InputStream x, int length) throws SQLException {
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, java.io.Reader reader, int length) throws SQLException {
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException {
+        throw new SQLFeatureNotSupportedException("getStatement");
+    }
+
+    @Override
+    public Object getObject(int columnIndex, java.util.Map<String,Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getObject");
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getRef");
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBlob");
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getClob");
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getArray");
+    }
+
+    @Override
+    public Object getObject(String columnLabel, java.util.Map<String,Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getObject");
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getRef");
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getBlob");
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getClob");
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getArray");
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getDate");
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getDate");
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTime");
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTime");
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTimestamp");
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getTimestamp");
+    }
+
+    @Override
+    public java.net.URL getURL(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getURL");
+    }
+
+    @Override
+    public java.net.URL getURL(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getURL");
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getRowId");
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getRowId");
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String nString) throws SQLException {
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String nString) throws SQLException {
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob nClob) throws SQLException {
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob nClob) throws SQLException {
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getNClob");
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getNClob");
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getSQLXML");
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getSQLXML");
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getNString");
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getNString");
+    }
+
+    @Override
+    public java.io.Reader getNCharacterStream(int columnIndex) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getNCharacterStream");
+    }
+
+    @Override
+    public java.io.Reader getNCharacterStream(String columnLabel) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getNCharacterStream");
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, java.io.Reader x, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, java.io.Reader reader, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, java.io.InputStream x, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, java.io.InputStream x, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, java.io.Reader x, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, java.io.InputStream x, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, java.io.InputStream x, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, java.io.Reader reader, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, java.io.Reader x) throws SQLException {
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, java.io.Reader reader) throws SQLException {
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, java.io.InputStream x) throws SQLException {
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, java.io.InputStream x) throws SQLException {
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, java.io.Reader x) throws SQLException {
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, java.io.InputStream x) throws SQLException {
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, java.io.InputStream x) throws SQLException {
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, java.io.Reader reader) throws SQLException {
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader) throws SQLException {
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader) throws SQLException {
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getObject");
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        throw new SQLFeatureNotSupportedException("getObject");
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLFeatureNotSupportedException("unwrap");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.pascalnb.dbwrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creating tables and looking up their values.
+ */
+@State(Scope.Thread)
+public class TableBenchmark extends BaseBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int rows;
+
+    @Param({"INT LONG DOUBLE STRING BOOLEAN NULLABLE_INT"})
+    public String columns;
+
+    private String[] attributes;
+    private List<String[]> tuples;
+    private Table table;
+
+    @Setup
+    public void setup() {
+        StubResult result = new StubResult(ColumnType.parse(columns), rows);
+        attributes = result.getColumns();
+        tuples = Arrays.asList(result.getStrings());
+        table = new Table(attributes, tuples);
+    }
+
+    @Benchmark
+    public Table construct() {
+        return new Table(attributes, tuples);
+    }
+
+    @Benchmark
+    public void getByName(Blackhole blackhole) {
+        String column = attributes[attributes.length - 1];
+        for (Tuple tuple : table) {
+            blackhole.consume(tuple.get(column));
+        }
+    }
+
+    @Benchmark
+    public void getByIndex(Blackhole blackhole) {
+        int column = table.indexOf(attributes[attributes.length - 1]);
+        for (Tuple tuple : table) {
+            blackhole.consume(tuple.get(column));
+        }
+    }
+
+    @Benchmark
+    public String[] getColumn() {
+        return table.getColumn(attributes[0]);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.pascalnb.dbwrapper.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random distribution of latencies in milliseconds or result sizes, parsed from a specification such as
+ * {@code lognormal:5:0.5}.
+ */
+@FunctionalInterface
+public interface Distribution {
+
+    /**
+     * Draws a nonnegative sample.
+     *
+     * @param random the random source
+     * @return the sample
+     */
+    double sample(SplittableRandom random);
+
+    /**
+     * Parses a distribution. Supported are:
+     * <ul>
+     *     <li>{@code 5} or {@code fixed:5}: always 5</li>
+     *     <li>{@code uniform:2:8}: uniform between 2 and 8</li>
+     *     <li>{@code normal:5:1}: normal with mean 5 and standard deviation 1, cut off at 0</li>
+     *     <li>{@code lognormal:5:0.5}: log-normal with median 5 and shape 0.5, which has a long tail</li>
+     *     <li>{@code exponential:5}: exponential with mean 5</li>
+     * </ul>
+     *
+     * @param spec the specification
+     * @return the distribution
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    static Distribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        double[] values = new double[parts.length - 1];
+        try {
+            if (parts.length == 1) {
+                double value = Double.parseDouble(parts[0]);
+                return random -> value;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                values[i - 1] = Double.parseDouble(parts[i]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid distribution " + spec, e);
+        }
+
+        switch (parts[0] + "/" + values.length) {
+            case "fixed/1": {
+                double value = values[0];
+                return random -> value;
+            }
+            case "uniform/2": {
+                double min = values[0];
+                double max = values[1];
+                return random -> min + random.nextDouble() * (max - min);
+            }
+            case "normal/2": {
+                double mean = values[0];
+                double deviation = values[1];
+                return random -> Math.max(0, mean + gaussian(random) * deviation);
+            }
+            case "lognormal/2": {
+                double mu = Math.log(values[0]);
+                double sigma = values[1];
+                return random -> Math.exp(mu + gaussian(random) * sigma);
+            }
+            case "exponential/1": {
+                double mean = values[0];
+                return random -> -mean * Math.log(1 - random.nextDouble());
+            }
+            default:
+                throw new IllegalArgumentException("Invalid distribution " + spec);
+        }
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller, as SplittableRandom has no nextGaussian on Java 17
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+}
\ No newline at end of file
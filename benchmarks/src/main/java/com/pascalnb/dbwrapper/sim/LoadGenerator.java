@@ -0,0 +1,101 @@
+package com.pascalnb.dbwrapper.sim;
+
+import com.pascalnb.dbwrapper.action.DatabaseAction;
+import com.pascalnb.dbwrapper.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop load generator that queries database actions at a fixed rate, regardless of how fast they complete, and
+ * measures their latency from the time they were scheduled.
+ */
+public class LoadGenerator {
+
+    private final Supplier<? extends DatabaseAction<?>> actions;
+    private final double rate;
+    private final Duration duration;
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    /**
+     * @param actions  supplier of the action to query for every request
+     * @param rate     the number of requests per second
+     * @param duration the time to send requests for
+     */
+    public LoadGenerator(Supplier<? extends DatabaseAction<?>> actions, double rate, Duration duration) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.actions = actions;
+        this.rate = rate;
+        this.duration = duration;
+    }
+
+    /**
+     * Sets how long to wait for outstanding requests after the last one has been sent.
+     *
+     * @param drainTimeout the timeout
+     * @return this
+     */
+    public LoadGenerator withDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+        return this;
+    }
+
+    /**
+     * Sends the requests on the current thread and waits for them to complete.
+     *
+     * @return the report of the run
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public LoadReport run() throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong lastCompleted = new AtomicLong();
+        Object lock = new Object();
+
+        double interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = (long) (duration.toNanos() / interval);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + (long) (i * interval);
+            long delay;
+            while ((delay = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            actions.get().query()
+                .map(result -> true)
+                .catching(e -> false)
+                .async(success -> {
+                    long now = System.nanoTime();
+                    latency.record(now - scheduled);
+                    lastCompleted.accumulateAndGet(now, (a, b) -> b - a > 0 ? b : a);
+                    if (!success) {
+                        errors.incrementAndGet();
+                    }
+                    if (completed.incrementAndGet() == total) {
+                        synchronized (lock) {
+                            lock.notifyAll();
+                        }
+                    }
+                });
+        }
+
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        synchronized (lock) {
+            long remaining;
+            while (completed.get() < total && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+
+        long end = completed.get() == 0 ? start : lastCompleted.get();
+        return new LoadReport(total, completed.get(), errors.get(), end - start, latency);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.pascalnb.dbwrapper.sim;
+
+import com.pascalnb.dbwrapper.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of a run of the {@link LoadGenerator}. Latencies are measured from the time a request was scheduled to
+ * be sent, so time spent behind a stalled generator counts as latency.
+ *
+ * @param sent            the number of requests sent
+ * @param completed       the number of requests that completed, successfully or not, before the drain timeout
+ * @param errors          the number of requests that failed
+ * @param durationNanos   the time from the first request until the last completed
+ * @param latency         the latencies of the completed requests
+ */
+public record LoadReport(long sent, long completed, long errors, long durationNanos, LatencyHistogram latency) {
+
+    /**
+     * @return the number of completed requests per second
+     */
+    public double throughput() {
+        return durationNanos == 0 ? 0 : completed * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "sent=%d completed=%d errors=%d throughput=%.1f/s latency mean=%.2fms p50=%.2fms p90=%.2fms "
+                + "p99=%.2fms p99.9=%.2fms max=%.2fms",
+            sent, completed, errors, throughput(), latency.getMean() / TimeUnit.MILLISECONDS.toNanos(1),
+            latency.getPercentileMillis(50), latency.getPercentileMillis(90), latency.getPercentileMillis(99),
+            latency.getPercentileMillis(99.9), latency.getMax() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.pascalnb.dbwrapper.sim;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver of {@link SimServer}s, for {@code jdbc:sim:} URLs. Loading the class registers the driver, so it can be
+ * used with a config file such as:
+ * <pre>
+ * driver=com.pascalnb.dbwrapper.sim.SimDriver
+ * host=jdbc:sim:test?queryLatency=lognormal:5:0.5&amp;maxConnections=10
+ * username=
+ * password=
+ * </pre>
+ */
+public final class SimDriver implements Driver {
+
+    public static final String PREFIX = "jdbc:sim:";
+
+    static {
+        try {
+            DriverManager.registerDriver(new SimDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        try {
+            return SimServer.of(url).connect();
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(e.getMessage(), "08001", e);
+        }
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,341 @@
+package com.pascalnb.dbwrapper.sim;
+
+import com.pascalnb.dbwrapper.ColumnType;
+import com.pascalnb.dbwrapper.StubResult;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A simulated database server, configured by the parameters of its {@code jdbc:sim:} URL:
+ * <ul>
+ *     <li>{@code connectLatency}: {@link Distribution} of the time to connect in milliseconds, default 0</li>
+ *     <li>{@code queryLatency}: distribution of the time to execute a statement in milliseconds, default 0</li>
+ *     <li>{@code rows}: distribution of the number of rows of a result or affected by an update, default 10</li>
+ *     <li>{@code results}: distribution of the number of results of a statement that is executed with
+ *     {@link PreparedStatement#execute()}, where 0 makes it an update, default 1</li>
+ *     <li>{@code columns}: the {@link ColumnType}s of the results separated by commas, default {@code INT,STRING}</li>
+ *     <li>{@code errorRate}: the probability that a statement fails, default 0</li>
+ *     <li>{@code errorState}: the SQLState of the failures, default {@code 40001}</li>
+ *     <li>{@code maxConnections}: the number of connections that can be open at once, default unlimited</li>
+ *     <li>{@code seed}: the seed of the random sources, so runs can be repeated, default 0</li>
+ * </ul>
+ * E.g. {@code jdbc:sim:orders?queryLatency=lognormal:5:0.5&rows=uniform:1:100&maxConnections=10}. Every connection
+ * draws from its own random source, seeded with the seed and the number of the connection.
+ */
+public final class SimServer {
+
+    private static final ColumnType[] KEY_COLUMNS = {ColumnType.LONG};
+    private static final Map<String, SimServer> SERVERS = new ConcurrentHashMap<>();
+
+    private final Distribution connectLatency;
+    private final Distribution queryLatency;
+    private final Distribution rows;
+    private final Distribution results;
+    private final ColumnType[] columns;
+    private final double errorRate;
+    private final String errorState;
+    private final int maxConnections;
+    private final long seed;
+
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicReference<StubResult> result = new AtomicReference<>();
+    private final AtomicReference<StubResult> keys = new AtomicReference<>();
+
+    private SimServer(Properties properties) {
+        this.connectLatency = Distribution.parse(properties.getProperty("connectLatency", "0"));
+        this.queryLatency = Distribution.parse(properties.getProperty("queryLatency", "0"));
+        this.rows = Distribution.parse(properties.getProperty("rows", "10"));
+        this.results = Distribution.parse(properties.getProperty("results", "1"));
+        this.columns = ColumnType.parse(properties.getProperty("columns", "INT,STRING"));
+        this.errorRate = Double.parseDouble(properties.getProperty("errorRate", "0"));
+        this.errorState = properties.getProperty("errorState", "40001");
+        this.maxConnections = Integer.parseInt(properties.getProperty("maxConnections", "0"));
+        this.seed = Long.parseLong(properties.getProperty("seed", "0"));
+    }
+
+    /**
+     * Returns the server of the given URL, which is shared by all connections to the same URL.
+     *
+     * @param url the {@code jdbc:sim:} URL
+     * @return the server
+     */
+    public static SimServer of(String url) {
+        return SERVERS.computeIfAbsent(url, SimServer::parse);
+    }
+
+    private static SimServer parse(String url) {
+        Properties properties = new Properties();
+        int query = url.indexOf('?');
+        if (query != -1) {
+            for (String parameter : url.substring(query + 1).split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals == -1) {
+                    throw new IllegalArgumentException("Invalid parameter " + parameter + " in " + url);
+                }
+                properties.setProperty(parameter.substring(0, equals),
+                    URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return new SimServer(properties);
+    }
+
+    /**
+     * @return the number of connections that are currently open
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * @return the number of statements that have been executed
+     */
+    public long getStatements() {
+        return statements.get();
+    }
+
+    Connection connect() throws SQLException {
+        int open = openConnections.incrementAndGet();
+        if (maxConnections > 0 && open > maxConnections) {
+            openConnections.decrementAndGet();
+            throw new SQLNonTransientConnectionException("Too many connections", "08004");
+        }
+        SimConnection connection = new SimConnection(new SplittableRandom(seed + connections.getAndIncrement()));
+        try {
+            sleep(connectLatency.sample(connection.random));
+        } catch (SQLException e) {
+            openConnections.decrementAndGet();
+            throw e;
+        }
+        return proxy(Connection.class, connection);
+    }
+
+    /**
+     * Returns a result with at least the given number of rows, growing the shared result when needed.
+     */
+    private static StubResult grow(AtomicReference<StubResult> shared, ColumnType[] types, int rows) {
+        StubResult current = shared.get();
+        if (current != null && current.getRowCount() >= rows) {
+            return current;
+        }
+        synchronized (shared) {
+            current = shared.get();
+            if (current == null || current.getRowCount() < rows) {
+                current = new StubResult(types, Math.max(rows, current == null ? 0 : 2 * current.getRowCount()));
+                shared.set(current);
+            }
+            return current;
+        }
+    }
+
+    private ResultSet resultSet(int rows) {
+        return grow(result, columns, rows).resultSet(rows);
+    }
+
+    private ResultSet generatedKeys(int rows) {
+        return grow(keys, KEY_COLUMNS, rows).resultSet(rows);
+    }
+
+    private static void sleep(double millis) throws SQLException {
+        long nanos = (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientException("Interrupted", "70100", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SimServer.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Method method) throws SQLFeatureNotSupportedException {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (method.getName().equals("toString")) {
+            return "sim";
+        }
+        throw new SQLFeatureNotSupportedException(method.getName());
+    }
+
+    private final class SimConnection implements InvocationHandler {
+
+        private final SplittableRandom random;
+        private boolean closed = false;
+        private boolean autoCommit = true;
+
+        private SimConnection(SplittableRandom random) {
+            this.random = random;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (closed && !method.getName().equals("close") && !method.getName().equals("isClosed")) {
+                throw new SQLNonTransientConnectionException("Connection is closed", "08003");
+            }
+            return switch (method.getName()) {
+                case "prepareStatement" -> proxy(PreparedStatement.class, new SimStatement());
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        openConnections.decrementAndGet();
+                    }
+                    yield null;
+                }
+                case "isClosed" -> closed;
+                case "setAutoCommit" -> {
+                    autoCommit = (boolean) args[0];
+                    yield null;
+                }
+                case "getAutoCommit" -> autoCommit;
+                default -> defaultValue(method);
+            };
+        }
+
+        /**
+         * Waits for the query latency and returns the number of rows, or fails with the error rate.
+         */
+        private int execute() throws SQLException {
+            double latency;
+            boolean failed;
+            int count;
+            synchronized (this) {
+                latency = queryLatency.sample(random);
+                failed = random.nextDouble() < errorRate;
+                count = (int) Math.round(rows.sample(random));
+            }
+            statements.incrementAndGet();
+            sleep(latency);
+            if (failed) {
+                throw new SQLTransientException("Simulated failure", errorState);
+            }
+            return count;
+        }
+
+        private synchronized int sampleRows() {
+            return (int) Math.round(rows.sample(random));
+        }
+
+        private synchronized int sampleResults() {
+            return (int) Math.round(results.sample(random));
+        }
+
+        /**
+         * A statement of the connection. Updates generate a key for every affected row, and a batch is executed as a
+         * single statement with an update count for every set of parameters. A generic execution returns a number of
+         * results, which are read one by one like those of a stored procedure.
+         */
+        private final class SimStatement implements InvocationHandler {
+
+            private int batched = 0;
+            private int generated = 0;
+            private int remaining = 0;
+            private ResultSet resultSet = null;
+            private int updateCount = -1;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return switch (method.getName()) {
+                    case "executeQuery" -> resultSet(execute());
+                    case "execute" -> executeResults();
+                    case "executeUpdate" -> generated = execute();
+                    case "getResultSet" -> resultSet;
+                    case "getUpdateCount" -> updateCount;
+                    case "getMoreResults" -> nextResult();
+                    case "addBatch" -> {
+                        batched++;
+                        yield null;
+                    }
+                    case "clearBatch" -> {
+                        batched = 0;
+                        yield null;
+                    }
+                    case "executeBatch" -> executeBatch();
+                    case "getGeneratedKeys" -> generatedKeys(generated);
+                    default -> defaultValue(method);
+                };
+            }
+
+            private boolean executeResults() throws SQLException {
+                int count = execute();
+                remaining = sampleResults();
+                resultSet = null;
+                updateCount = -1;
+                generated = 0;
+                if (remaining == 0) {
+                    generated = updateCount = count;
+                    return false;
+                }
+                remaining--;
+                resultSet = resultSet(count);
+                return true;
+            }
+
+            // moves to the next result, after which there are no update counts
+            private boolean nextResult() {
+                updateCount = -1;
+                if (remaining == 0) {
+                    resultSet = null;
+                    return false;
+                }
+                remaining--;
+                int count = sampleRows();
+                resultSet = resultSet(count);
+                return true;
+            }
+
+            private int[] executeBatch() throws SQLException {
+                int[] counts = new int[batched];
+                batched = 0;
+                generated = 0;
+                if (counts.length == 0) {
+                    return counts;
+                }
+                counts[0] = execute();
+                for (int i = 1; i < counts.length; i++) {
+                    counts[i] = sampleRows();
+                }
+                for (int count : counts) {
+                    generated += count;
+                }
+                return counts;
+            }
+
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,427 @@
+package com.pascalnb.dbwrapper.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that generates a {@code GeneratedMapper} for every class with {@code ParseField} annotations,
+ * following the same rules as the reflective {@code ObjectMapper}: records are created through their canonical
+ * constructor, classes with a {@code ParseConstructor} through that constructor, and other classes through their
+ * constructor with 0 parameters after which the annotated fields are set.
+ * <br><br>
+ * Classes whose constructor or fields cannot be accessed from generated code in the same package are skipped with a
+ * note, and are still mapped by reflection at runtime. Setters of private fields are not used, as the reflective
+ * mapping writes the fields directly. The generated mappers are registered in
+ * {@code META-INF/services}, so they are found without any reflection configuration.
+ */
+@SupportedAnnotationTypes({ParseFieldProcessor.PARSE_FIELD, ParseFieldProcessor.PARSE_CONSTRUCTOR})
+public class ParseFieldProcessor extends AbstractProcessor {
+
+    static final String PARSE_FIELD = "com.pascalnb.dbwrapper.annotation.ParseField";
+    static final String PARSE_CONSTRUCTOR = "com.pascalnb.dbwrapper.annotation.ParseConstructor";
+
+    private static final String GENERATED_MAPPER = "com.pascalnb.dbwrapper.GeneratedMapper";
+    private static final String SERVICE_FILE = "META-INF/services/" + GENERATED_MAPPER;
+    private static final String SUFFIX = "_ParseMapper";
+
+    private final Set<String> mappers = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                TypeElement type = enclosingType(element);
+                if (type != null) {
+                    types.add(type);
+                }
+            }
+        }
+
+        for (TypeElement type : types) {
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write mapper: " + e.getMessage(), type);
+            }
+        }
+
+        if (roundEnv.processingOver() && !mappers.isEmpty()) {
+            try {
+                writeServiceFile();
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + SERVICE_FILE + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private static TypeElement enclosingType(Element element) {
+        Element enclosing = element.getEnclosingElement();
+        if (element.getKind() == ElementKind.PARAMETER) {
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return enclosing instanceof TypeElement type ? type : null;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        if (!accessible(type)) {
+            skip(type, "it or one of its enclosing classes is private or not static");
+            return;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            skip(type, "it is generic");
+            return;
+        }
+
+        String typeName = type.getQualifiedName().toString();
+        List<String> columns = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+
+        if (type.getKind() == ElementKind.RECORD) {
+            List<String> arguments = new ArrayList<>();
+            for (RecordComponentElement component : type.getRecordComponents()) {
+                String name = parseFieldName(component);
+                columns.add(name == null || name.isEmpty() ? component.getSimpleName().toString() : name);
+                String argument = argument(body, columns.size() - 1, component.asType());
+                if (argument == null) {
+                    skip(type, "component " + component.getSimpleName() + " has an unsupported type");
+                    return;
+                }
+                arguments.add(argument);
+            }
+            body.append("        return new ").append(typeName).append('(')
+                .append(String.join(", ", arguments)).append(");\n");
+        } else {
+            // the first annotated constructor in declaration order, like the reflective mapping
+            ExecutableElement constructor = null;
+            for (ExecutableElement candidate : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+                if (annotation(candidate, PARSE_CONSTRUCTOR) != null) {
+                    constructor = candidate;
+                    break;
+                }
+            }
+
+            if (constructor != null) {
+                if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                    skip(type, "its " + PARSE_CONSTRUCTOR + " constructor is private");
+                    return;
+                }
+                List<String> arguments = new ArrayList<>();
+                for (VariableElement parameter : constructor.getParameters()) {
+                    String name = parseFieldName(parameter);
+                    columns.add(name == null || name.isEmpty() ? parameter.getSimpleName().toString() : name);
+                    String argument = argument(body, columns.size() - 1, parameter.asType());
+                    if (argument == null) {
+                        skip(type, "parameter " + parameter.getSimpleName() + " has an unsupported type");
+                        return;
+                    }
+                    arguments.add(argument);
+                }
+                body.append("        return new ").append(typeName).append('(')
+                    .append(String.join(", ", arguments)).append(");\n");
+            } else if (!fields(type, columns, body)) {
+                return;
+            }
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String mapperName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+            .replace('$', '_') + SUFFIX;
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedMapperName, type).openWriter()) {
+            writer.write(source(packageName, mapperName, typeName, columns, body.toString()));
+        }
+        mappers.add(qualifiedMapperName);
+    }
+
+    /**
+     * Appends the statements that set the annotated fields of an instance created with the constructor with 0
+     * parameters.
+     */
+    private boolean fields(TypeElement type, List<String> columns, StringBuilder body) {
+        String typeName = type.getQualifiedName().toString();
+        boolean constructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+            .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+        if (!constructor) {
+            skip(type, "it has no accessible constructor with 0 parameters");
+            return false;
+        }
+
+        body.append("        ").append(typeName).append(" instance = new ").append(typeName).append("();\n");
+        body.append("        String value;\n");
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            String name = parseFieldName(field);
+            if (name == null) {
+                continue;
+            }
+            if (field.getModifiers().contains(Modifier.FINAL)) {
+                skip(type, "field " + field.getSimpleName() + " is final");
+                return false;
+            }
+
+            String fieldName = field.getSimpleName().toString();
+            // like the reflective mapping, the field is written directly, as calling a setter would run its logic
+            // only when the mapper was generated
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                skip(type, "field " + fieldName + " is private");
+                return false;
+            }
+            String target = "instance." + fieldName + " = %s;";
+
+            TypeMirror fieldType = field.asType();
+            String parse = parse(fieldType);
+            if (parse == null) {
+                skip(type, "field " + fieldName + " has an unsupported type");
+                return false;
+            }
+
+            columns.add(name.isEmpty() ? fieldName : name);
+            body.append("        value = get(row, indices[").append(columns.size() - 1).append("]);\n");
+            if (fieldType.getKind().isPrimitive()) {
+                body.append("        if (value != null) {\n")
+                    .append("            ").append(String.format(target, parse)).append('\n')
+                    .append("        }\n");
+            } else {
+                String nullable = "value".equals(parse) ? parse : "value == null ? null : " + parse;
+                body.append("        ").append(String.format(target, nullable)).append('\n');
+            }
+        }
+
+        if (columns.isEmpty()) {
+            skip(type, "it has no fields annotated with " + PARSE_FIELD);
+            return false;
+        }
+        body.append("        return instance;\n");
+        return true;
+    }
+
+    /**
+     * Appends the statement that reads the value of a constructor argument and returns the argument expression, or
+     * null if the type is not supported.
+     */
+    private static String argument(StringBuilder body, int index, TypeMirror type) {
+        String parse = parse(type);
+        if (parse == null) {
+            return null;
+        }
+        String variable = "value" + index;
+        body.append("        String ").append(variable).append(" = get(row, indices[").append(index).append("]);\n");
+        if ("value".equals(parse)) {
+            return variable;
+        }
+        String nullValue = type.getKind().isPrimitive() ? defaultValue(type.getKind()) : "null";
+        return variable + " == null ? " + nullValue + " : " + parse.replace("value", variable);
+    }
+
+    /**
+     * Returns the expression that parses the nonnull string {@code value} to the given type, or null if the type is
+     * not supported.
+     */
+    private static String parse(TypeMirror type) {
+        String name = type instanceof DeclaredType declared
+            ? ((TypeElement) declared.asElement()).getQualifiedName().toString()
+            : type.getKind().name();
+        return switch (name) {
+            case "java.lang.String" -> "value";
+            case "INT", "java.lang.Integer" -> "Integer.parseInt(value)";
+            case "LONG", "java.lang.Long" -> "Long.parseLong(value)";
+            case "DOUBLE", "java.lang.Double" -> "Double.parseDouble(value)";
+            case "FLOAT", "java.lang.Float" -> "Float.parseFloat(value)";
+            case "SHORT", "java.lang.Short" -> "Short.parseShort(value)";
+            case "BYTE", "java.lang.Byte" -> "Byte.parseByte(value)";
+            case "BOOLEAN", "java.lang.Boolean" -> "parseBoolean(value)";
+            case "CHAR", "java.lang.Character" -> "value.charAt(0)";
+            default -> null;
+        };
+    }
+
+    private static String defaultValue(TypeKind kind) {
+        return switch (kind) {
+            case BOOLEAN -> "false";
+            case CHAR -> "'\\0'";
+            case SHORT -> "(short) 0";
+            case BYTE -> "(byte) 0";
+            case LONG -> "0L";
+            case FLOAT -> "0F";
+            case DOUBLE -> "0D";
+            default -> "0";
+        };
+    }
+
+    private static String source(String packageName, String mapperName, String typeName, List<String> columns,
+        String body) {
+        StringBuilder columnArray = new StringBuilder();
+        for (String column : columns) {
+            if (columnArray.length() > 0) {
+                columnArray.append(", ");
+            }
+            columnArray.append('"').append(column.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+
+        return (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n")
+            + "@javax.annotation.processing.Generated(\"" + ParseFieldProcessor.class.getName() + "\")\n"
+            + "public final class " + mapperName + " implements " + GENERATED_MAPPER + "<" + typeName + "> {\n"
+            + "\n"
+            + "    private static final String[] COLUMNS = {" + columnArray + "};\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public Class<" + typeName + "> getType() {\n"
+            + "        return " + typeName + ".class;\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public " + typeName + " apply(com.pascalnb.dbwrapper.Table table) {\n"
+            + "        return table.isEmpty() ? null : map(table.get(0), indicesOf(table));\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public java.util.List<" + typeName + "> applyAll(com.pascalnb.dbwrapper.Table table) {\n"
+            + "        if (table.isEmpty()) {\n"
+            + "            return java.util.List.of();\n"
+            + "        }\n"
+            + "        int[] indices = indicesOf(table);\n"
+            + "        java.util.List<" + typeName + "> result = new java.util.ArrayList<>(table.getRowCount());\n"
+            + "        for (com.pascalnb.dbwrapper.Tuple row : table) {\n"
+            + "            result.add(map(row, indices));\n"
+            + "        }\n"
+            + "        return java.util.Collections.unmodifiableList(result);\n"
+            + "    }\n"
+            + "\n"
+            + "    private static int[] indicesOf(com.pascalnb.dbwrapper.Table table) {\n"
+            + "        return table.getShape().binding(COLUMNS, shape -> {\n"
+            + "            int[] indices = new int[COLUMNS.length];\n"
+            + "            for (int i = 0; i < indices.length; i++) {\n"
+            + "                indices[i] = shape.indexOf(COLUMNS[i]);\n"
+            + "            }\n"
+            + "            return indices;\n"
+            + "        });\n"
+            + "    }\n"
+            + "\n"
+            + "    private static String get(com.pascalnb.dbwrapper.Tuple row, int index) {\n"
+            + "        return index == -1 ? null : row.get(index);\n"
+            + "    }\n"
+            + "\n"
+            + "    private static boolean parseBoolean(String value) {\n"
+            + "        return Boolean.parseBoolean(value) || \"t\".equals(value) || \"1\".equals(value);\n"
+            + "    }\n"
+            + "\n"
+            + "    private static " + typeName + " map(com.pascalnb.dbwrapper.Tuple row, int[] indices) {\n"
+            + body
+            + "    }\n"
+            + "\n"
+            + "}\n";
+    }
+
+    private void writeServiceFile() throws IOException {
+        Set<String> entries = new TreeSet<>(mappers);
+        try {
+            // keep the mappers of previous incremental compilations
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                reader.lines().map(String::trim).filter(line -> !line.isEmpty()).forEach(entries::add);
+            }
+        } catch (IOException | IllegalArgumentException ignored) {
+            // no existing service file
+        }
+
+        FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+        try (Writer writer = file.openWriter()) {
+            for (String entry : entries) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static boolean accessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement current) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            boolean inner = current.getNestingKind().isNested() && current.getKind() != ElementKind.RECORD
+                && !current.getModifiers().contains(Modifier.STATIC);
+            if (inner) {
+                return false;
+            }
+            element = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of the {@code ParseField} annotation of the element, an empty string for the default value, or
+     * null if the element is not annotated.
+     */
+    private static String parseFieldName(Element element) {
+        AnnotationMirror annotation = annotation(element, PARSE_FIELD);
+        if (annotation == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+            : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                return entry.getValue().getValue().toString();
+            }
+        }
+        return "";
+    }
+
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(name)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private void skip(TypeElement type, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+            "No mapper generated for " + type.getQualifiedName() + " because " + reason
+                + ", it will be mapped by reflection", type);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.pascalnb.dbwrapper.processor;
+
+import com.pascalnb.dbwrapper.GeneratedMapper;
+import com.pascalnb.dbwrapper.Mapper;
+import com.pascalnb.dbwrapper.Table;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ParseFieldProcessorTest {
+
+    private static final Map<String, String> SOURCES = Map.of(
+        "sample.Fields", """
+            package sample;
+
+            import com.pascalnb.dbwrapper.annotation.ParseField;
+
+            public class Fields {
+
+                @ParseField
+                public int id;
+                @ParseField("name")
+                String text;
+                @ParseField
+                Boolean flag;
+
+                public String getText() {
+                    return text;
+                }
+
+            }
+            """,
+        "sample.Point", """
+            package sample;
+
+            import com.pascalnb.dbwrapper.annotation.ParseField;
+
+            public record Point(int x, @ParseField("y_value") Long y) {
+            }
+            """,
+        "sample.Constructed", """
+            package sample;
+
+            import com.pascalnb.dbwrapper.annotation.ParseConstructor;
+            import com.pascalnb.dbwrapper.annotation.ParseField;
+
+            public class Constructed {
+
+                public final int id;
+                public final String via;
+
+                @ParseConstructor
+                public Constructed(@ParseField("id") int id) {
+                    this.id = id;
+                    this.via = "first";
+                }
+
+                @ParseConstructor
+                public Constructed(@ParseField("id") long id, @ParseField("x") String x) {
+                    this.id = (int) id;
+                    this.via = "second";
+                }
+
+            }
+            """,
+        "sample.Hidden", """
+            package sample;
+
+            import com.pascalnb.dbwrapper.annotation.ParseField;
+
+            public class Hidden {
+
+                @ParseField
+                private String value;
+
+            }
+            """,
+        "sample.Validated", """
+            package sample;
+
+            import com.pascalnb.dbwrapper.annotation.ParseField;
+
+            public class Validated {
+
+                @ParseField
+                private String value;
+
+                public void setValue(String value) {
+                    this.value = value.toUpperCase();
+                }
+
+                public String getValue() {
+                    return value;
+                }
+
+            }
+            """
+    );
+
+    @TempDir
+    static Path output;
+    private static List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    private static ClassLoader loader;
+
+    @BeforeAll
+    public static void compile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        List<JavaFileObject> sources = new ArrayList<>();
+        SOURCES.forEach((name, source) -> sources.add(new Source(name, source)));
+
+        // the library, to compile the samples and the generated mappers against
+        File library = new File(GeneratedMapper.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(collector, null, StandardCharsets.UTF_8)) {
+            files.setLocation(StandardLocation.CLASS_OUTPUT, List.of(output.toFile()));
+            files.setLocation(StandardLocation.SOURCE_OUTPUT, List.of(output.toFile()));
+            files.setLocation(StandardLocation.CLASS_PATH, List.of(library));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, collector, List.of("-parameters"), null,
+                sources);
+            task.setProcessors(List.of(new ParseFieldProcessor()));
+            Assertions.assertTrue(task.call(), () -> collector.getDiagnostics().toString());
+        }
+        diagnostics = collector.getDiagnostics();
+        loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, ParseFieldProcessorTest.class.getClassLoader());
+    }
+
+    private static Object map(String className, Table table) throws ClassNotFoundException {
+        Mapper<?> mapper = Mapper.toObject(loader.loadClass(className));
+        Assertions.assertInstanceOf(GeneratedMapper.class, mapper, className);
+        return mapper.apply(table);
+    }
+
+    private static Object field(Object instance, String name) throws ReflectiveOperationException {
+        return instance.getClass().getField(name).get(instance);
+    }
+
+    @Test
+    public void testServiceFile() throws Exception {
+        Path serviceFile = output.resolve("META-INF/services/" + GeneratedMapper.class.getName());
+        List<String> services = Files.readAllLines(serviceFile);
+        Assertions.assertEquals(List.of("sample.Constructed_ParseMapper", "sample.Fields_ParseMapper",
+            "sample.Point_ParseMapper"), services);
+        Assertions.assertTrue(diagnostics.stream().anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.NOTE
+            && diagnostic.getMessage(null).contains("No mapper generated for sample.Hidden")));
+        Assertions.assertFalse(Mapper.toObject(loader.loadClass("sample.Hidden")) instanceof GeneratedMapper);
+    }
+
+    @Test
+    public void testPrivateFieldWithSetter() throws Exception {
+        Assertions.assertTrue(diagnostics.stream().anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.NOTE
+            && diagnostic.getMessage(null).contains("No mapper generated for sample.Validated")));
+
+        // mapped by reflection, which writes the field without calling the setter
+        Table table = new Table(new String[]{"value"}, List.<String[]>of(new String[]{"a"}));
+        Mapper<?> mapper = Mapper.toObject(loader.loadClass("sample.Validated"));
+        Assertions.assertFalse(mapper instanceof GeneratedMapper);
+        Object validated = mapper.apply(table);
+        Assertions.assertEquals("a", validated.getClass().getMethod("getValue").invoke(validated));
+    }
+
+    @Test
+    public void testFields() throws Exception {
+        Table table = new Table(new String[]{"name", "id", "flag"}, List.<String[]>of(new String[]{"a", "3", "1"}));
+        Object fields = map("sample.Fields", table);
+        Assertions.assertEquals(3, field(fields, "id"));
+        Assertions.assertEquals("a", fields.getClass().getMethod("getText").invoke(fields));
+
+        Table empty = new Table(new String[]{"id"}, List.<String[]>of(new String[]{null}));
+        Assertions.assertEquals(0, field(map("sample.Fields", empty), "id"));
+    }
+
+    @Test
+    public void testRecord() throws Exception {
+        Table table = new Table(new String[]{"x", "y_value"}, List.<String[]>of(new String[]{"1", null}));
+        Object point = map("sample.Point", table);
+        Assertions.assertEquals(1, point.getClass().getMethod("x").invoke(point));
+        Assertions.assertNull(point.getClass().getMethod("y").invoke(point));
+    }
+
+    @Test
+    public void testConstructor() throws Exception {
+        Table table = new Table(new String[]{"id", "x"}, List.<String[]>of(new String[]{"7", "b"}));
+        Object generated = map("sample.Constructed", table);
+        Assertions.assertEquals(7, field(generated, "id"));
+        Assertions.assertEquals("first", field(generated, "via"));
+
+        // the reflective mapping picks the same constructor
+        Class<?> type = loader.loadClass("sample.Constructed");
+        Object reflected = new com.pascalnb.dbwrapper.ObjectMapper<>(type).apply(table);
+        Assertions.assertEquals("first", field(reflected, "via"));
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String source;
+
+        private Source(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.pascalnb.dbwrapper;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 /**
@@ -72,6 +74,42 @@ public abstract class Database {
      */
     public abstract Table queryStatement(Query query);
 
+    /**
+     * Queries a prepared statement on the database and maps every row of the result with the given row mapper.
+     * <br><br>
+     * The default implementation maps the rows of the table returned by {@link #queryStatement(Query)}.
+     * Implementations should map the rows while reading the result instead, without creating a table.
+     *
+     * @param query  the prepared query
+     * @param mapper the row mapper
+     * @param <T>    the type of the mapped rows
+     * @return the mapped rows
+     */
+    public <T> List<T> queryStatement(Query query, RowMapper<T> mapper) {
+        Table table = queryStatement(query);
+        TupleRow row = new TupleRow(table);
+        RowMapper<T> bound = mapper.bind(row);
+        List<T> result = new ArrayList<>(table.getRowCount());
+        for (Tuple tuple : table) {
+            result.add(bound.map(row.of(tuple)));
+        }
+        return result;
+    }
+
+    /**
+     * Queries a prepared statement that returns multiple results on the database, such as a script of multiple
+     * statements or a stored procedure, and returns all results in a single round trip.
+     * <br><br>
+     * The default implementation only returns the result of {@link #queryStatement(Query)}. Implementations should
+     * return every result instead.
+     *
+     * @param query the prepared query
+     * @return the results in the order in which they were returned
+     */
+    public Results queryResults(Query query) {
+        return new Results(List.of(queryStatement(query)));
+    }
+
     /**
      * Executes a prepared statement on the database.
      *
@@ -79,6 +117,39 @@ public abstract class Database {
      */
     public abstract void executeStatement(Query query);
 
+    /**
+     * Executes a prepared statement that modifies rows on the database and returns the update count and the keys
+     * generated by the database.
+     * <br><br>
+     * The default implementation executes the statement with {@link #executeStatement(Query)} and returns an unknown
+     * update count without keys. Implementations should return the update count and generated keys instead.
+     *
+     * @param query the prepared statement
+     * @return the update count and generated keys
+     */
+    public UpdateResult updateStatement(Query query) {
+        executeStatement(query);
+        return UpdateResult.unknown();
+    }
+
+    /**
+     * Executes prepared statements that modify rows on the database in order and returns their combined update counts
+     * and generated keys.
+     * <br><br>
+     * The default implementation executes every statement with {@link #updateStatement(Query)}. Implementations
+     * should send consecutive statements with the same SQL as a single batch instead.
+     *
+     * @param queries the prepared statements
+     * @return the update counts and generated keys of all statements
+     */
+    public UpdateResult updateBatch(List<Query> queries) {
+        List<UpdateResult> results = new ArrayList<>(queries.size());
+        for (Query query : queries) {
+            results.add(updateStatement(query));
+        }
+        return UpdateResult.combine(results);
+    }
+
     /**
      * Closes the connection to the database.
      */
@@ -97,6 +168,14 @@ public abstract class Database {
         return implementation.get();
     }
 
+    /**
+     * @param datasource the datasource, or null for the default database
+     * @return an instance of database.Database for the given datasource
+     */
+    public static Database getInstance(Datasource datasource) {
+        return datasource == null ? getInstance() : datasource.getInstance();
+    }
+
     public static void setImplementation(Supplier<Database> supplier) {
         implementation = supplier;
     }
@@ -0,0 +1,67 @@
+package com.pascalnb.dbwrapper;
+
+import org.jetbrains.annotations.Contract;
+
+import java.util.function.Supplier;
+
+/**
+ * A named database with its own credentials, next to the default database of the {@link DatabaseAuthenticator}.
+ * Actions run on a datasource with {@code withDatasource}.
+ */
+@SuppressWarnings("unused")
+public final class Datasource {
+
+    private final String name;
+    private final Supplier<Database> implementation;
+
+    private Datasource(String name, Supplier<Database> implementation) {
+        this.name = name;
+        this.implementation = implementation;
+    }
+
+    /**
+     * Creates a datasource that connects over JDBC with the given credentials.
+     *
+     * @param name     the name of the datasource
+     * @param url      the JDBC URL
+     * @param username the username
+     * @param password the password
+     * @return a new datasource
+     */
+    @Contract(value = "_, _, _, _ -> new", pure = true)
+    public static Datasource of(String name, String url, String username, String password) {
+        if (url == null || url.isBlank()) {
+            throw new DatabaseException("URL cannot be null or blank");
+        }
+        return new Datasource(name, () -> new JDBC(url, username, password));
+    }
+
+    /**
+     * Creates a datasource with a custom implementation of {@link Database}.
+     *
+     * @param name           the name of the datasource
+     * @param implementation the supplier of unconnected databases
+     * @return a new datasource
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public static Datasource of(String name, Supplier<Database> implementation) {
+        return new Datasource(name, implementation);
+    }
+
+    /**
+     * @return a new unconnected database of this datasource
+     */
+    public Database getInstance() {
+        return implementation.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
\ No newline at end of file
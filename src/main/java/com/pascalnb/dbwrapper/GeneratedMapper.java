@@ -0,0 +1,43 @@
+package com.pascalnb.dbwrapper;
+
+import java.util.List;
+
+/**
+ * A mapper generated at compile time by the dbwrapper annotation processor for a class with {@link
+ * com.pascalnb.dbwrapper.annotation.ParseField} annotations. It maps rows to objects with plain field writes or
+ * constructor calls, without any reflection.
+ * <br><br>
+ * Generated mappers are registered as services of this interface and named after the class they map, with
+ * {@code _ParseMapper} appended to the nested class names joined by underscores. {@link Mapper#toObject(Class)} and
+ * {@link Mapper#toObjects(Class)} use them when present and fall back to {@link ObjectMapper} otherwise.
+ *
+ * @param <T> the type of the mapped objects
+ */
+public interface GeneratedMapper<T> extends Mapper<T> {
+
+    /**
+     * @return the class this mapper creates instances of
+     */
+    Class<T> getType();
+
+    /**
+     * Maps all rows of the given table.
+     *
+     * @param table the table
+     * @return an unmodifiable list with an instance for every row
+     */
+    List<T> applyAll(Table table);
+
+    /**
+     * Returns the generated mapper for the given class, or null if none was generated.
+     *
+     * @param clazz the class
+     * @param <T>   the type of the class
+     * @return the generated mapper or null
+     */
+    @SuppressWarnings("unchecked")
+    static <T> GeneratedMapper<T> find(Class<T> clazz) {
+        return (GeneratedMapper<T>) GeneratedMappers.MAPPERS.get(clazz).orElse(null);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.pascalnb.dbwrapper;
+
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Looks up the {@link GeneratedMapper} of a class once and caches the result per class.
+ */
+final class GeneratedMappers {
+
+    @SuppressWarnings("unchecked")
+    private static final Class<GeneratedMapper<?>> SERVICE =
+        (Class<GeneratedMapper<?>>) (Class<?>) GeneratedMapper.class;
+
+    static final ClassValue<Optional<GeneratedMapper<?>>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected Optional<GeneratedMapper<?>> computeValue(Class<?> type) {
+            String name = nameOf(type);
+            // only the provider with the expected name is instantiated
+            return ServiceLoader.load(SERVICE, type.getClassLoader())
+                .stream()
+                .filter(provider -> provider.type().getName().equals(name))
+                .map(ServiceLoader.Provider::get)
+                .filter(mapper -> mapper.getType() == type)
+                .findFirst();
+        }
+    };
+
+    private GeneratedMappers() {
+    }
+
+    /**
+     * Returns the binary name of the mapper generated for the given class, e.g. {@code a.b.Outer_Inner_ParseMapper}
+     * for {@code a.b.Outer.Inner}.
+     */
+    static String nameOf(Class<?> type) {
+        String packageName = type.getPackageName();
+        String simpleName = type.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + simpleName.replace('$', '_') + "_ParseMapper";
+    }
+
+}
\ No newline at end of file
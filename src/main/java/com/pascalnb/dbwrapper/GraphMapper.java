@@ -0,0 +1,267 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.annotation.ParseCollection;
+import com.pascalnb.dbwrapper.annotation.ParseField;
+import com.pascalnb.dbwrapper.annotation.ParseKey;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Maps the rows of a one-to-many join to a graph of objects, e.g. orders with their line items from a single query.
+ * <br><br>
+ * Every row is mapped to the root class as well as to the element classes of its {@link ParseCollection} fields,
+ * recursively. Objects are identified by their {@link ParseKey} fields, or by all their mapped columns if they have
+ * none, and every object is only created for the first row it appears in. Later rows only add to its collections.
+ * Nested objects whose key columns are all null, as produced by a left join without match, are skipped, while a root
+ * object without key values is rejected. Records cannot have {@link ParseCollection} components, as their collections
+ * are created before the nested objects are known.
+ *
+ * @param <T> the type of the root objects
+ */
+public class GraphMapper<T> implements Mapper<List<T>> {
+
+    private static final ClassValue<Node> NODES = new ClassValue<>() {
+        @Override
+        protected Node computeValue(Class<?> type) {
+            return new Node(type, new HashSet<>());
+        }
+    };
+
+    private final Class<T> clazz;
+    private final Node root;
+
+    public GraphMapper(Class<T> clazz) {
+        this.clazz = clazz;
+        this.root = NODES.get(clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> apply(Table table) {
+        if (table.isEmpty()) {
+            return List.of();
+        }
+        BoundNode bound = root.bind(table, "");
+        TupleRow row = new TupleRow(table);
+        Map<Object, Entry> roots = new LinkedHashMap<>();
+        for (Tuple tuple : table) {
+            ResultRow current = row.of(tuple);
+            Object key = bound.key(current);
+            if (key == null) {
+                throw new DatabaseException("Row without key values for " + clazz.getName() + ": " + tuple);
+            }
+            bound.accept(current, key, roots);
+        }
+        List<T> result = new ArrayList<>(roots.size());
+        for (Entry entry : roots.values()) {
+            result.add((T) entry.instance);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The mapping of a single class in the graph.
+     */
+    private static final class Node {
+
+        private final MappingPlan<?> plan;
+        private final String[] keys;
+        private final MethodHandle[] setters;
+        private final Supplier<Collection<Object>>[] collections;
+        private final String[] prefixes;
+        private final Node[] children;
+
+        @SuppressWarnings("unchecked")
+        private Node(Class<?> clazz, Set<Class<?>> visiting) {
+            if (!visiting.add(clazz)) {
+                throw new DatabaseException("Cyclic " + ParseCollection.class.getName() + " in " + clazz.getName());
+            }
+            if (clazz.isRecord() && Arrays.stream(clazz.getDeclaredFields())
+                .anyMatch(field -> field.isAnnotationPresent(ParseCollection.class))) {
+                throw new DatabaseException("Record " + clazz.getName() + " cannot have a "
+                    + ParseCollection.class.getName() + " component, use a class with a mutable field instead");
+            }
+            this.plan = MappingPlan.of(clazz);
+
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                throw new DatabaseException(e);
+            }
+
+            List<String> keys = new ArrayList<>();
+            List<MethodHandle> setters = new ArrayList<>();
+            List<Supplier<Collection<Object>>> collections = new ArrayList<>();
+            List<String> prefixes = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.isAnnotationPresent(ParseKey.class)) {
+                    ParseField parseField = field.getAnnotation(ParseField.class);
+                    boolean named = parseField != null && !"".equals(parseField.value());
+                    keys.add(named ? parseField.value() : field.getName());
+                }
+
+                ParseCollection parseCollection = field.getAnnotation(ParseCollection.class);
+                if (parseCollection == null) {
+                    continue;
+                }
+                if ((field.getModifiers() & Modifier.FINAL) != 0) {
+                    throw new DatabaseException("Final fields cannot be annotated with " +
+                        ParseCollection.class.getName());
+                }
+                if (field.getType().isAssignableFrom(ArrayList.class)) {
+                    collections.add(ArrayList::new);
+                } else if (field.getType().isAssignableFrom(LinkedHashSet.class)) {
+                    collections.add(LinkedHashSet::new);
+                } else {
+                    throw new DatabaseException("Field " + field.getName() + " of " + clazz.getName() +
+                        " must be a List, Set or Collection");
+                }
+
+                Type type = field.getGenericType();
+                if (!(type instanceof ParameterizedType parameterized)
+                    || !(parameterized.getActualTypeArguments()[0] instanceof Class<?> elementType)) {
+                    throw new DatabaseException("Field " + field.getName() + " of " + clazz.getName() +
+                        " must have a class as element type");
+                }
+
+                try {
+                    setters.add(lookup.unreflectSetter(field)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                } catch (IllegalAccessException e) {
+                    throw new DatabaseException(e);
+                }
+                prefixes.add(parseCollection.prefix());
+                children.add(new Node(elementType, visiting));
+            }
+
+            visiting.remove(clazz);
+            this.keys = keys.toArray(String[]::new);
+            this.setters = setters.toArray(MethodHandle[]::new);
+            this.collections = collections.toArray(Supplier[]::new);
+            this.prefixes = prefixes.toArray(String[]::new);
+            this.children = children.toArray(Node[]::new);
+        }
+
+        private BoundNode bind(Table table, String prefix) {
+            int[] indices = plan.indicesOf(table::indexOf, prefix);
+            int[] keyIndices;
+            if (keys.length == 0) {
+                keyIndices = indices;
+            } else {
+                keyIndices = new int[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    keyIndices[i] = table.indexOf(prefix + keys[i]);
+                }
+            }
+            BoundNode[] boundChildren = new BoundNode[children.length];
+            for (int i = 0; i < children.length; i++) {
+                boundChildren[i] = children[i].bind(table, prefix + prefixes[i]);
+            }
+            return new BoundNode(this, indices, keyIndices, boundChildren);
+        }
+
+    }
+
+    /**
+     * A node with its columns resolved to the indices of a specific table.
+     */
+    private record BoundNode(Node node, int[] indices, int[] keyIndices, BoundNode[] children) {
+
+        /**
+         * Maps the row into the given identity map, returning the object if it was newly created or null otherwise.
+         */
+        private Object accept(ResultRow row, Map<Object, Entry> identities) {
+            Object key = key(row);
+            return key == null ? null : accept(row, key, identities);
+        }
+
+        private Object accept(ResultRow row, Object key, Map<Object, Entry> identities) {
+            Entry entry = identities.get(key);
+            Object created = null;
+            if (entry == null) {
+                created = node.plan.rowToInstance(row, indices);
+                List<Collection<Object>> collections = new ArrayList<>(children.length);
+                for (int i = 0; i < children.length; i++) {
+                    Collection<Object> collection = node.collections[i].get();
+                    try {
+                        node.setters[i].invokeExact(created, (Object) collection);
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new DatabaseException(e);
+                    }
+                    collections.add(collection);
+                }
+                entry = new Entry(created, collections);
+                identities.put(key, entry);
+            }
+
+            for (int i = 0; i < children.length; i++) {
+                Object child = children[i].accept(row, entry.children.get(i));
+                if (child != null) {
+                    entry.collections.get(i).add(child);
+                }
+            }
+            return created;
+        }
+
+        /**
+         * Returns the key values of the row, or null if they are all null.
+         */
+        private Object key(ResultRow row) {
+            if (keyIndices.length == 1) {
+                return keyIndices[0] == -1 ? null : row.getString(keyIndices[0]);
+            }
+            String[] values = new String[keyIndices.length];
+            boolean empty = true;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = keyIndices[i] == -1 ? null : row.getString(keyIndices[i]);
+                empty &= values[i] == null;
+            }
+            return empty ? null : Arrays.asList(values);
+        }
+
+    }
+
+    /**
+     * An object in the graph with the identity maps and collections of its nested objects.
+     */
+    private static final class Entry {
+
+        private final Object instance;
+        private final List<Map<Object, Entry>> children;
+        private final List<Collection<Object>> collections;
+
+        private Entry(Object instance, List<Collection<Object>> collections) {
+            this.instance = instance;
+            this.children = new ArrayList<>(collections.size());
+            this.collections = collections;
+            for (int i = 0; i < collections.size(); i++) {
+                children.add(new HashMap<>());
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
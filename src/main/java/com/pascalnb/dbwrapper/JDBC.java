@@ -1,5 +1,12 @@
 package com.pascalnb.dbwrapper;
 
+import com.pascalnb.dbwrapper.jfr.ConnectEvent;
+import com.pascalnb.dbwrapper.jfr.ExecuteEvent;
+import com.pascalnb.dbwrapper.jfr.FetchEvent;
+import com.pascalnb.dbwrapper.metrics.Metrics;
+import com.pascalnb.dbwrapper.metrics.SlowQueryLog;
+import com.pascalnb.dbwrapper.trace.Stage;
+import com.pascalnb.dbwrapper.trace.Trace;
 import org.jetbrains.annotations.Contract;
 
 import java.sql.*;
@@ -12,21 +19,69 @@ import java.util.List;
 class JDBC extends Database {
 
     private static final int FETCH_SIZE = 500;
+    private static final int MAX_SHAPES = 1024;
+    // the last shape of the result of every query, so the shape of a result is only checked, not created
+    private static final LruCache<String, ResultShape> SHAPES = new LruCache<>(MAX_SHAPES);
+
+    private final String url;
+    private final String username;
+    private final String password;
 
     private Connection connection = null;
+    // identity of the connection in flight recorder events
+    private int connectionId = 0;
+
+    /**
+     * Creates a database that connects with the credentials of the {@link DatabaseAuthenticator}.
+     */
+    JDBC() {
+        this(null, null, null);
+    }
+
+    /**
+     * Creates a database that connects with the given credentials, or with those of the
+     * {@link DatabaseAuthenticator} if the URL is null.
+     */
+    JDBC(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
 
     @Contract("_ -> this")
     @Override
     public Database connect(boolean autoCommit) {
-        if (getUrl() == null) {
+        String url = this.url == null ? getUrl() : this.url;
+        if (url == null) {
             throw new DatabaseException("URL for database connection not set.");
         }
+        ConnectEvent event = new ConnectEvent();
+        event.begin();
         try {
-            connection = DriverManager.getConnection(getUrl(), getUsername(), getPassword());
-            connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
-            connection.setAutoCommit(autoCommit);
+            long start = System.nanoTime();
+            Connection opened = this.url == null
+                ? DriverManager.getConnection(url, getUsername(), getPassword())
+                : DriverManager.getConnection(url, username, password);
+            try {
+                opened.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+                opened.setAutoCommit(autoCommit);
+            } catch (SQLException | RuntimeException e) {
+                // the connection is not usable and not counted as open
+                try {
+                    opened.close();
+                } catch (SQLException closing) {
+                    e.addSuppressed(closing);
+                }
+                throw e;
+            }
+            connection = opened;
+            connectionId = System.identityHashCode(opened);
+            Metrics.getInstance().connected(System.nanoTime() - start);
+            Trace.record(Stage.CONNECT, start);
         } catch (SQLException e) {
             throw new DatabaseException(e);
+        } finally {
+            event.complete(url, connectionId, autoCommit);
         }
         return this;
     }
@@ -56,7 +111,7 @@ class JDBC extends Database {
     }
 
     @Contract("_, _ -> param1")
-    private PreparedStatement setVariables(PreparedStatement statement, Object... variables) {
+    PreparedStatement setVariables(PreparedStatement statement, Object... variables) {
         try {
             statement.setFetchSize(FETCH_SIZE);
 
@@ -82,8 +137,11 @@ class JDBC extends Database {
                     statement.setByte(index, (byte) variable);
                 } else if (variable instanceof Short) {
                     statement.setShort(index, (short) variable);
-                } else {
+                } else if (variable instanceof String) {
                     statement.setString(index, (String) variable);
+                } else {
+                    // e.g. dates, decimals and byte arrays, which the driver converts itself
+                    statement.setObject(index, variable);
                 }
 
             }
@@ -96,28 +154,250 @@ class JDBC extends Database {
     @Override
     public Table queryStatement(Query query) {
         checkConnection();
-        try {
-            return parseResult(
-                setVariables(
-                    connection.prepareStatement(query.toString()),
-                    query.getArgs()
-                ).executeQuery()
-            );
+        List<Query> parts = query.split();
+        if (parts.size() > 1) {
+            List<Table> tables = new ArrayList<>(parts.size());
+            for (Query part : parts) {
+                tables.add(queryStatement(part));
+            }
+            return Table.concat(tables);
+        }
+        Metrics metrics = Metrics.getInstance();
+        long start = metrics.statementStarted();
+        Table table = null;
+        Throwable error = null;
+        try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
+            ResultSet resultSet = executeQuery(statement, query);
+            long executed = System.nanoTime();
+            FetchEvent event = new FetchEvent();
+            event.begin();
+            table = parseResult(resultSet, query.toString());
+            Trace.record(Stage.FETCH, executed);
+            event.complete(query.toString(), table.getRowCount(), table.getColumnCount(), connectionId);
+            SlowQueryLog.getInstance().statement(query, executed - start, System.nanoTime() - executed,
+                table.getRowCount());
+            return table;
+        } catch (SQLException e) {
+            error = e;
+            throw new DatabaseException(e);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.statementFinished(query.toString(), start, table == null ? 0 : table.getRowCount(), error);
+        }
+    }
+
+    @Override
+    public <T> List<T> queryStatement(Query query, RowMapper<T> mapper) {
+        checkConnection();
+        List<Query> parts = query.split();
+        if (parts.size() > 1) {
+            List<T> result = new ArrayList<>();
+            for (Query part : parts) {
+                result.addAll(queryStatement(part, mapper));
+            }
+            return result;
+        }
+        Metrics metrics = Metrics.getInstance();
+        long start = metrics.statementStarted();
+        List<T> result = null;
+        Throwable error = null;
+        try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
+            ResultSet resultSet = executeQuery(statement, query);
+            long executed = System.nanoTime();
+            FetchEvent event = new FetchEvent();
+            event.begin();
+            result = parseResult(resultSet, query.toString(), mapper);
+            Trace.record(Stage.FETCH, executed);
+            event.complete(query.toString(), result.size(),
+                event.isEnabled() ? resultSet.getMetaData().getColumnCount() : 0, connectionId);
+            SlowQueryLog.getInstance().statement(query, executed - start, System.nanoTime() - executed,
+                result.size());
+            return result;
+        } catch (SQLException e) {
+            error = e;
+            throw new DatabaseException(e);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.statementFinished(query.toString(), start, result == null ? 0 : result.size(), error);
+        }
+    }
+
+    @Override
+    public Results queryResults(Query query) {
+        checkConnection();
+        if (query.split().size() > 1) {
+            throw new DatabaseException("A query with multiple results cannot be split into multiple statements");
+        }
+        String sql = query.toString();
+        Metrics metrics = Metrics.getInstance();
+        long start = metrics.statementStarted();
+        int rows = 0;
+        Throwable error = null;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            ExecuteEvent executeEvent = new ExecuteEvent();
+            executeEvent.begin();
+            boolean isResult;
+            boolean succeeded = false;
+            try {
+                isResult = setVariables(statement, query.getArgs()).execute();
+                succeeded = true;
+            } finally {
+                Trace.record(Stage.EXECUTE, start);
+                executeEvent.complete(sql, query.getArgs().length, connectionId, succeeded);
+            }
+            long executed = System.nanoTime();
+            FetchEvent event = new FetchEvent();
+            event.begin();
+            List<Table> tables = new ArrayList<>();
+            int columns = 0;
+            // update counts of statements in between are skipped, -1 means there are no more results
+            while (isResult || statement.getUpdateCount() != -1) {
+                if (isResult) {
+                    Table table = parseResult(statement.getResultSet());
+                    tables.add(table);
+                    rows += table.getRowCount();
+                    columns += table.getColumnCount();
+                }
+                isResult = statement.getMoreResults();
+            }
+            Trace.record(Stage.FETCH, executed);
+            event.complete(sql, rows, columns, connectionId);
+            SlowQueryLog.getInstance().statement(query, executed - start, System.nanoTime() - executed, rows);
+            return new Results(tables);
         } catch (SQLException e) {
+            error = e;
             throw new DatabaseException(e);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.statementFinished(sql, start, rows, error);
         }
     }
 
     @Override
     public void executeStatement(Query query) {
         checkConnection();
+        List<Query> parts = query.split();
+        if (parts.size() > 1) {
+            for (Query part : parts) {
+                executeStatement(part);
+            }
+            return;
+        }
+        Metrics metrics = Metrics.getInstance();
+        long start = metrics.statementStarted();
+        Throwable error = null;
         try {
-            setVariables(connection.prepareStatement(query.toString()), query.getArgs()).execute();
+            ExecuteEvent event = new ExecuteEvent();
+            event.begin();
+            boolean succeeded = false;
+            try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
+                setVariables(statement, query.getArgs()).execute();
+                succeeded = true;
+            } finally {
+                Trace.record(Stage.EXECUTE, start);
+                event.complete(query.toString(), query.getArgs().length, connectionId, succeeded);
+            }
+            SlowQueryLog.getInstance().statement(query, System.nanoTime() - start, 0, -1);
         } catch (SQLException e) {
+            error = e;
             throw new DatabaseException(e);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.statementFinished(query.toString(), start, -1, error);
         }
     }
 
+    @Override
+    public UpdateResult updateStatement(Query query) {
+        checkConnection();
+        List<Query> parts = query.split();
+        if (parts.size() > 1) {
+            List<UpdateResult> results = new ArrayList<>(parts.size());
+            for (Query part : parts) {
+                results.add(updateStatement(part));
+            }
+            return UpdateResult.combine(results);
+        }
+        return update(List.of(query));
+    }
+
+    @Override
+    public UpdateResult updateBatch(List<Query> queries) {
+        checkConnection();
+        List<Query> parts = new ArrayList<>();
+        for (Query query : queries) {
+            parts.addAll(query.split());
+        }
+        List<UpdateResult> results = new ArrayList<>();
+        int from = 0;
+        while (from < parts.size()) {
+            String sql = parts.get(from).toString();
+            int to = from + 1;
+            while (to < parts.size() && parts.get(to).toString().equals(sql)) {
+                to++;
+            }
+            results.add(update(parts.subList(from, to)));
+            from = to;
+        }
+        return UpdateResult.combine(results);
+    }
+
+    // executes statements with the same SQL, as a single JDBC batch if there are multiple
+    private UpdateResult update(List<Query> batch) {
+        Query query = batch.get(0);
+        String sql = query.toString();
+        Metrics metrics = Metrics.getInstance();
+        long start = metrics.statementStarted();
+        UpdateResult result = null;
+        Throwable error = null;
+        try {
+            ExecuteEvent event = new ExecuteEvent();
+            event.begin();
+            boolean succeeded = false;
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                long[] counts = new long[batch.size()];
+                if (batch.size() == 1) {
+                    counts[0] = setVariables(statement, query.getArgs()).executeUpdate();
+                } else {
+                    for (Query part : batch) {
+                        setVariables(statement, part.getArgs()).addBatch();
+                    }
+                    int[] batchCounts = statement.executeBatch();
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] = batchCounts[i];
+                    }
+                }
+                result = new UpdateResult(counts, parseResult(statement.getGeneratedKeys()));
+                succeeded = true;
+            } finally {
+                Trace.record(Stage.EXECUTE, start);
+                event.complete(sql, query.getArgs().length * batch.size(), connectionId, succeeded);
+            }
+            SlowQueryLog.getInstance().statement(query, System.nanoTime() - start, 0, rowsOf(result));
+            return result;
+        } catch (SQLException e) {
+            error = e;
+            throw new DatabaseException(e);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.statementFinished(sql, start, result == null ? -1 : rowsOf(result), error);
+        }
+    }
+
+    private static int rowsOf(UpdateResult result) {
+        return (int) Math.min(result.getUpdateCount(), Integer.MAX_VALUE);
+    }
+
     @Override
     public void close() {
         checkConnection();
@@ -127,20 +407,51 @@ class JDBC extends Database {
             throw new DatabaseException(e);
         } finally {
             connection = null;
+            connectionId = 0;
+            Metrics.getInstance().disconnected();
         }
     }
 
-    // specific implementation to parse a ResultSet to a Table
-    @Contract(value = "_ -> new")
-    private Table parseResult(ResultSet resultSet) {
+    // executes a query with the prepared statement, without reading its result, which is closed with the statement
+    private ResultSet executeQuery(PreparedStatement statement, Query query) throws SQLException {
+        ExecuteEvent event = new ExecuteEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean succeeded = false;
         try {
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            String[] attributes = new String[columnCount];
+            ResultSet resultSet = setVariables(statement, query.getArgs()).executeQuery();
+            succeeded = true;
+            return resultSet;
+        } finally {
+            Trace.record(Stage.EXECUTE, start);
+            event.complete(query.toString(), query.getArgs().length, connectionId, succeeded);
+        }
+    }
 
-            for (int i = 0; i < attributes.length; i++) {
-                attributes[i] = metaData.getColumnName(i + 1);
-            }
+    // returns the shape of the result of the given query, or of any query if null
+    private static ResultShape shapeOf(String sql, ResultSetMetaData metaData) throws SQLException {
+        ResultShape shape = sql == null ? null : SHAPES.get(sql);
+        if (shape != null && shape.matches(metaData)) {
+            return shape;
+        }
+        shape = ResultShape.of(metaData);
+        if (sql != null) {
+            SHAPES.put(sql, shape);
+        }
+        return shape;
+    }
+
+    @Contract(value = "_ -> new")
+    Table parseResult(ResultSet resultSet) {
+        return parseResult(resultSet, (String) null);
+    }
+
+    // specific implementation to parse a ResultSet to a Table
+    @Contract(value = "_, _ -> new")
+    Table parseResult(ResultSet resultSet, String sql) {
+        try {
+            ResultShape shape = shapeOf(sql, resultSet.getMetaData());
+            int columnCount = shape.getColumnCount();
 
             List<String[]> tuples = new ArrayList<>();
 
@@ -154,10 +465,142 @@ class JDBC extends Database {
                 tuples.add(tuple);
             }
 
-            return new Table(attributes, tuples);
+            return new Table(shape, tuples);
         } catch (SQLException e) {
             throw new DatabaseException(e);
         }
     }
 
+    <T> List<T> parseResult(ResultSet resultSet, RowMapper<T> mapper) {
+        return parseResult(resultSet, null, mapper);
+    }
+
+    // maps the rows of a ResultSet while reading them, without creating a Table
+    <T> List<T> parseResult(ResultSet resultSet, String sql, RowMapper<T> mapper) {
+        try {
+            ResultSetRow row = new ResultSetRow(resultSet, shapeOf(sql, resultSet.getMetaData()));
+            RowMapper<T> bound = mapper.bind(row);
+            List<T> result = new ArrayList<>();
+
+            while (resultSet.next()) {
+                result.add(bound.map(row));
+            }
+
+            return result;
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * {@link ResultRow} view of the current row of a {@link ResultSet}.
+     */
+    private static class ResultSetRow implements ResultRow {
+
+        private final ResultSet resultSet;
+        private final ResultShape shape;
+
+        private ResultSetRow(ResultSet resultSet, ResultShape shape) {
+            this.resultSet = resultSet;
+            this.shape = shape;
+        }
+
+        @Override
+        public ResultShape getShape() {
+            return shape;
+        }
+
+        @Override
+        public int indexOf(String column) {
+            return shape.indexOf(column);
+        }
+
+        @Override
+        public int getColumnCount() {
+            return shape.getColumnCount();
+        }
+
+        @Override
+        public String getString(int index) {
+            try {
+                return resultSet.getString(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public int getInt(int index) {
+            try {
+                return resultSet.getInt(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public long getLong(int index) {
+            try {
+                return resultSet.getLong(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public double getDouble(int index) {
+            try {
+                return resultSet.getDouble(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public float getFloat(int index) {
+            try {
+                return resultSet.getFloat(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public short getShort(int index) {
+            try {
+                return resultSet.getShort(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public byte getByte(int index) {
+            try {
+                return resultSet.getByte(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(int index) {
+            try {
+                return resultSet.getBoolean(index + 1);
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        @Override
+        public boolean wasNull() {
+            try {
+                return resultSet.wasNull();
+            } catch (SQLException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+    }
+
 }
\ No newline at end of file
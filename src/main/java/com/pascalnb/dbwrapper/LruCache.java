@@ -0,0 +1,48 @@
+package com.pascalnb.dbwrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map of at most a given number of entries that evicts the least recently used entry, for caches with keys that can
+ * grow without bound, such as the SQL of generated queries.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class LruCache<K, V> {
+
+    private final Map<K, V> map;
+
+    /**
+     * @param capacity the maximum number of entries
+     */
+    LruCache(int capacity) {
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    /**
+     * @return the value that was already cached for the key, or null if the given value was added
+     */
+    synchronized V putIfAbsent(K key, V value) {
+        return map.putIfAbsent(key, value);
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+
+}
\ No newline at end of file
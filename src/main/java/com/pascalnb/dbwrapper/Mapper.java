@@ -3,9 +3,14 @@ package com.pascalnb.dbwrapper;
 import org.jetbrains.annotations.Contract;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Function;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 /**
@@ -189,19 +194,382 @@ public interface Mapper<T> extends Function<Table, T> {
         return singleNullableValue(StringMapper::new);
     }
 
+    /**
+     * Returns a mapper that parses the value at (0,0) of the table to the given primitive, wrapper or string class, or
+     * returns null if the table is empty or the value is null. The parse function is resolved once when the mapper is
+     * created.
+     *
+     * @param clazz the class
+     * @param <T>   the type of the class
+     * @return a new mapper
+     */
     @Contract(pure = true)
+    @SuppressWarnings("unchecked")
     static <T> Mapper<T> toPrimitive(Class<? extends T> clazz) {
-        return t -> stringMapper().apply(t).to(clazz);
+        Function<String, ?> parser = StringMapper.parser(clazz);
+        return t -> {
+            String value = t.isEmpty() ? null : t.get(0).get(0);
+            return value == null ? null : (T) parser.apply(value);
+        };
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to an int array, without boxing the values.
+     *
+     * @param index the index of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table with a null value in the column
+     */
+    @Contract(pure = true)
+    static Mapper<int[]> intArray(int index) {
+        return t -> {
+            int[] result = new int[t.getRowCount()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Integer.parseInt(nonNull(t, i, index));
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to an int array, without boxing the values.
+     *
+     * @param index     the index of the column
+     * @param nullValue the value null values are replaced with
+     * @return a new mapper
+     */
+    @Contract(pure = true)
+    static Mapper<int[]> intArray(int index, int nullValue) {
+        return t -> {
+            int[] result = new int[t.getRowCount()];
+            for (int i = 0; i < result.length; i++) {
+                String value = t.get(i).get(index);
+                result[i] = value == null ? nullValue : Integer.parseInt(value);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to an int array, without boxing the values. Use
+     * {@link com.pascalnb.dbwrapper.action.DatabaseAction#ofInts(Query, String)} to read the column without
+     * creating a table.
+     *
+     * @param column the name of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column or with a null value in the column
+     */
+    @Contract(pure = true)
+    static Mapper<int[]> intArray(String column) {
+        return t -> intArray(indexOf(t, column)).apply(t);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to an int array, without boxing the values.
+     *
+     * @param column    the name of the column
+     * @param nullValue the value null values are replaced with
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column
+     */
+    @Contract(pure = true)
+    static Mapper<int[]> intArray(String column, int nullValue) {
+        return t -> intArray(indexOf(t, column), nullValue).apply(t);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to a long array, without boxing the values.
+     *
+     * @param index the index of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table with a null value in the column
+     */
+    @Contract(pure = true)
+    static Mapper<long[]> longArray(int index) {
+        return t -> {
+            long[] result = new long[t.getRowCount()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Long.parseLong(nonNull(t, i, index));
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to a long array, without boxing the values.
+     *
+     * @param index     the index of the column
+     * @param nullValue the value null values are replaced with
+     * @return a new mapper
+     */
+    @Contract(pure = true)
+    static Mapper<long[]> longArray(int index, long nullValue) {
+        return t -> {
+            long[] result = new long[t.getRowCount()];
+            for (int i = 0; i < result.length; i++) {
+                String value = t.get(i).get(index);
+                result[i] = value == null ? nullValue : Long.parseLong(value);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to a long array, without boxing the values. Use
+     * {@link com.pascalnb.dbwrapper.action.DatabaseAction#ofLongs(Query, String)} to read the column without
+     * creating a table.
+     *
+     * @param column the name of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column or with a null value in the column
+     */
+    @Contract(pure = true)
+    static Mapper<long[]> longArray(String column) {
+        return t -> longArray(indexOf(t, column)).apply(t);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to a long array, without boxing the values.
+     *
+     * @param column    the name of the column
+     * @param nullValue the value null values are replaced with
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column
+     */
+    @Contract(pure = true)
+    static Mapper<long[]> longArray(String column, long nullValue) {
+        return t -> longArray(indexOf(t, column), nullValue).apply(t);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to a double array, without boxing the values.
+     *
+     * @param index the index of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table with a null value in the column
+     */
+    @Contract(pure = true)
+    static Mapper<double[]> doubleArray(int index) {
+        return t -> {
+            double[] result = new double[t.getRowCount()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Double.parseDouble(nonNull(t, i, index));
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to a double array, without boxing the values.
+     *
+     * @param index     the index of the column
+     * @param nullValue the value null values are replaced with, e.g. {@link Double#NaN}
+     * @return a new mapper
+     */
+    @Contract(pure = true)
+    static Mapper<double[]> doubleArray(int index, double nullValue) {
+        return t -> {
+            double[] result = new double[t.getRowCount()];
+            for (int i = 0; i < result.length; i++) {
+                String value = t.get(i).get(index);
+                result[i] = value == null ? nullValue : Double.parseDouble(value);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to a double array, without boxing the values. Use
+     * {@link com.pascalnb.dbwrapper.action.DatabaseAction#ofDoubles(Query, String)} to read the column without
+     * creating a table.
+     *
+     * @param column the name of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column or with a null value in the column
+     */
+    @Contract(pure = true)
+    static Mapper<double[]> doubleArray(String column) {
+        return t -> doubleArray(indexOf(t, column)).apply(t);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to a double array, without boxing the values.
+     *
+     * @param column    the name of the column
+     * @param nullValue the value null values are replaced with
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column
+     */
+    @Contract(pure = true)
+    static Mapper<double[]> doubleArray(String column, double nullValue) {
+        return t -> doubleArray(indexOf(t, column), nullValue).apply(t);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to an {@link IntStream}. Null values are skipped,
+     * like SQL aggregate functions do.
+     *
+     * @param index the index of the column
+     * @return a new mapper
+     */
+    @Contract(pure = true)
+    static Mapper<IntStream> intStream(int index) {
+        return t -> IntStream.range(0, t.getRowCount())
+            .mapToObj(i -> t.get(i).get(index))
+            .filter(Objects::nonNull)
+            .mapToInt(Integer::parseInt);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to an {@link IntStream}. Null values are skipped,
+     * like SQL aggregate functions do.
+     *
+     * @param column the name of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column
+     */
+    @Contract(pure = true)
+    static Mapper<IntStream> intStream(String column) {
+        return t -> intStream(indexOf(t, column)).apply(t);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given index to a {@link LongStream}. Null values are skipped,
+     * like SQL aggregate functions do.
+     *
+     * @param index the index of the column
+     * @return a new mapper
+     */
+    @Contract(pure = true)
+    static Mapper<LongStream> longStream(int index) {
+        return t -> IntStream.range(0, t.getRowCount())
+            .mapToObj(i -> t.get(i).get(index))
+            .filter(Objects::nonNull)
+            .mapToLong(Long::parseLong);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to a {@link LongStream}. Null values are skipped,
+     * like SQL aggregate functions do.
+     *
+     * @param column the name of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column
+     */
+    @Contract(pure = true)
+    static Mapper<LongStream> longStream(String column) {
+        return t -> longStream(indexOf(t, column)).apply(t);
     }
 
+    /**
+     * Returns a mapper that parses the column with the given index to a {@link DoubleStream}. Null values are skipped,
+     * like SQL aggregate functions do.
+     *
+     * @param index the index of the column
+     * @return a new mapper
+     */
+    @Contract(pure = true)
+    static Mapper<DoubleStream> doubleStream(int index) {
+        return t -> IntStream.range(0, t.getRowCount())
+            .mapToObj(i -> t.get(i).get(index))
+            .filter(Objects::nonNull)
+            .mapToDouble(Double::parseDouble);
+    }
+
+    /**
+     * Returns a mapper that parses the column with the given name to a {@link DoubleStream}. Null values are skipped,
+     * like SQL aggregate functions do.
+     *
+     * @param column the name of the column
+     * @return a new mapper
+     * @throws DatabaseException when applied to a table without the column
+     */
+    @Contract(pure = true)
+    static Mapper<DoubleStream> doubleStream(String column) {
+        return t -> doubleStream(indexOf(t, column)).apply(t);
+    }
+
+    /**
+     * Returns a mapper that marks the rows with a null value in the column with the given index, so it can be combined
+     * with the primitive arrays to tell null values apart from their replacement.
+     *
+     * @param index the index of the column
+     * @return a new mapper
+     */
+    @Contract(pure = true)
+    static Mapper<BitSet> nullMask(int index) {
+        return t -> {
+            BitSet result = new BitSet(t.getRowCount());
+            for (int i = 0; i < t.getRowCount(); i++) {
+                if (t.get(i).get(index) == null) {
+                    result.set(i);
+                }
+            }
+            return result;
+        };
+    }
+
+    @Contract(pure = true)
+    static Mapper<BitSet> nullMask(String column) {
+        return t -> nullMask(indexOf(t, column)).apply(t);
+    }
+
+    private static int indexOf(Table table, String column) {
+        int index = table.indexOf(column);
+        if (index == -1) {
+            throw new DatabaseException("Column " + column + " not found");
+        }
+        return index;
+    }
+
+    private static String nonNull(Table table, int row, int index) {
+        String value = table.get(row).get(index);
+        if (value == null) {
+            throw new DatabaseException("Null value in row " + row + " of column " + table.getAttribute(index));
+        }
+        return value;
+    }
+
+    /**
+     * Returns a mapper that maps the first row of the table to an instance of the given class. Uses the
+     * {@link GeneratedMapper} of the class if one was generated at compile time, or an {@link ObjectMapper} otherwise.
+     *
+     * @param clazz the class
+     * @param <T>   the type of the class
+     * @return a mapper
+     */
     @Contract(pure = true)
     static <T> Mapper<T> toObject(Class<T> clazz) {
-        return new ObjectMapper<>(clazz);
+        GeneratedMapper<T> generated = GeneratedMapper.find(clazz);
+        return generated == null ? new ObjectMapper<>(clazz) : generated;
     }
 
+    /**
+     * Returns a mapper that maps every row of the table to an instance of the given class. Uses the
+     * {@link GeneratedMapper} of the class if one was generated at compile time, or an {@link ObjectMapper} otherwise.
+     *
+     * @param clazz the class
+     * @param <T>   the type of the class
+     * @return a mapper
+     */
     @Contract(pure = true)
     static <T> Mapper<List<T>> toObjects(Class<T> clazz) {
-        return new ObjectMapper<>(clazz).all();
+        GeneratedMapper<T> generated = GeneratedMapper.find(clazz);
+        return generated == null ? new ObjectMapper<>(clazz).all() : generated::applyAll;
+    }
+
+    /**
+     * Returns a mapper that maps the rows of a one-to-many join to a graph of objects of the given class, creating
+     * every object only once and filling its {@link com.pascalnb.dbwrapper.annotation.ParseCollection} fields.
+     *
+     * @param clazz the class of the root objects
+     * @param <T>   the type of the root objects
+     * @return a mapper
+     * @see GraphMapper
+     */
+    @Contract(pure = true)
+    static <T> Mapper<List<T>> toGraph(Class<T> clazz) {
+        return new GraphMapper<>(clazz);
     }
 
     @Contract(pure = true)
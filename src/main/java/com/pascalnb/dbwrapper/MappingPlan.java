@@ -0,0 +1,473 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.annotation.ParseConstructor;
+import com.pascalnb.dbwrapper.annotation.ParseField;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * The reflective part of mapping rows to instances of a class: the constructor and field setters resolved to method
+ * handles, and the names of the columns they are read from.
+ * <br><br>
+ * Records are created through their canonical constructor and classes with a constructor annotated with
+ * {@link ParseConstructor} through that constructor. All other classes are created with their constructor with 0
+ * parameters, after which the fields annotated with {@link ParseField} are set.
+ * <br><br>
+ * Plans are computed once per class and cached in a {@link ClassValue}, which keeps the cache entries alive only as
+ * long as the class itself, so classes of discarded class loaders can still be unloaded.
+ *
+ * @param <T> the type of the instances
+ */
+abstract class MappingPlan<T> {
+
+    private static final ClassValue<MappingPlan<?>> PLANS = new ClassValue<>() {
+        @Override
+        protected MappingPlan<?> computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private final String[] columns;
+
+    private MappingPlan(String[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Resolves the index of every mapped column in the given table, -1 if the column is missing. The indices are
+     * cached per {@link ResultShape} and must not be modified.
+     */
+    int[] indicesOf(Table table) {
+        return indicesOf(table.getShape());
+    }
+
+    /**
+     * Resolves the index of every mapped column in the result of the given row, cached per shape if it is known.
+     */
+    int[] indicesOf(ResultRow row) {
+        ResultShape shape = row.getShape();
+        return shape == null ? indicesOf(row::indexOf, "") : indicesOf(shape);
+    }
+
+    private int[] indicesOf(ResultShape shape) {
+        // keyed by the column names rather than this plan, which would keep the mapped class from being unloaded
+        return shape.binding(columns, s -> indicesOf(s::indexOf, ""));
+    }
+
+    /**
+     * Resolves the index of every mapped column with the given prefix, -1 if the column is missing.
+     *
+     * @param indexOf the function that returns the index of a column name
+     * @param prefix  the prefix of the column names
+     * @return the indices
+     */
+    int[] indicesOf(ToIntFunction<String> indexOf, String prefix) {
+        int[] indices = new int[columns.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indexOf.applyAsInt(prefix.isEmpty() ? columns[i] : prefix + columns[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * Creates an instance from the given row.
+     *
+     * @param row     the row
+     * @param indices the column indices resolved by {@link #indicesOf(ToIntFunction, String)}
+     * @return the new instance
+     */
+    abstract T rowToInstance(ResultRow row, int[] indices);
+
+    /**
+     * Returns the cached plan of the given class, computing it on first use.
+     *
+     * @param clazz the class
+     * @param <T>   the type of the class
+     * @return the plan
+     * @throws DatabaseException if the class cannot be mapped
+     */
+    @SuppressWarnings("unchecked")
+    static <T> MappingPlan<T> of(Class<T> clazz) {
+        return (MappingPlan<T>) PLANS.get(clazz);
+    }
+
+    private static MappingPlan<?> create(Class<?> clazz) {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new DatabaseException(e);
+        }
+
+        if (clazz.isRecord()) {
+            RecordComponent[] components = clazz.getRecordComponents();
+            String[] columns = new String[components.length];
+            Class<?>[] types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                ParseField parseField = components[i].getAnnotation(ParseField.class);
+                columns[i] = parseField == null || "".equals(parseField.value())
+                    ? components[i].getName()
+                    : parseField.value();
+                types[i] = components[i].getType();
+            }
+            try {
+                return new ConstructorPlan<>(clazz, columns, types,
+                    lookup.findConstructor(clazz, MethodType.methodType(void.class, types)));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        // the first annotated constructor in declaration order, like the generated mappers
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (!constructor.isAnnotationPresent(ParseConstructor.class)) {
+                continue;
+            }
+            Parameter[] parameters = constructor.getParameters();
+            String[] columns = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                ParseField parseField = parameters[i].getAnnotation(ParseField.class);
+                if (parseField != null && !"".equals(parseField.value())) {
+                    columns[i] = parseField.value();
+                } else if (parameters[i].isNamePresent()) {
+                    columns[i] = parameters[i].getName();
+                } else {
+                    throw new DatabaseException("Parameter " + i + " of the constructor of " + clazz.getName() +
+                        " must be annotated with " + ParseField.class.getName() + " and a column name");
+                }
+            }
+            try {
+                return new ConstructorPlan<>(clazz, columns, constructor.getParameterTypes(),
+                    lookup.unreflectConstructor(constructor));
+            } catch (IllegalAccessException e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+        return new FieldPlan<>(clazz, lookup);
+    }
+
+    /**
+     * Creates instances with the constructor with 0 parameters and sets the annotated fields afterwards.
+     */
+    private static final class FieldPlan<T> extends MappingPlan<T> {
+
+        private final MethodHandle constructor;
+        private final Setter[] setters;
+
+        private FieldPlan(Class<T> clazz, MethodHandles.Lookup lookup) {
+            this(clazz, lookup, new ArrayList<>(), new ArrayList<>());
+        }
+
+        private FieldPlan(Class<T> clazz, MethodHandles.Lookup lookup, List<String> columns, List<Setter> setters) {
+            super(fields(clazz, lookup, columns, setters));
+            try {
+                this.constructor = lookup.findConstructor(clazz, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new DatabaseException("No constructor with 0 parameters found for " + clazz.getName());
+            }
+            this.setters = setters.toArray(Setter[]::new);
+        }
+
+        /**
+         * Collects the column names and setters of the annotated fields, returning the column names.
+         */
+        private static String[] fields(Class<?> clazz, MethodHandles.Lookup lookup, List<String> columns,
+            List<Setter> setters) {
+            for (Field field : clazz.getDeclaredFields()) {
+                ParseField parseField = field.getAnnotation(ParseField.class);
+                if (parseField == null) {
+                    continue;
+                }
+                if ((field.getModifiers() & Modifier.FINAL) != 0) {
+                    throw new DatabaseException("Final fields cannot be annotated with " + ParseField.class.getName());
+                }
+
+                try {
+                    setters.add(setter(field.getType(), lookup.unreflectSetter(field)));
+                } catch (IllegalAccessException e) {
+                    throw new DatabaseException(e);
+                } catch (UnsupportedOperationException e) {
+                    throw new DatabaseException("Field " + field.getName() + " of " + clazz.getName()
+                        + " has unsupported type " + field.getType().getName());
+                }
+                String parseFieldName = parseField.value();
+                columns.add("".equals(parseFieldName) ? field.getName() : parseFieldName);
+            }
+
+            if (setters.isEmpty()) {
+                throw new DatabaseException(clazz + " does not have non-final fields annotated with " +
+                    ParseField.class.getName());
+            }
+            return columns.toArray(String[]::new);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T rowToInstance(ResultRow row, int[] indices) {
+            try {
+                Object instance = constructor.invokeExact();
+                for (int i = 0; i < setters.length; i++) {
+                    int index = indices[i];
+                    if (index != -1) {
+                        setters[i].set(instance, row, index);
+                    } else {
+                        setters[i].clear(instance);
+                    }
+                }
+                return (T) instance;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+    }
+
+    /**
+     * Creates instances by passing all parsed values to a single constructor, used for records and classes with
+     * final fields.
+     */
+    private static final class ConstructorPlan<T> extends MappingPlan<T> {
+
+        private final MethodHandle constructor;
+        private final Reader[] readers;
+        private final Object[] nullValues;
+
+        private ConstructorPlan(Class<T> clazz, String[] columns, Class<?>[] types, MethodHandle constructor) {
+            super(columns);
+            this.constructor = constructor.asSpreader(Object[].class, types.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+            this.readers = new Reader[types.length];
+            this.nullValues = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                try {
+                    readers[i] = reader(types[i]);
+                } catch (UnsupportedOperationException e) {
+                    throw new DatabaseException("Parameter " + columns[i] + " of " + clazz.getName()
+                        + " has unsupported type " + types[i].getName());
+                }
+                // primitives cannot be null, so they get their default value like unset fields do
+                nullValues[i] = types[i].isPrimitive() ? Array.get(Array.newInstance(types[i], 1), 0) : null;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T rowToInstance(ResultRow row, int[] indices) {
+            Object[] arguments = new Object[readers.length];
+            for (int i = 0; i < arguments.length; i++) {
+                int index = indices[i];
+                Object value = index == -1 ? null : readers[i].read(row, index);
+                arguments[i] = value == null ? nullValues[i] : value;
+            }
+            try {
+                return (T) (Object) constructor.invokeExact(arguments);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new DatabaseException(e);
+            }
+        }
+
+    }
+
+    /**
+     * Reads a value from a row and writes it to a field of an instance.
+     */
+    private interface Setter {
+
+        void set(Object instance, ResultRow row, int index) throws Throwable;
+
+        /**
+         * Handles a column that is missing from the result.
+         */
+        void clear(Object instance) throws Throwable;
+
+    }
+
+    /**
+     * Reads a nullable value of a specific type from a row.
+     */
+    @FunctionalInterface
+    private interface Reader {
+
+        Object read(ResultRow row, int index);
+
+    }
+
+    /**
+     * Creates a setter that reads straight to the type of the field. Primitive fields are written through an exactly
+     * typed handle, so the value is never boxed, and are left untouched for null values.
+     */
+    private static Setter setter(Class<?> type, MethodHandle handle) {
+        if (type.isPrimitive()) {
+            MethodHandle setter = handle.asType(MethodType.methodType(void.class, Object.class, type));
+            if (type == Integer.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    int value = row.getInt(index);
+                    if (!row.wasNull()) {
+                        setter.invokeExact(instance, value);
+                    }
+                };
+            }
+            if (type == Long.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    long value = row.getLong(index);
+                    if (!row.wasNull()) {
+                        setter.invokeExact(instance, value);
+                    }
+                };
+            }
+            if (type == Double.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    double value = row.getDouble(index);
+                    if (!row.wasNull()) {
+                        setter.invokeExact(instance, value);
+                    }
+                };
+            }
+            if (type == Boolean.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    boolean value = row.getBoolean(index);
+                    if (!row.wasNull()) {
+                        setter.invokeExact(instance, value);
+                    }
+                };
+            }
+            if (type == Float.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    float value = row.getFloat(index);
+                    if (!row.wasNull()) {
+                        setter.invokeExact(instance, value);
+                    }
+                };
+            }
+            if (type == Short.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    short value = row.getShort(index);
+                    if (!row.wasNull()) {
+                        setter.invokeExact(instance, value);
+                    }
+                };
+            }
+            if (type == Byte.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    byte value = row.getByte(index);
+                    if (!row.wasNull()) {
+                        setter.invokeExact(instance, value);
+                    }
+                };
+            }
+            if (type == Character.TYPE) {
+                return (PrimitiveSetter) (instance, row, index) -> {
+                    String value = row.getString(index);
+                    if (value != null) {
+                        setter.invokeExact(instance, value.charAt(0));
+                    }
+                };
+            }
+        }
+
+        Reader reader = reader(type);
+        MethodHandle setter = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return new Setter() {
+            @Override
+            public void set(Object instance, ResultRow row, int index) throws Throwable {
+                Object value = reader.read(row, index);
+                setter.invokeExact(instance, value);
+            }
+
+            @Override
+            public void clear(Object instance) throws Throwable {
+                setter.invokeExact(instance, (Object) null);
+            }
+        };
+    }
+
+    /**
+     * A setter of a primitive field, which keeps its default value when the column is missing.
+     */
+    @FunctionalInterface
+    private interface PrimitiveSetter extends Setter {
+
+        @Override
+        default void clear(Object instance) {
+        }
+
+    }
+
+    /**
+     * Creates a reader that reads a nullable value of the given primitive, wrapper or string class from a row.
+     *
+     * @throws UnsupportedOperationException if the class is not supported
+     */
+    private static Reader reader(Class<?> type) {
+        if (type == String.class) {
+            return ResultRow::getString;
+        }
+        if (type == Integer.TYPE || type == Integer.class) {
+            return (row, index) -> {
+                int value = row.getInt(index);
+                return row.wasNull() ? null : value;
+            };
+        }
+        if (type == Long.TYPE || type == Long.class) {
+            return (row, index) -> {
+                long value = row.getLong(index);
+                return row.wasNull() ? null : value;
+            };
+        }
+        if (type == Double.TYPE || type == Double.class) {
+            return (row, index) -> {
+                double value = row.getDouble(index);
+                return row.wasNull() ? null : value;
+            };
+        }
+        if (type == Boolean.TYPE || type == Boolean.class) {
+            return (row, index) -> {
+                boolean value = row.getBoolean(index);
+                return row.wasNull() ? null : value;
+            };
+        }
+        if (type == Float.TYPE || type == Float.class) {
+            return (row, index) -> {
+                float value = row.getFloat(index);
+                return row.wasNull() ? null : value;
+            };
+        }
+        if (type == Short.TYPE || type == Short.class) {
+            return (row, index) -> {
+                short value = row.getShort(index);
+                return row.wasNull() ? null : value;
+            };
+        }
+        if (type == Byte.TYPE || type == Byte.class) {
+            return (row, index) -> {
+                byte value = row.getByte(index);
+                return row.wasNull() ? null : value;
+            };
+        }
+        if (type == Character.TYPE || type == Character.class) {
+            return (row, index) -> {
+                String value = row.getString(index);
+                return value == null ? null : value.charAt(0);
+            };
+        }
+        throw new UnsupportedOperationException("Cannot read " + type.getName());
+    }
+
+}
\ No newline at end of file
@@ -2,70 +2,36 @@ package com.pascalnb.dbwrapper;
 
 import com.pascalnb.dbwrapper.annotation.ParseField;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * Maps the rows of a table to instances of a class with fields annotated with {@link ParseField}.
+ * <br><br>
+ * The constructor and field setters are resolved once per class to method handles, and the columns are resolved to
+ * indices once per table, so mapping a row does not need any reflection or name lookups. Creating an object mapper
+ * for a class that has been mapped before only looks up the cached {@link MappingPlan}.
+ *
+ * @param <T> the type of the instances
+ */
 public class ObjectMapper<T> implements Mapper<T> {
 
-    private final Constructor<T> constructor;
-    private final List<Object[]> pairs = new ArrayList<>();
+    private final MappingPlan<T> plan;
 
     public ObjectMapper(Class<T> clazz) {
-        try {
-            this.constructor = clazz.getDeclaredConstructor();
-            constructor.setAccessible(true);
-        } catch (NoSuchMethodException e) {
-            throw new DatabaseException("No constructor with 0 parameters found for " + clazz.getName());
-        }
-
-        for (Field field : clazz.getDeclaredFields()) {
-            field.setAccessible(true);
-
-            ParseField parseField = field.getAnnotation(ParseField.class);
-            if (parseField == null) {
-                continue;
-            }
-            if ((field.getModifiers() & Modifier.FINAL) != 0) {
-                throw new DatabaseException("Final fields cannot be annotated with " + ParseField.class.getName());
-            }
-
-            String parseFieldName = parseField.value();
-            pairs.add(new Object[]{field, "".equals(parseFieldName) ? field.getName() : parseFieldName});
-        }
-
-        if (pairs.isEmpty()) {
-            throw new DatabaseException(clazz + " does not have non-final fields annotated with " +
-                ParseField.class.getName());
-        }
-    }
-
-    private T rowToInstance(Tuple row) {
-        try {
-            T instance = constructor.newInstance();
-            for (Object[] pair : pairs) {
-                StringMapper value = new StringMapper(row.get((String) pair[1]));
-                Field field = (Field) pair[0];
-                Object parsed = value.to(field.getType());
-                field.set(instance, parsed);
-            }
-            return instance;
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-            throw new DatabaseException(e);
-        }
+        this.plan = MappingPlan.of(clazz);
     }
 
     public List<T> applyAll(Table table) {
         if (table.isEmpty()) {
             return List.of();
         }
+        int[] indices = plan.indicesOf(table);
+        TupleRow row = new TupleRow(table);
         List<T> result = new ArrayList<>(table.getRowCount());
-        for (Tuple row : table) {
-            result.add(rowToInstance(row));
+        for (Tuple tuple : table) {
+            result.add(plan.rowToInstance(row.of(tuple), indices));
         }
         return Collections.unmodifiableList(result);
     }
@@ -76,7 +42,7 @@ public class ObjectMapper<T> implements Mapper<T> {
 
     @Override
     public T apply(Table table) {
-        return table.isEmpty() ? null : rowToInstance(table.get(0));
+        return table.isEmpty() ? null : plan.rowToInstance(new TupleRow(table).of(table.get(0)), plan.indicesOf(table));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.annotation.ParseField;
+import com.pascalnb.dbwrapper.annotation.ParseKey;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the values of the columns of instances of a class with fields annotated with {@link ParseField}, the reverse
+ * of {@link ObjectMapper}, e.g. to insert objects.
+ * <br><br>
+ * Records are read through the accessors of their components and all other classes through their fields annotated
+ * with {@link ParseField}, including final fields. Columns of fields or components annotated with {@link ParseKey}
+ * are key columns. The accessors are resolved once per class to method handles and cached in a {@link ClassValue}.
+ *
+ * @param <T> the type of the instances
+ */
+public class ObjectWriter<T> {
+
+    private static final ClassValue<Accessors> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Accessors computeValue(Class<?> type) {
+            return new Accessors(type);
+        }
+    };
+
+    private final Accessors accessors;
+
+    public ObjectWriter(Class<T> clazz) {
+        this.accessors = ACCESSORS.get(clazz);
+    }
+
+    /**
+     * @return the names of the columns in the order of their values
+     */
+    public String[] getColumns() {
+        return accessors.columns.clone();
+    }
+
+    /**
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return accessors.columns.length;
+    }
+
+    /**
+     * @param index the index of the column
+     * @return whether the column is a key column
+     */
+    public boolean isKey(int index) {
+        return accessors.keys[index];
+    }
+
+    /**
+     * Returns the values of the columns of the given instance.
+     *
+     * @param instance the instance
+     * @return the values
+     */
+    public Object[] values(T instance) {
+        Object[] values = new Object[accessors.getters.length];
+        values(instance, values, 0);
+        return values;
+    }
+
+    /**
+     * Writes the values of the columns of the given instance to an array, e.g. the arguments of a multi-row insert.
+     *
+     * @param instance the instance
+     * @param target   the array
+     * @param offset   the index of the first value in the array
+     */
+    public void values(T instance, Object[] target, int offset) {
+        MethodHandle[] getters = accessors.getters;
+        try {
+            for (int i = 0; i < getters.length; i++) {
+                Object value = (Object) getters[i].invokeExact((Object) instance);
+                // characters are not arguments of statements
+                target[offset + i] = value instanceof Character character ? character.toString() : value;
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    /**
+     * The column names and getters of a class.
+     */
+    private static final class Accessors {
+
+        private final String[] columns;
+        private final boolean[] keys;
+        private final MethodHandle[] getters;
+
+        private Accessors(Class<?> clazz) {
+            MethodHandles.Lookup lookup;
+            try {
+                lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                throw new DatabaseException(e);
+            }
+
+            List<String> columns = new ArrayList<>();
+            List<Boolean> keys = new ArrayList<>();
+            List<MethodHandle> getters = new ArrayList<>();
+            MethodType type = MethodType.methodType(Object.class, Object.class);
+            try {
+                if (clazz.isRecord()) {
+                    for (RecordComponent component : clazz.getRecordComponents()) {
+                        ParseField parseField = component.getAnnotation(ParseField.class);
+                        columns.add(parseField == null || "".equals(parseField.value())
+                            ? component.getName()
+                            : parseField.value());
+                        keys.add(component.isAnnotationPresent(ParseKey.class));
+                        getters.add(lookup.unreflect(component.getAccessor()).asType(type));
+                    }
+                } else {
+                    for (Field field : clazz.getDeclaredFields()) {
+                        ParseField parseField = field.getAnnotation(ParseField.class);
+                        if (parseField == null) {
+                            continue;
+                        }
+                        columns.add("".equals(parseField.value()) ? field.getName() : parseField.value());
+                        keys.add(field.isAnnotationPresent(ParseKey.class));
+                        getters.add(lookup.unreflectGetter(field).asType(type));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new DatabaseException(e);
+            }
+
+            if (getters.isEmpty()) {
+                throw new DatabaseException(clazz + " does not have fields annotated with "
+                    + ParseField.class.getName());
+            }
+            this.columns = columns.toArray(String[]::new);
+            this.keys = new boolean[keys.size()];
+            for (int i = 0; i < this.keys.length; i++) {
+                this.keys[i] = keys.get(i);
+            }
+            this.getters = getters.toArray(MethodHandle[]::new);
+        }
+
+    }
+
+}
\ No newline at end of file
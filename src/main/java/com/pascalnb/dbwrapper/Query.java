@@ -2,23 +2,49 @@ package com.pascalnb.dbwrapper;
 
 import org.jetbrains.annotations.Contract;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
 /**
  * Class that represents a database query with options to insert values.
+ * <br><br>
+ * A {@link Collection} argument expands its placeholder to a list of placeholders, e.g. {@code id IN (?)} with a list
+ * of three values becomes {@code id IN (?, ?, ?, ?)}. The number of placeholders is rounded up to a power of two by
+ * repeating the last distinct value, so lists of different lengths share a small number of statements that the
+ * driver and server can cache. Lists longer than {@link #MAX_LIST_SIZE} distinct values are split into multiple
+ * statements of which the results are concatenated, so they must not be ordered or limited across the whole list. An
+ * empty collection is rejected, as no list of values makes both {@code IN} and {@code NOT IN} correct, so the caller
+ * has to handle it. Placeholders in string literals, quoted identifiers and comments are not replaced.
  */
 @SuppressWarnings("unused")
 public class Query {
 
+    /**
+     * The maximum number of placeholders a collection argument is expanded to.
+     */
+    public static final int MAX_LIST_SIZE = 1024;
+
+    private final String template;
     private final String query;
     private final Object[] args;
+    private final List<Query> parts;
 
     public Query(String query, Object... args) {
-        this.query = query;
-        this.args = args;
+        this(query, expand(query, args));
+    }
+
+    private Query(String template, Expansion expansion) {
+        this.template = template;
+        this.query = expansion.query;
+        this.args = expansion.args;
+        this.parts = expansion.parts;
     }
 
     @Contract("_ -> new")
     public Query withArgs(Object... args) {
-        return new Query(query, args);
+        return new Query(template, args);
     }
 
     @Override
@@ -30,4 +56,138 @@ public class Query {
         return args;
     }
 
+    /**
+     * Returns the statements this query is split into because of collection arguments longer than
+     * {@link #MAX_LIST_SIZE}. The first statement has the same statement and arguments as this query.
+     *
+     * @return the statements, only this query if it is not split
+     */
+    public List<Query> split() {
+        return parts == null ? List.of(this) : parts;
+    }
+
+    /**
+     * The expanded statement of a query and its arguments.
+     */
+    private record Expansion(String query, Object[] args, List<Query> parts) {
+    }
+
+    private static Expansion expand(String template, Object[] args) {
+        if (args == null) {
+            return new Expansion(template, null, null);
+        }
+        int collections = 0;
+        for (Object arg : args) {
+            if (arg instanceof Collection<?>) {
+                collections++;
+            }
+        }
+        if (collections == 0) {
+            return new Expansion(template, args, null);
+        }
+
+        // distinct values, since every value matches the same rows only once
+        List<List<Object>> lists = new ArrayList<>(collections);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Collection<?> collection) {
+                List<Object> values = new ArrayList<>(new LinkedHashSet<>(collection));
+                if (values.isEmpty()) {
+                    throw new IllegalArgumentException("Argument " + (i + 1) + " is an empty collection");
+                }
+                if (values.size() > MAX_LIST_SIZE) {
+                    return split(template, args, i, values);
+                }
+                lists.add(values);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(template.length() + collections * 16);
+        List<Object> expanded = new ArrayList<>(args.length);
+        int arg = 0;
+        int list = 0;
+        int i = 0;
+        while (i < template.length()) {
+            int end = skipLiteral(template, i);
+            if (end > i) {
+                builder.append(template, i, end);
+                i = end;
+                continue;
+            }
+            char c = template.charAt(i++);
+            if (c == '?' && arg < args.length) {
+                if (args[arg] instanceof Collection<?>) {
+                    List<Object> values = lists.get(list++);
+                    int size = bucketOf(values.size());
+                    builder.append("?, ".repeat(size - 1)).append('?');
+                    expanded.addAll(values);
+                    for (int j = values.size(); j < size; j++) {
+                        expanded.add(values.get(values.size() - 1));
+                    }
+                    arg++;
+                    continue;
+                }
+                expanded.add(args[arg++]);
+            }
+            builder.append(c);
+        }
+        for (; arg < args.length; arg++) {
+            expanded.add(args[arg]);
+        }
+        return new Expansion(builder.toString(), expanded.toArray(), null);
+    }
+
+    /**
+     * Returns the end of the string literal, quoted identifier or comment at the given index, or the index itself if
+     * there is none, so placeholders in them are not expanded.
+     */
+    private static int skipLiteral(String sql, int start) {
+        char c = sql.charAt(start);
+        if (c == '\'' || c == '"') {
+            int i = start + 1;
+            while (i < sql.length()) {
+                char next = sql.charAt(i);
+                if (next == '\\') {
+                    i += 2;
+                } else if (next == c) {
+                    return i + 1;
+                } else {
+                    i++;
+                }
+            }
+            return sql.length();
+        } else if (c == '`') {
+            int end = sql.indexOf('`', start + 1);
+            return end == -1 ? sql.length() : end + 1;
+        } else if (c == '-' && sql.startsWith("--", start) || c == '#') {
+            int end = sql.indexOf('\n', start);
+            return end == -1 ? sql.length() : end;
+        } else if (c == '/' && sql.startsWith("/*", start)) {
+            int end = sql.indexOf("*/", start + 2);
+            return end == -1 ? sql.length() : end + 2;
+        }
+        return start;
+    }
+
+    /**
+     * Splits the query into queries of which the collection argument at the given index has at most
+     * {@link #MAX_LIST_SIZE} values.
+     */
+    private static Expansion split(String template, Object[] args, int index, List<Object> values) {
+        List<Query> parts = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += MAX_LIST_SIZE) {
+            Object[] partArgs = args.clone();
+            partArgs[index] = values.subList(from, Math.min(from + MAX_LIST_SIZE, values.size()));
+            parts.addAll(new Query(template, partArgs).split());
+        }
+        Query first = parts.get(0);
+        return new Expansion(first.query, first.args, List.copyOf(parts));
+    }
+
+    /**
+     * Returns the smallest power of two of at least the given size.
+     */
+    static int bucketOf(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
 }
\ No newline at end of file
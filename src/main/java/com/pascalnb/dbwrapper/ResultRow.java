@@ -0,0 +1,54 @@
+package com.pascalnb.dbwrapper;
+
+/**
+ * Typed access to the values of the current row of a query result. Indices start at 0, like those of {@link Tuple}.
+ * <br><br>
+ * Like JDBC, the primitive getters return 0 or false for null values, after which {@link #wasNull()} tells whether
+ * the value was null.
+ */
+public interface ResultRow {
+
+    /**
+     * Returns the index of the column with the given name, or -1 if there is no such column.
+     *
+     * @param column the column name
+     * @return the index
+     */
+    int indexOf(String column);
+
+    /**
+     * Returns the shape of the result, so that mappers can cache their column bindings per shape.
+     *
+     * @return the shape, or null if it is not known
+     */
+    default ResultShape getShape() {
+        return null;
+    }
+
+    /**
+     * @return the number of columns
+     */
+    int getColumnCount();
+
+    String getString(int index);
+
+    int getInt(int index);
+
+    long getLong(int index);
+
+    double getDouble(int index);
+
+    float getFloat(int index);
+
+    short getShort(int index);
+
+    byte getByte(int index);
+
+    boolean getBoolean(int index);
+
+    /**
+     * @return whether the last value that was read is null
+     */
+    boolean wasNull();
+
+}
\ No newline at end of file
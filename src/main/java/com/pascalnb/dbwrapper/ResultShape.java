@@ -0,0 +1,206 @@
+package com.pascalnb.dbwrapper;
+
+import org.jetbrains.annotations.Contract;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * The columns of a query result: their names, labels and SQL types, with the index of every column name.
+ * <br><br>
+ * Shapes are immutable and interned, so all results with the same columns share a single shape, and the column index
+ * is built once per shape instead of once per result. Mappers cache what they resolve from the columns, such as the
+ * index of every mapped field, with {@link #binding(Object, Function)}, so it is computed once per shape as well.
+ */
+public final class ResultShape {
+
+    // the least recently used shapes are evicted, so generated queries cannot grow the interned shapes without bound
+    private static final int MAX_INTERNED = 4096;
+    private static final LruCache<ResultShape, ResultShape> INTERNED = new LruCache<>(MAX_INTERNED);
+
+    private final String[] names;
+    private final String[] labels;
+    private final int[] types;
+    private final Map<String, Integer> index;
+    private final int hash;
+    // weak keys, so the bindings of mappers that are no longer used, e.g. of a redeployed application, are discarded
+    private final Map<Object, Object> bindings = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ResultShape(String[] names, String[] labels, int[] types) {
+        this.names = names;
+        this.labels = labels;
+        this.types = types;
+        this.index = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            index.put(names[i], i);
+        }
+        this.hash = 31 * (31 * Arrays.hashCode(names) + Arrays.hashCode(labels)) + Arrays.hashCode(types);
+    }
+
+    /**
+     * Returns the shape with the given columns.
+     *
+     * @param names  the column names
+     * @param labels the column labels
+     * @param types  the SQL types of the columns, as in {@link Types}
+     * @return the interned shape
+     * @throws DatabaseException if the arrays have different lengths
+     */
+    @Contract(pure = true)
+    public static ResultShape of(String[] names, String[] labels, int[] types) {
+        if (names.length != labels.length || names.length != types.length) {
+            throw new DatabaseException("Every column needs a name, label and type");
+        }
+        return intern(new ResultShape(names.clone(), labels.clone(), types.clone()));
+    }
+
+    /**
+     * Returns the shape with columns of the given names, which are also their labels, and of unknown type.
+     *
+     * @param names the column names
+     * @return the interned shape
+     */
+    @Contract(pure = true)
+    public static ResultShape of(String... names) {
+        int[] types = new int[names.length];
+        Arrays.fill(types, Types.OTHER);
+        return intern(new ResultShape(names.clone(), names.clone(), types));
+    }
+
+    /**
+     * Returns the shape of the given result.
+     *
+     * @param metaData the metadata of the result
+     * @return the interned shape
+     * @throws SQLException if the metadata cannot be read
+     */
+    static ResultShape of(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] names = new String[columnCount];
+        String[] labels = new String[columnCount];
+        int[] types = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            names[i] = metaData.getColumnName(i + 1);
+            labels[i] = metaData.getColumnLabel(i + 1);
+            types[i] = metaData.getColumnType(i + 1);
+        }
+        return intern(new ResultShape(names, labels, types));
+    }
+
+    private static ResultShape intern(ResultShape shape) {
+        ResultShape interned = INTERNED.putIfAbsent(shape, shape);
+        return interned == null ? shape : interned;
+    }
+
+    /**
+     * Returns whether the given result has exactly the columns of this shape, without creating a new shape.
+     *
+     * @param metaData the metadata of the result
+     * @return whether the columns match
+     * @throws SQLException if the metadata cannot be read
+     */
+    boolean matches(ResultSetMetaData metaData) throws SQLException {
+        if (metaData.getColumnCount() != names.length) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (metaData.getColumnType(i + 1) != types[i]
+                || !names[i].equals(metaData.getColumnName(i + 1))
+                || !labels[i].equals(metaData.getColumnLabel(i + 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value that the given binder computes from this shape, computing it only on the first call with the
+     * given key. Keys are compared with {@link Object#equals(Object)}, which for arrays is identity, so the typical key
+     * is the constant array of column names of a mapper. Keys are weakly referenced, so a binding is discarded once its
+     * key is no longer used. Bindings must therefore not refer to their key, which would keep it reachable.
+     *
+     * @param key    the key of the binding
+     * @param binder the function that computes the binding from this shape
+     * @param <B>    the type of the binding
+     * @return the binding, which must not be modified
+     */
+    @SuppressWarnings("unchecked")
+    public <B> B binding(Object key, Function<ResultShape, B> binder) {
+        return (B) bindings.computeIfAbsent(key, k -> binder.apply(this));
+    }
+
+    /**
+     * Returns the index of the column with the given name, or -1 if there is no such column.
+     *
+     * @param name the column name
+     * @return the index
+     */
+    public int indexOf(String name) {
+        return index.getOrDefault(name, -1);
+    }
+
+    /**
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    /**
+     * @param index the index of the column
+     * @return the name of the column
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @param index the index of the column
+     * @return the label of the column
+     */
+    public String getLabel(int index) {
+        return labels[index];
+    }
+
+    /**
+     * @param index the index of the column
+     * @return the SQL type of the column, as in {@link Types}
+     */
+    public int getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * @return a copy of the column names
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof ResultShape shape && hash == shape.hash && Arrays.equals(names, shape.names)
+            && Arrays.equals(labels, shape.labels) && Arrays.equals(types, shape.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", names);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.pascalnb.dbwrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The results of a query that returns multiple results, such as a script of multiple statements or a stored procedure,
+ * in the order in which they were returned.
+ */
+public final class Results implements Iterable<Table> {
+
+    private final List<Table> tables;
+
+    public Results(List<Table> tables) {
+        this.tables = List.copyOf(tables);
+    }
+
+    /**
+     * @param index the index of the result
+     * @return the result
+     * @throws DatabaseException if there is no result with the given index
+     */
+    public Table get(int index) {
+        if (index < 0 || index >= tables.size()) {
+            throw new DatabaseException("Result " + index + " requested of " + tables.size() + " results");
+        }
+        return tables.get(index);
+    }
+
+    /**
+     * Maps the result with the given index.
+     *
+     * @param index  the index of the result
+     * @param mapper the mapper
+     * @param <T>    the type of the mapped result
+     * @return the mapped result
+     * @throws DatabaseException if there is no result with the given index
+     */
+    public <T> T get(int index, Mapper<T> mapper) {
+        return mapper.apply(get(index));
+    }
+
+    /**
+     * Maps every result with the mapper at the same index.
+     *
+     * @param mappers the mappers, one for every result
+     * @return an unmodifiable list of the mapped results
+     * @throws DatabaseException if the number of mappers differs from the number of results
+     */
+    public List<Object> map(Mapper<?>... mappers) {
+        if (mappers.length != tables.size()) {
+            throw new DatabaseException(mappers.length + " mappers given for " + tables.size() + " results");
+        }
+        List<Object> result = new ArrayList<>(mappers.length);
+        for (int i = 0; i < mappers.length; i++) {
+            result.add(mappers[i].apply(tables.get(i)));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return the number of results
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * @return an unmodifiable list of all results
+     */
+    public List<Table> getTables() {
+        return tables;
+    }
+
+    @Override
+    public Iterator<Table> iterator() {
+        return tables.iterator();
+    }
+
+}
\ No newline at end of file
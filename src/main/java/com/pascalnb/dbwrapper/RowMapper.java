@@ -0,0 +1,57 @@
+package com.pascalnb.dbwrapper;
+
+import org.jetbrains.annotations.Contract;
+
+/**
+ * Represents a function that maps a single row of a query result to a given type. Rows are mapped while the result
+ * is read, so no {@link Table} is created.
+ *
+ * @param <T> the type
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the current row.
+     *
+     * @param row the row
+     * @return the mapped value
+     */
+    T map(ResultRow row);
+
+    /**
+     * Called once per result before the first row is mapped, so column names can be resolved to indices once. The
+     * returned mapper maps all rows of the result.
+     *
+     * @param row the result, positioned before the first row
+     * @return the mapper to map the rows of the result with
+     */
+    default RowMapper<T> bind(ResultRow row) {
+        return this;
+    }
+
+    /**
+     * Returns a row mapper that maps every row to an instance of the given class, like {@link ObjectMapper}.
+     *
+     * @param clazz the class
+     * @param <T>   the type of the class
+     * @return a new row mapper
+     */
+    @Contract(pure = true)
+    static <T> RowMapper<T> toObject(Class<T> clazz) {
+        MappingPlan<T> plan = MappingPlan.of(clazz);
+        return new RowMapper<>() {
+            @Override
+            public T map(ResultRow row) {
+                return bind(row).map(row);
+            }
+
+            @Override
+            public RowMapper<T> bind(ResultRow row) {
+                int[] indices = plan.indicesOf(row);
+                return r -> plan.rowToInstance(r, indices);
+            }
+        };
+    }
+
+}
\ No newline at end of file
@@ -90,34 +90,57 @@ public class StringMapper {
         if (string == null) {
             return null;
         }
+        return parser(clazz).apply(string);
+    }
+
+    /**
+     * Resolves the function that parses a nonnull string to the given class, so the class comparisons only have to
+     * be done once per type instead of once per value.
+     *
+     * @param clazz the class to parse to, either a primitive, its wrapper or {@link String}
+     * @return the parse function
+     * @throws UnsupportedOperationException if strings cannot be parsed to the given class
+     */
+    @NotNull
+    static Function<String, ?> parser(@NotNull Class<?> clazz) {
         if (clazz == String.class) {
-            return string;
+            return Function.identity();
         }
         if (clazz == Integer.TYPE || clazz == Integer.class) {
-            return Integer.parseInt(string);
+            return Integer::parseInt;
         }
         if (clazz == Boolean.TYPE || clazz == Boolean.class) {
-            return Boolean.parseBoolean(string) || "t".equals(string) || "1".equals(string);
+            return StringMapper::parseBoolean;
         }
         if (clazz == Double.TYPE || clazz == Double.class) {
-            return Double.parseDouble(string);
+            return Double::parseDouble;
         }
         if (clazz == Long.TYPE || clazz == Long.class) {
-            return Long.parseLong(string);
+            return Long::parseLong;
         }
         if (clazz == Float.TYPE || clazz == Float.class) {
-            return Float.parseFloat(string);
+            return Float::parseFloat;
         }
         if (clazz == Character.TYPE || clazz == Character.class) {
-            return string.charAt(0);
+            return s -> s.charAt(0);
         }
         if (clazz == Short.TYPE || clazz == Short.class) {
-            return Short.parseShort(string);
+            return Short::parseShort;
         }
         if (clazz == Byte.TYPE || clazz == Byte.class) {
-            return Byte.parseByte(string);
+            return Byte::parseByte;
         }
         throw new UnsupportedOperationException("Cannot cast string to " + clazz.getName());
     }
 
+    /**
+     * Parses a boolean the way the database returns it, accepting {@code true}, {@code t} and {@code 1}.
+     *
+     * @param string the nonnull string value
+     * @return the boolean value
+     */
+    static boolean parseBoolean(@NotNull String string) {
+        return Boolean.parseBoolean(string) || "t".equals(string) || "1".equals(string);
+    }
+
 }
\ No newline at end of file
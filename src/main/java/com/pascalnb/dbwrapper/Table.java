@@ -1,9 +1,9 @@
 package com.pascalnb.dbwrapper;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -15,20 +15,52 @@ import java.util.stream.Stream;
 @SuppressWarnings("unused")
 public class Table implements Iterable<Tuple> {
 
+    private final ResultShape shape;
     private final String[] attributes;
     private final List<Tuple> tuples;
 
-    private final Map<String, Integer> index;
     private String string = null;
 
     public Table(String[] attributes, List<String[]> tuples) {
-        this.attributes = attributes;
+        this(ResultShape.of(attributes), tuples);
+    }
+
+    /**
+     * Creates a table with the given shape, sharing its column index with all other tables of the same shape.
+     *
+     * @param shape  the shape of the rows
+     * @param tuples the rows
+     */
+    public Table(ResultShape shape, List<String[]> tuples) {
+        this.shape = shape;
+        this.attributes = shape.getNames();
         this.tuples = tuples.stream().map(Row::new).collect(Collectors.toUnmodifiableList());
-        this.index = new HashMap<>();
+    }
 
-        for (int i = 0; i < attributes.length; i++) {
-            index.put(attributes[i], i);
+    /**
+     * Concatenates the rows of tables with the same columns, such as the results of the same query on different
+     * databases.
+     *
+     * @param tables the tables, at least one
+     * @return a new table with the rows of all tables
+     * @throws DatabaseException if the tables have different columns
+     */
+    public static Table concat(List<Table> tables) {
+        if (tables.isEmpty()) {
+            throw new DatabaseException("Cannot concatenate zero tables");
         }
+        String[] attributes = tables.get(0).attributes;
+        List<String[]> rows = new ArrayList<>();
+        for (Table table : tables) {
+            if (!Arrays.equals(attributes, table.attributes)) {
+                throw new DatabaseException("Cannot concatenate tables with columns " + Arrays.toString(attributes)
+                    + " and " + Arrays.toString(table.attributes));
+            }
+            for (Tuple tuple : table.tuples) {
+                rows.add(((Row) tuple).cells);
+            }
+        }
+        return new Table(tables.get(0).shape, rows);
     }
 
     @Override
@@ -60,6 +92,13 @@ public class Table implements Iterable<Tuple> {
         return tuples;
     }
 
+    /**
+     * @return the shape of the rows
+     */
+    public ResultShape getShape() {
+        return shape;
+    }
+
     public String[] getAttributes() {
         return attributes;
     }
@@ -94,7 +133,7 @@ public class Table implements Iterable<Tuple> {
      * @return the index
      */
     public int indexOf(String attributeName) {
-        return index.getOrDefault(attributeName, -1);
+        return shape.indexOf(attributeName);
     }
 
     /**
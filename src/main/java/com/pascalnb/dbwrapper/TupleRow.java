@@ -0,0 +1,100 @@
+package com.pascalnb.dbwrapper;
+
+/**
+ * A reusable {@link ResultRow} view of the tuples of a table, parsing the string values on access.
+ */
+final class TupleRow implements ResultRow {
+
+    private final Table table;
+    private Tuple tuple;
+    private boolean wasNull;
+
+    TupleRow(Table table) {
+        this.table = table;
+    }
+
+    /**
+     * Points this view at the given tuple of the table.
+     *
+     * @param tuple the tuple
+     * @return this view
+     */
+    TupleRow of(Tuple tuple) {
+        this.tuple = tuple;
+        return this;
+    }
+
+    private String read(int index) {
+        String value = tuple.get(index);
+        wasNull = value == null;
+        return value;
+    }
+
+    @Override
+    public int indexOf(String column) {
+        return table.indexOf(column);
+    }
+
+    @Override
+    public ResultShape getShape() {
+        return table.getShape();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return table.getColumnCount();
+    }
+
+    @Override
+    public String getString(int index) {
+        return read(index);
+    }
+
+    @Override
+    public int getInt(int index) {
+        String value = read(index);
+        return value == null ? 0 : Integer.parseInt(value);
+    }
+
+    @Override
+    public long getLong(int index) {
+        String value = read(index);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        String value = read(index);
+        return value == null ? 0 : Double.parseDouble(value);
+    }
+
+    @Override
+    public float getFloat(int index) {
+        String value = read(index);
+        return value == null ? 0 : Float.parseFloat(value);
+    }
+
+    @Override
+    public short getShort(int index) {
+        String value = read(index);
+        return value == null ? 0 : Short.parseShort(value);
+    }
+
+    @Override
+    public byte getByte(int index) {
+        String value = read(index);
+        return value == null ? 0 : Byte.parseByte(value);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        String value = read(index);
+        return value != null && StringMapper.parseBoolean(value);
+    }
+
+    @Override
+    public boolean wasNull() {
+        return wasNull;
+    }
+
+}
\ No newline at end of file
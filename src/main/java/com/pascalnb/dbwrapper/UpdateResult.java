@@ -0,0 +1,138 @@
+package com.pascalnb.dbwrapper;
+
+import org.jetbrains.annotations.Contract;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of one or more statements that modify rows: the update count of every statement and the keys that the
+ * database generated for inserted rows, such as auto-increment ids.
+ */
+public final class UpdateResult {
+
+    private static final Table NO_KEYS = new Table(new String[0], List.of());
+
+    private final long[] updateCounts;
+    private final Table keys;
+
+    /**
+     * @param updateCounts the update count of every statement, negative if unknown
+     * @param keys         the generated keys, one row per generated key
+     */
+    public UpdateResult(long[] updateCounts, Table keys) {
+        this.updateCounts = updateCounts;
+        this.keys = keys;
+    }
+
+    /**
+     * Returns the result of a single statement of which the update count is unknown and the keys were not read.
+     *
+     * @return a new result
+     */
+    @Contract(value = "-> new", pure = true)
+    public static UpdateResult unknown() {
+        return new UpdateResult(new long[]{-1}, NO_KEYS);
+    }
+
+    /**
+     * Combines the results of statements into a single result, with all update counts and generated keys in order.
+     *
+     * @param results the results
+     * @return a new result
+     */
+    @Contract(value = "_ -> new", pure = true)
+    public static UpdateResult combine(List<UpdateResult> results) {
+        int count = 0;
+        List<Table> keys = new ArrayList<>();
+        for (UpdateResult result : results) {
+            count += result.updateCounts.length;
+            if (result.keys.getColumnCount() > 0) {
+                keys.add(result.keys);
+            }
+        }
+        long[] updateCounts = new long[count];
+        int offset = 0;
+        for (UpdateResult result : results) {
+            System.arraycopy(result.updateCounts, 0, updateCounts, offset, result.updateCounts.length);
+            offset += result.updateCounts.length;
+        }
+        return new UpdateResult(updateCounts, keys.isEmpty() ? NO_KEYS : Table.concat(keys));
+    }
+
+    /**
+     * @return the total number of rows modified by the statements, or -1 if it is unknown for any statement
+     */
+    public long getUpdateCount() {
+        long total = 0;
+        for (long count : updateCounts) {
+            if (count < 0) {
+                return -1;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of rows modified by every statement, negative where unknown
+     */
+    public long[] getUpdateCounts() {
+        return updateCounts.clone();
+    }
+
+    /**
+     * @return the generated keys, one row per generated key
+     */
+    public Table getKeys() {
+        return keys;
+    }
+
+    /**
+     * Maps the generated keys with the given mapper.
+     *
+     * @param mapper the mapper
+     * @param <T>    the type of the mapped keys
+     * @return the mapped keys
+     */
+    public <T> T getKeys(Mapper<T> mapper) {
+        return mapper.apply(keys);
+    }
+
+    /**
+     * @return the first column of the generated keys as numbers
+     * @throws DatabaseException if a key is not a number
+     */
+    public long[] getLongKeys() {
+        long[] result = new long[keys.getRowCount()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = parseKey(keys.get(i).get(0));
+        }
+        return result;
+    }
+
+    /**
+     * @return the first generated key as number, such as the id of a single inserted row
+     * @throws DatabaseException if no key was generated or the key is not a number
+     */
+    public long getKey() {
+        if (keys.isEmpty()) {
+            throw new DatabaseException("No key was generated");
+        }
+        return parseKey(keys.get(0).get(0));
+    }
+
+    private static long parseKey(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new DatabaseException("Generated key " + key + " is not a number");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateResult[updateCount=" + getUpdateCount() + ", keys=" + keys.getRowCount() + "]";
+    }
+
+}
\ No newline at end of file
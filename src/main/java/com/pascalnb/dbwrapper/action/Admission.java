@@ -0,0 +1,86 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.limit.AdaptiveLimiter;
+import com.pascalnb.dbwrapper.priority.Priority;
+import com.pascalnb.dbwrapper.priority.PriorityGate;
+
+import java.util.function.Supplier;
+
+/**
+ * Admission of actions before they connect: first by the lane of their priority in the {@link PriorityGate}, then by
+ * the {@link AdaptiveLimiter}, which admits waiting actions by priority as well and rejects actions on overload.
+ * Actions that wait in the gate therefore hold no slots of the limiter.
+ */
+final class Admission {
+
+    private Admission() {
+    }
+
+    /**
+     * Waits until an action of the given priority may connect.
+     *
+     * @param priority the priority
+     * @return the permit to close after the connection is closed
+     */
+    static Permit acquire(Priority priority) {
+        PriorityGate.Permit gate = PriorityGate.getInstance().acquire(priority);
+        AdaptiveLimiter.Permit limit;
+        try {
+            limit = AdaptiveLimiter.getInstance().acquire(priority);
+        } catch (RuntimeException | Error e) {
+            gate.close();
+            throw e;
+        }
+        return new Permit(limit, gate);
+    }
+
+    /**
+     * The admission of an action by both the limiter and the gate. The limiter samples the latency of every statement
+     * run with {@link #measure(Supplier)}, or if there are none, the time from the admission until the permit is
+     * closed, so the time spent waiting for the gate and the limiter is never taken for latency of the database.
+     */
+    static final class Permit implements PriorityGate.Permit {
+
+        private final AdaptiveLimiter.Permit limit;
+        private final PriorityGate.Permit gate;
+        private final long start = System.nanoTime();
+        private volatile boolean measured = false;
+
+        private Permit(AdaptiveLimiter.Permit limit, PriorityGate.Permit gate) {
+            this.limit = limit;
+            this.gate = gate;
+        }
+
+        /**
+         * Runs a statement and samples its latency.
+         *
+         * @param statement the statement
+         * @param <R>       the type of the result
+         * @return the result of the statement
+         */
+        <R> R measure(Supplier<R> statement) {
+            long begin = System.nanoTime();
+            try {
+                return statement.get();
+            } finally {
+                measured = true;
+                limit.sample(System.nanoTime() - begin);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (!measured) {
+                    measured = true;
+                    limit.sample(System.nanoTime() - start);
+                }
+                limit.close();
+            } finally {
+                gate.close();
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.UpdateResult;
+import com.pascalnb.dbwrapper.priority.Priority;
+import com.pascalnb.dbwrapper.priority.PriorityGate;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Action that executes statements in order on a single connection in a single transaction, which is committed after
+ * the last statement and rolled back if any statement fails. Consecutive statements with the same SQL are sent as a
+ * single batch. The result is the update count of every statement and all keys generated by the database.
+ *
+ * @param <T> the type of the mapped result
+ */
+public class BatchDatabaseAction<T> implements DatabaseAction<T> {
+
+    private final List<Query> queries;
+    private final Function<UpdateResult, T> mapper;
+    private final Executor executor;
+    private final Datasource datasource;
+    private final Priority priority;
+
+    public BatchDatabaseAction(List<Query> queries, Function<UpdateResult, T> mapper, Executor executor,
+        Datasource datasource) {
+        this(queries, mapper, executor, datasource, Priority.NORMAL);
+    }
+
+    public BatchDatabaseAction(List<Query> queries, Function<UpdateResult, T> mapper, Executor executor,
+        Datasource datasource, Priority priority) {
+        this.queries = List.copyOf(queries);
+        this.mapper = mapper;
+        this.executor = executor;
+        this.datasource = datasource;
+        this.priority = priority;
+    }
+
+    /**
+     * @return the statements
+     */
+    public List<Query> getQueries() {
+        return queries;
+    }
+
+    @Override
+    public Promise<T> query() {
+        return new Promise<>(() -> mapper.apply(run()), executor, traceName());
+    }
+
+    @Override
+    public Promise<Void> execute() {
+        return new Promise<>(() -> {
+            run();
+            return null;
+        }, executor, traceName());
+    }
+
+    private UpdateResult run() {
+        if (queries.isEmpty()) {
+            return UpdateResult.combine(List.of());
+        }
+        PriorityGate.Permit permit = Admission.acquire(priority);
+        try {
+            Database database = Database.getInstance(datasource).connect(false);
+            try {
+                UpdateResult result = database.updateBatch(queries);
+                database.commit();
+                return result;
+            } finally {
+                // closing without commit rolls back
+                database.close();
+            }
+        } finally {
+            permit.close();
+        }
+    }
+
+    private String traceName() {
+        return queries.isEmpty() ? "batch(0)" : queries.get(0).toString();
+    }
+
+    @Override
+    public <U> DatabaseAction<U> mapping(Function<T, U> mapper) {
+        return new BatchDatabaseAction<>(queries, this.mapper.andThen(mapper), executor, datasource, priority);
+    }
+
+    @Override
+    public DatabaseAction<T> withExecutor(Executor executor) {
+        return new BatchDatabaseAction<>(queries, mapper, executor, datasource, priority);
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public DatabaseAction<T> withDatasource(Datasource datasource) {
+        return new BatchDatabaseAction<>(queries, mapper, executor, datasource, priority);
+    }
+
+    @Override
+    public Datasource getDatasource() {
+        return datasource;
+    }
+
+    @Override
+    public DatabaseAction<T> withPriority(Priority priority) {
+        return new BatchDatabaseAction<>(queries, mapper, executor, datasource, priority);
+    }
+
+    @Override
+    public Priority getPriority() {
+        return priority;
+    }
+
+}
\ No newline at end of file
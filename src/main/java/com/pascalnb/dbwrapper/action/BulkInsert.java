@@ -0,0 +1,199 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.ObjectWriter;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.UpdateResult;
+import org.jetbrains.annotations.Contract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes objects with fields annotated with {@link com.pascalnb.dbwrapper.annotation.ParseField} to a table with
+ * multi-row {@code INSERT} statements, read through an {@link ObjectWriter}.
+ * <br><br>
+ * The rows are split into statements that stay below the maximum packet size of the server and the maximum number of
+ * placeholders of a prepared statement, which all run on a single connection in a single transaction. Upserts update
+ * all columns that are not annotated with {@link com.pascalnb.dbwrapper.annotation.ParseKey} when a row with the same
+ * primary or unique key exists.
+ *
+ * @param <T> the type of the objects
+ */
+@SuppressWarnings("unused")
+public class BulkInsert<T> {
+
+    /**
+     * The maximum number of placeholders of a prepared statement in MySQL.
+     */
+    public static final int MAX_PLACEHOLDERS = 65_535;
+    /**
+     * The default maximum packet size, the default {@code max_allowed_packet} of MySQL before 8.0.
+     */
+    public static final long DEFAULT_MAX_PACKET = 4L * 1024 * 1024;
+
+    // bytes of a number or other short value in the statement sent to the server
+    private static final int VALUE_BYTES = 24;
+
+    private final String table;
+    private final ObjectWriter<T> writer;
+    private final boolean upsert;
+    private final long maxPacket;
+    private final int maxPlaceholders;
+
+    private BulkInsert(String table, ObjectWriter<T> writer, boolean upsert, long maxPacket, int maxPlaceholders) {
+        if (maxPlaceholders < writer.getColumnCount()) {
+            throw new DatabaseException("A row needs more than " + maxPlaceholders + " placeholders");
+        }
+        this.table = table;
+        this.writer = writer;
+        this.upsert = upsert;
+        this.maxPacket = maxPacket;
+        this.maxPlaceholders = maxPlaceholders;
+    }
+
+    /**
+     * Creates a bulk insert of objects of the given class into the given table.
+     *
+     * @param table the name of the table
+     * @param clazz the class of the objects
+     * @param <T>   the type of the objects
+     * @return a new bulk insert
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public static <T> BulkInsert<T> into(String table, Class<T> clazz) {
+        return new BulkInsert<>(table, new ObjectWriter<>(clazz), false, DEFAULT_MAX_PACKET, MAX_PLACEHOLDERS);
+    }
+
+    /**
+     * @return a copy that updates the non-key columns of existing rows with {@code ON DUPLICATE KEY UPDATE}
+     */
+    @Contract("-> new")
+    public BulkInsert<T> upsert() {
+        return new BulkInsert<>(table, writer, true, maxPacket, maxPlaceholders);
+    }
+
+    /**
+     * @param maxPacket the {@code max_allowed_packet} of the server in bytes
+     * @return a new bulk insert
+     */
+    @Contract("_ -> new")
+    public BulkInsert<T> withMaxPacket(long maxPacket) {
+        return new BulkInsert<>(table, writer, upsert, maxPacket, maxPlaceholders);
+    }
+
+    /**
+     * @param maxPlaceholders the maximum number of placeholders per statement
+     * @return a new bulk insert
+     */
+    @Contract("_ -> new")
+    public BulkInsert<T> withMaxPlaceholders(int maxPlaceholders) {
+        return new BulkInsert<>(table, writer, upsert, maxPacket, maxPlaceholders);
+    }
+
+    /**
+     * Creates an action that writes the given objects, of which the result is the update count of every statement and
+     * the keys generated for the inserted rows.
+     *
+     * @param objects the objects
+     * @return a new action
+     */
+    @Contract(value = "_ -> new", pure = true)
+    public DatabaseAction<UpdateResult> of(Collection<? extends T> objects) {
+        return new BatchDatabaseAction<>(queries(objects), Function.identity(), DatabaseAction.DEFAULT_EXECUTOR, null);
+    }
+
+    /**
+     * Returns the statements that write the given objects.
+     *
+     * @param objects the objects
+     * @return the statements
+     */
+    public List<Query> queries(Collection<? extends T> objects) {
+        String[] columns = writer.getColumns();
+        String prefix = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        String suffix = upsert ? suffix(columns) : "";
+        String row = "(" + "?, ".repeat(columns.length - 1) + "?)";
+        long fixed = (prefix.length() + suffix.length()) * 4L;
+        int maxRows = maxPlaceholders / columns.length;
+
+        List<Query> queries = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        Object[] values = new Object[columns.length];
+        int rows = 0;
+        long size = fixed;
+        for (T object : objects) {
+            writer.values(object, values, 0);
+            long rowSize = row.length() + 2;
+            for (Object value : values) {
+                rowSize += sizeOf(value);
+            }
+            if (rows > 0 && (rows == maxRows || size + rowSize > maxPacket)) {
+                queries.add(query(prefix, row, suffix, rows, args));
+                args.clear();
+                rows = 0;
+                size = fixed;
+            }
+            if (size + rowSize > maxPacket) {
+                throw new DatabaseException("Row of " + rowSize + " bytes exceeds the maximum packet size");
+            }
+            args.addAll(Arrays.asList(values));
+            rows++;
+            size += rowSize;
+        }
+        if (rows > 0) {
+            queries.add(query(prefix, row, suffix, rows, args));
+        }
+        return queries;
+    }
+
+    private String suffix(String[] columns) {
+        StringBuilder builder = new StringBuilder(" ON DUPLICATE KEY UPDATE ");
+        boolean first = true;
+        for (int i = 0; i < columns.length; i++) {
+            if (!writer.isKey(i)) {
+                builder.append(first ? "" : ", ").append(columns[i]).append(" = VALUES(").append(columns[i])
+                    .append(')');
+                first = false;
+            }
+        }
+        if (first) {
+            // only key columns, so existing rows are kept as they are
+            builder.append(columns[0]).append(" = ").append(columns[0]);
+        }
+        return builder.toString();
+    }
+
+    private static Query query(String prefix, String row, String suffix, int rows, List<Object> args) {
+        StringBuilder builder = new StringBuilder(prefix.length() + (row.length() + 2) * rows + suffix.length());
+        builder.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            builder.append(i == 0 ? "" : ", ").append(row);
+        }
+        return new Query(builder.append(suffix).toString(), args.toArray());
+    }
+
+    /**
+     * Estimates the bytes of a value in the statement, with strings quoted and every character escaped in the worst
+     * case.
+     */
+    private static long sizeOf(Object value) {
+        if (value instanceof String string) {
+            long bytes = 0;
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                // surrogate pairs count as 2 times 2 bytes
+                bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            }
+            return 2 + 2 * bytes;
+        }
+        if (value instanceof byte[] bytes) {
+            return 3 + 2L * bytes.length;
+        }
+        return VALUE_BYTES;
+    }
+
+}
\ No newline at end of file
@@ -1,13 +1,19 @@
 package com.pascalnb.dbwrapper.action;
 
+import com.pascalnb.dbwrapper.Datasource;
 import com.pascalnb.dbwrapper.Mapper;
 import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.Results;
+import com.pascalnb.dbwrapper.RowMapper;
 import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.UpdateResult;
+import com.pascalnb.dbwrapper.priority.Priority;
 import org.jetbrains.annotations.Contract;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -28,6 +34,51 @@ public interface DatabaseAction<T> {
 
     Executor getExecutor();
 
+    /**
+     * Returns a copy of this action that runs on the given datasource instead of the default database. Actions that
+     * can only run on their own datasource return themselves for it and throw for any other.
+     *
+     * @param datasource the datasource, or null for the default database
+     * @return a new action
+     * @throws UnsupportedOperationException if the action cannot run on another datasource
+     */
+    default DatabaseAction<T> withDatasource(Datasource datasource) {
+        if (Objects.equals(datasource, getDatasource())) {
+            return this;
+        }
+        throw new UnsupportedOperationException(getClass().getName() + " cannot run on another datasource");
+    }
+
+    /**
+     * @return the datasource the action runs on, or null for the default database
+     */
+    default Datasource getDatasource() {
+        return null;
+    }
+
+    /**
+     * Returns a copy of this action that takes its connections from the lane of the given priority. Actions that
+     * only have their own priority return themselves for it and throw for any other.
+     *
+     * @param priority the priority
+     * @return a new action
+     * @throws UnsupportedOperationException if the action cannot run at another priority
+     * @see com.pascalnb.dbwrapper.priority.PriorityGate
+     */
+    default DatabaseAction<T> withPriority(Priority priority) {
+        if (priority == getPriority()) {
+            return this;
+        }
+        throw new UnsupportedOperationException(getClass().getName() + " cannot run at another priority");
+    }
+
+    /**
+     * @return the priority of the action
+     */
+    default Priority getPriority() {
+        return Priority.NORMAL;
+    }
+
     <U> DatabaseAction<U> mapping(Function<T, U> mapper);
 
     default <U> Promise<U> query(Function<T, U> mapper) {
@@ -39,6 +90,180 @@ public interface DatabaseAction<T> {
         return new SingleDatabaseAction<>(query, mapper, DEFAULT_EXECUTOR);
     }
 
+    /**
+     * Creates an action that maps every row of the result with the given row mapper while the result is read, without
+     * creating a {@link Table}.
+     *
+     * @param query     the query
+     * @param rowMapper the row mapper
+     * @param <T>       the type of the mapped rows
+     * @return a new action
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static <T> DatabaseAction<List<T>> ofRows(Query query, RowMapper<T> rowMapper) {
+        return new RowDatabaseAction<>(query, rowMapper, Function.identity(), DEFAULT_EXECUTOR);
+    }
+
+    @Contract(value = "_, _, _ -> new", pure = true)
+    static <T> DatabaseAction<List<T>> ofRows(String query, RowMapper<T> rowMapper, Object... args) {
+        return ofRows(new Query(query, args), rowMapper);
+    }
+
+    /**
+     * Creates an action that reads the given column of every row into an int array while the result is read, with
+     * {@link com.pascalnb.dbwrapper.ResultRow#getInt(int)}, so no string or boxed value is created per row.
+     *
+     * @param query  the query
+     * @param column the name of the column
+     * @return a new action, of which the result fails with a {@link com.pascalnb.dbwrapper.DatabaseException} if the
+     * column is missing or has a null value
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static DatabaseAction<int[]> ofInts(Query query, String column) {
+        return new RowDatabaseAction<>(query, PrimitiveColumn.ints(column, false, 0), PrimitiveColumn::toInts,
+            DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Creates an action that reads the given column of every row into an int array while the result is read, like
+     * {@link #ofInts(Query, String)}, with null values replaced by the given value.
+     *
+     * @param query     the query
+     * @param column    the name of the column
+     * @param nullValue the value null values are replaced with
+     * @return a new action
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    static DatabaseAction<int[]> ofInts(Query query, String column, int nullValue) {
+        return new RowDatabaseAction<>(query, PrimitiveColumn.ints(column, true, nullValue), PrimitiveColumn::toInts,
+            DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Creates an action that reads the given column of every row into a long array while the result is read, with
+     * {@link com.pascalnb.dbwrapper.ResultRow#getLong(int)}, so no string or boxed value is created per row.
+     *
+     * @param query  the query
+     * @param column the name of the column
+     * @return a new action, of which the result fails with a {@link com.pascalnb.dbwrapper.DatabaseException} if the
+     * column is missing or has a null value
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static DatabaseAction<long[]> ofLongs(Query query, String column) {
+        return new RowDatabaseAction<>(query, PrimitiveColumn.longs(column, false, 0), PrimitiveColumn::toLongs,
+            DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Creates an action that reads the given column of every row into a long array while the result is read, like
+     * {@link #ofLongs(Query, String)}, with null values replaced by the given value.
+     *
+     * @param query     the query
+     * @param column    the name of the column
+     * @param nullValue the value null values are replaced with
+     * @return a new action
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    static DatabaseAction<long[]> ofLongs(Query query, String column, long nullValue) {
+        return new RowDatabaseAction<>(query, PrimitiveColumn.longs(column, true, nullValue),
+            PrimitiveColumn::toLongs, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Creates an action that reads the given column of every row into a double array while the result is read, with
+     * {@link com.pascalnb.dbwrapper.ResultRow#getDouble(int)}, so no string or boxed value is created per row.
+     *
+     * @param query  the query
+     * @param column the name of the column
+     * @return a new action, of which the result fails with a {@link com.pascalnb.dbwrapper.DatabaseException} if the
+     * column is missing or has a null value
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static DatabaseAction<double[]> ofDoubles(Query query, String column) {
+        return new RowDatabaseAction<>(query, PrimitiveColumn.doubles(column, false, 0), PrimitiveColumn::toDoubles,
+            DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Creates an action that reads the given column of every row into a double array while the result is read, like
+     * {@link #ofDoubles(Query, String)}, with null values replaced by the given value.
+     *
+     * @param query     the query
+     * @param column    the name of the column
+     * @param nullValue the value null values are replaced with, e.g. {@link Double#NaN}
+     * @return a new action
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    static DatabaseAction<double[]> ofDoubles(Query query, String column, double nullValue) {
+        return new RowDatabaseAction<>(query, PrimitiveColumn.doubles(column, true, nullValue),
+            PrimitiveColumn::toDoubles, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Creates an action that reads all results of a query that returns multiple results, such as a script of multiple
+     * statements or a stored procedure, in a single round trip.
+     *
+     * @param query the query
+     * @return a new action
+     * @see Results
+     */
+    @Contract(value = "_ -> new", pure = true)
+    static DatabaseAction<Results> ofResults(Query query) {
+        return new ResultsDatabaseAction<>(query, Function.identity(), DEFAULT_EXECUTOR, null, Priority.NORMAL);
+    }
+
+    @Contract(value = "_, _ -> new", pure = true)
+    static DatabaseAction<Results> ofResults(String query, Object... args) {
+        return ofResults(new Query(query, args));
+    }
+
+    /**
+     * Creates an action that reads all results of a query that returns multiple results and maps every result with the
+     * mapper at the same index. This is not an overload of {@link #ofResults(String, Object...)}, which would take the
+     * mappers for arguments of the query.
+     *
+     * @param query   the query
+     * @param mappers the mappers, one for every result
+     * @return a new action
+     * @see Results#map(Mapper[])
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static DatabaseAction<List<Object>> ofMappedResults(Query query, Mapper<?>... mappers) {
+        return new ResultsDatabaseAction<>(query, results -> results.map(mappers), DEFAULT_EXECUTOR, null,
+            Priority.NORMAL);
+    }
+
+    /**
+     * Creates an action that executes a statement that modifies rows, of which the result is the update count and the
+     * keys generated by the database.
+     *
+     * @param query the statement
+     * @return a new action
+     */
+    @Contract(value = "_ -> new", pure = true)
+    static DatabaseAction<UpdateResult> update(Query query) {
+        return new UpdateDatabaseAction<>(query, Function.identity(), DEFAULT_EXECUTOR, null, Priority.NORMAL);
+    }
+
+    @Contract(value = "_, _ -> new", pure = true)
+    static DatabaseAction<UpdateResult> update(String query, Object... args) {
+        return update(new Query(query, args));
+    }
+
+    /**
+     * Creates an action that executes statements that modify rows in a single transaction, sending consecutive
+     * statements with the same SQL as a single batch. The result is the update count of every statement and all keys
+     * generated by the database.
+     *
+     * @param queries the statements
+     * @return a new action
+     * @see BatchDatabaseAction
+     */
+    @Contract(value = "_ -> new", pure = true)
+    static DatabaseAction<UpdateResult> batch(List<Query> queries) {
+        return new BatchDatabaseAction<>(queries, Function.identity(), DEFAULT_EXECUTOR, null);
+    }
+
     @Contract(value = "_ -> new", pure = true)
     static DatabaseAction<Table> of(Query query) {
         return of(query, Mapper.identity());
@@ -49,6 +274,54 @@ public interface DatabaseAction<T> {
         return of(new Query(query, args), Mapper.identity());
     }
 
+    /**
+     * Creates a query that reads the result of the given query in pages of the given size with keyset pagination on
+     * the given key columns, prefetching one page ahead.
+     *
+     * @param query    the query, without ordering or limit
+     * @param pageSize the number of rows per page
+     * @param keys     the key columns that order the rows
+     * @return a new paged query
+     * @see PagedQuery
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    static PagedQuery paged(Query query, int pageSize, String... keys) {
+        return new PagedQuery(query, keys, pageSize, 1, false, DEFAULT_EXECUTOR, null, Priority.NORMAL);
+    }
+
+    /**
+     * Creates an action that scans the result of the given query concurrently in ranges of the given integer key,
+     * with one partition per processor.
+     *
+     * @param query the query
+     * @param key   the key column
+     * @return a new action
+     * @see PartitionedScan
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static PartitionedScan<Table> partitioned(Query query, String key) {
+        return new PartitionedScan<>(query, key, PartitionedScan.KeyType.INTEGER,
+            Runtime.getRuntime().availableProcessors(), null, Function.identity(), DEFAULT_EXECUTOR, null,
+            Priority.NORMAL);
+    }
+
+    /**
+     * Creates a query that keeps the result of the given query in memory by the given key column and refreshes it with
+     * the rows past the highest value of the given watermark column.
+     *
+     * @param query     the query, without ordering
+     * @param key       the key column
+     * @param watermark the watermark column, which increases whenever a row changes
+     * @param mapper    the row mapper, which may map a row to null to remove it
+     * @param <V>       the type of the mapped rows
+     * @return a new snapshot query
+     * @see SnapshotQuery
+     */
+    @Contract(value = "_, _, _, _ -> new", pure = true)
+    static <V> SnapshotQuery<V> snapshot(Query query, String key, String watermark, RowMapper<V> mapper) {
+        return new SnapshotQuery<>(query, key, watermark, mapper, null, Priority.NORMAL);
+    }
+
     @Contract(value = "_, _, _ -> new", pure = true)
     static <U, T> DatabaseAction<List<T>> allOf(Collection<? extends DatabaseAction<U>> actions,
         Function<U, T> mapper, Supplier<ExecutorService> service) {
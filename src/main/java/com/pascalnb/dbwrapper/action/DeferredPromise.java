@@ -0,0 +1,103 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.trace.Trace;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Promise of which the result is assembled in completion callbacks instead of by a blocking supplier. Running it only
+ * starts the computation, e.g. the queries of the actions of a {@link MultiDatabaseAction}, so no thread waits for
+ * the computation except the one that calls {@link #await()}.
+ *
+ * @param <T> the type of the result
+ */
+public class DeferredPromise<T> extends Promise<T> {
+
+    private final Supplier<CompletableFuture<T>> start;
+    private final String name;
+
+    /**
+     * @param start the supplier that starts the computation without waiting for it
+     * @param name  the name of the {@link Trace} of every run, or null to not trace the promise
+     */
+    protected DeferredPromise(Supplier<CompletableFuture<T>> start, String name) {
+        super(null, null, name);
+        this.start = start;
+        this.name = name;
+    }
+
+    @Override
+    public CompletableFuture<T> toFuture() {
+        try {
+            return Trace.callAsync(Trace.start(name), start);
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void async(Consumer<T> consumer) {
+        toFuture().thenAccept(consumer);
+    }
+
+    @Override
+    public void async() {
+        toFuture();
+    }
+
+    @Override
+    public T await() {
+        try {
+            return toFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = causeOf(e);
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Promise<T> stage() {
+        return new StagedPromise<>(toFuture());
+    }
+
+    @Override
+    public <U> Promise<U> map(Function<T, U> function) {
+        return new DeferredPromise<>(() -> start.get().thenApply(function), name);
+    }
+
+    @Override
+    public Promise<Void> consume(Consumer<T> consumer) {
+        return new DeferredPromise<>(() -> start.get().thenAccept(consumer), name);
+    }
+
+    @Override
+    public Promise<T> catching(Function<Throwable, ? extends T> function) {
+        return new DeferredPromise<>(() -> {
+            CompletableFuture<T> future;
+            try {
+                future = start.get();
+            } catch (RuntimeException | Error e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            return future.exceptionally(e -> function.apply(causeOf(e)));
+        }, name);
+    }
+
+    /**
+     * Returns the cause of a completion exception, so callers see the same exceptions as with other promises.
+     */
+    static Throwable causeOf(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+}
\ No newline at end of file
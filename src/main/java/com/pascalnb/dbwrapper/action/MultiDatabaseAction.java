@@ -1,11 +1,17 @@
 package com.pascalnb.dbwrapper.action;
 
 import com.pascalnb.dbwrapper.Database;
-import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.priority.Priority;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
@@ -17,91 +23,198 @@ public class MultiDatabaseAction<B, T> implements DatabaseAction<T> {
     private final Function<List<B>, T> mapper;
     private final Executor executor;
     private final Supplier<ExecutorService> serviceSupplier;
+    private final Priority priority;
 
     public MultiDatabaseAction(Collection<? extends DatabaseAction<? extends B>> actions,
         Function<List<B>, T> mapper,
         Executor executor, Supplier<ExecutorService> serviceSupplier) {
+        this(actions, mapper, executor, serviceSupplier, Priority.NORMAL);
+    }
+
+    public MultiDatabaseAction(Collection<? extends DatabaseAction<? extends B>> actions,
+        Function<List<B>, T> mapper,
+        Executor executor, Supplier<ExecutorService> serviceSupplier, Priority priority) {
         this.actions = actions;
         this.mapper = mapper;
         this.executor = executor;
         this.serviceSupplier = serviceSupplier;
+        this.priority = priority;
     }
 
+    /**
+     * Starts the actions concurrently and maps their results on the executor of this action when the last one
+     * completes. No thread waits for the actions, so nested combined actions only use threads for the queries that are
+     * running. Nested combined actions share the connections of this action.
+     */
     @Override
     public Promise<T> query() {
-        return new Promise<>(
+        return queryShared(null);
+    }
+
+    /**
+     * @param shared the connections of the outermost combined action, or null if this is the outermost action
+     */
+    private Promise<T> queryShared(Map<Datasource, Connection> shared) {
+        return new DeferredPromise<>(
             () -> {
                 ExecutorService service = serviceSupplier.get();
-                List<Promise<? extends B>> promises = new ArrayList<>();
-                Database database = Database.getInstance().connect();
-                List<B> result = new ArrayList<>();
+                Map<Datasource, Connection> connections = shared == null ? new ConcurrentHashMap<>() : shared;
+                // only the outermost action closes the connections
+                Map<Datasource, Connection> owned = shared == null ? connections : null;
+                List<CompletableFuture<? extends B>> futures = new ArrayList<>(actions.size());
 
                 try {
                     for (var action : actions) {
-                        if (action instanceof SingleDatabaseAction<? extends B> singleDatabaseAction) {
+                        if (action instanceof StatementAction<?, ? extends B> statementAction) {
 
-                            Supplier<? extends B> supplier = () -> {
-                                Table table = database.queryStatement(singleDatabaseAction.getQuery());
-                                return singleDatabaseAction.getMapper().apply(table);
-                            };
+                            Connection connection = connections.computeIfAbsent(statementAction.getDatasource(),
+                                datasource -> new Connection(datasource, priority));
+                            Supplier<? extends B> supplier = () -> connection.run(statementAction::fetch);
 
-                            promises.add(new Promise<>(supplier, service).stage());
+                            futures.add(
+                                new Promise<>(supplier, service, statementAction.getQuery().toString()).toFuture());
+                        } else if (action instanceof MultiDatabaseAction<?, ? extends B> multi) {
+                            futures.add(multi.withExecutor(service).queryShared(connections).toFuture());
                         } else {
-                            promises.add(action.withExecutor(service).query().stage());
+                            futures.add(action.withExecutor(service).query().toFuture());
                         }
                     }
-
-                    for (var future : promises) {
-                        result.add(future.await());
-                    }
-
-                } finally {
-                    service.shutdown();
-                    database.close();
+                } catch (RuntimeException | Error e) {
+                    // the actions that were started before the failure may still use the connections
+                    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                        .handleAsync((ignored, error) -> {
+                            throw new CompletionException(finish(e, futures, service, owned));
+                        }, executor);
                 }
 
-                return mapper.apply(result);
+                return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .handleAsync((ignored, error) -> {
+                        Throwable failure = finish(null, futures, service, owned);
+                        if (failure != null) {
+                            throw new CompletionException(failure);
+                        }
+                        List<B> result = new ArrayList<>(futures.size());
+                        for (var future : futures) {
+                            result.add(future.join());
+                        }
+                        return mapper.apply(result);
+                    }, executor);
             },
-            executor
+            traceName()
         );
     }
 
     @Override
     public Promise<Void> execute() {
-        return new Promise<>(
+        return executeShared(null);
+    }
+
+    /**
+     * @param shared the connections of the outermost combined action, or null if this is the outermost action
+     */
+    private Promise<Void> executeShared(Map<Datasource, Connection> shared) {
+        return new DeferredPromise<>(
             () -> {
                 ExecutorService service = serviceSupplier.get();
-                List<Promise<Void>> promises = new ArrayList<>();
-                Database database = Database.getInstance().connect();
+                Map<Datasource, Connection> connections = shared == null ? new ConcurrentHashMap<>() : shared;
+                // only the outermost action closes the connections
+                Map<Datasource, Connection> owned = shared == null ? connections : null;
+                List<CompletableFuture<Void>> futures = new ArrayList<>(actions.size());
 
                 try {
                     for (var action : actions) {
-                        if (action instanceof SingleDatabaseAction<? extends B> singleDatabaseAction) {
-                            Supplier<Void> supplier = () -> {
-                                database.executeStatement(singleDatabaseAction.getQuery());
+                        if (action instanceof StatementAction<?, ? extends B> statementAction) {
+                            Connection connection = connections.computeIfAbsent(statementAction.getDatasource(),
+                                datasource -> new Connection(datasource, priority));
+                            Supplier<Void> supplier = () -> connection.run(database -> {
+                                database.executeStatement(statementAction.getQuery());
                                 return null;
-                            };
-                            promises.add(new Promise<>(supplier, service).stage());
+                            });
+                            futures.add(
+                                new Promise<>(supplier, service, statementAction.getQuery().toString()).toFuture());
+                        } else if (action instanceof MultiDatabaseAction<?, ? extends B> multi) {
+                            futures.add(multi.withExecutor(service).executeShared(connections).toFuture());
                         } else {
-                            promises.add(action.withExecutor(service).execute().stage());
+                            futures.add(action.withExecutor(service).execute().toFuture());
                         }
                     }
-
-                    for (var future : promises) {
-                        future.await();
-                    }
-                } finally {
-                    service.shutdown();
-                    database.close();
+                } catch (RuntimeException | Error e) {
+                    // the actions that were started before the failure may still use the connections
+                    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                        .handleAsync((ignored, error) -> {
+                            throw new CompletionException(finish(e, futures, service, owned));
+                        }, executor);
                 }
-                return null;
+
+                return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .handleAsync((ignored, error) -> {
+                        Throwable failure = finish(null, futures, service, owned);
+                        if (failure != null) {
+                            throw new CompletionException(failure);
+                        }
+                        return null;
+                    }, executor);
             },
-            executor);
+            traceName());
+    }
+
+    /**
+     * Shuts down the executor service and closes the connections after all started actions completed, returning the
+     * given error, else the error of the first failed action, else the error of closing the connections. Nested
+     * combined actions pass no connections, as the outermost action closes them.
+     */
+    private static Throwable finish(Throwable error, List<? extends CompletableFuture<?>> futures,
+        ExecutorService service, Map<Datasource, Connection> connections) {
+        for (var future : futures) {
+            if (error == null && future.isCompletedExceptionally()) {
+                try {
+                    future.join();
+                } catch (CompletionException | CancellationException e) {
+                    error = DeferredPromise.causeOf(e);
+                }
+            }
+        }
+        service.shutdown();
+        if (connections == null) {
+            return error;
+        }
+        try {
+            close(connections.values());
+        } catch (RuntimeException e) {
+            if (error == null) {
+                error = e;
+            } else {
+                error.addSuppressed(e);
+            }
+        }
+        return error;
+    }
+
+    private String traceName() {
+        return "allOf(" + actions.size() + ")";
+    }
+
+    private static void close(Collection<Connection> connections) {
+        RuntimeException error = null;
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
     }
 
     @Override
     public <U> DatabaseAction<U> mapping(Function<T, U> mapper) {
-        return new MultiDatabaseAction<>(actions, this.mapper.andThen(mapper), executor, serviceSupplier);
+        return new MultiDatabaseAction<>(actions, this.mapper.andThen(mapper), executor, serviceSupplier, priority);
     }
 
     @Override
@@ -109,9 +222,94 @@ public class MultiDatabaseAction<B, T> implements DatabaseAction<T> {
         return executor;
     }
 
+    /**
+     * Returns a copy of this action of which all actions run on the given datasource.
+     *
+     * @param datasource the datasource, or null for the default database
+     * @return a new action
+     */
     @Override
-    public DatabaseAction<T> withExecutor(Executor executor) {
-        return new MultiDatabaseAction<>(actions, mapper, executor, serviceSupplier);
+    public DatabaseAction<T> withDatasource(Datasource datasource) {
+        List<DatabaseAction<? extends B>> moved = new ArrayList<>(actions.size());
+        for (var action : actions) {
+            moved.add(action.withDatasource(datasource));
+        }
+        return new MultiDatabaseAction<>(moved, mapper, executor, serviceSupplier, priority);
+    }
+
+    /**
+     * Returns a copy of this action of which the shared connections and all actions have the given priority.
+     *
+     * @param priority the priority
+     * @return a new action
+     */
+    @Override
+    public DatabaseAction<T> withPriority(Priority priority) {
+        List<DatabaseAction<? extends B>> moved = new ArrayList<>(actions.size());
+        for (var action : actions) {
+            moved.add(action.withPriority(priority));
+        }
+        return new MultiDatabaseAction<>(moved, mapper, executor, serviceSupplier, priority);
+    }
+
+    @Override
+    public Priority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public MultiDatabaseAction<B, T> withExecutor(Executor executor) {
+        return new MultiDatabaseAction<>(actions, mapper, executor, serviceSupplier, priority);
+    }
+
+    /**
+     * The connection to a datasource shared by the actions on that datasource, opened when first used so connections
+     * to different datasources are opened in parallel. It holds a permit of the gate from when it is opened until it
+     * is closed, like the connection of any other action, and the limiter samples the latency of every statement.
+     */
+    private static final class Connection {
+
+        private final Datasource datasource;
+        private final Priority priority;
+        private Admission.Permit permit = null;
+        private Database database = null;
+
+        private Connection(Datasource datasource, Priority priority) {
+            this.datasource = datasource;
+            this.priority = priority;
+        }
+
+        private <R> R run(Function<Database, R> statement) {
+            Database database = get();
+            return permit.measure(() -> statement.apply(database));
+        }
+
+        private synchronized Database get() {
+            if (database == null) {
+                Admission.Permit permit = Admission.acquire(priority);
+                try {
+                    database = Database.getInstance(datasource).connect();
+                } catch (RuntimeException | Error e) {
+                    permit.close();
+                    throw e;
+                }
+                this.permit = permit;
+            }
+            return database;
+        }
+
+        private synchronized void close() {
+            if (database != null) {
+                try {
+                    database.close();
+                } finally {
+                    database = null;
+                    permit.close();
+                    permit = null;
+                }
+            }
+        }
+
     }
 
 }
\ No newline at end of file
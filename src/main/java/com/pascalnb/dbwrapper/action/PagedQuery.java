@@ -0,0 +1,448 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Mapper;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.Tuple;
+import com.pascalnb.dbwrapper.priority.Priority;
+import org.jetbrains.annotations.Contract;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Query that reads a large result in pages with keyset pagination: every page continues after the key of the last row
+ * of the previous page, so the database can seek with an index instead of skipping the rows of an offset.
+ * <br><br>
+ * The query is wrapped as a derived table, ordered by the key columns and limited to the page size. The key columns
+ * must be in the result, must not be null and must be unique together. The key values of the last row are bound with
+ * the type of their column, e.g. as a long for a {@code BIGINT} column. The query cannot have a list argument that is
+ * split into multiple statements, as the pages are ordered and limited across the whole result. With a prefetch depth
+ * above zero, the pages are fetched on a background task over a single connection, up to the given number of pages
+ * ahead of the consumer. Cursors must be closed when they are not read to the end, to stop the background task and
+ * close the connection.
+ */
+@SuppressWarnings("unused")
+public class PagedQuery {
+
+    private static final long POLL_MILLIS = 100;
+    // signals the end of the pages in the queue
+    private static final Object END = new Object();
+
+    private final Query query;
+    private final String[] keys;
+    private final int pageSize;
+    private final int prefetch;
+    private final boolean descending;
+    private final Executor executor;
+    private final Datasource datasource;
+    private final Priority priority;
+
+    PagedQuery(Query query, String[] keys, int pageSize, int prefetch, boolean descending, Executor executor,
+        Datasource datasource, Priority priority) {
+        if (keys.length == 0) {
+            throw new DatabaseException("Keyset pagination needs at least one key column");
+        }
+        if (pageSize <= 0) {
+            throw new DatabaseException("Page size must be positive");
+        }
+        if (prefetch < 0) {
+            throw new DatabaseException("Prefetch depth cannot be negative");
+        }
+        if (query.split().size() > 1) {
+            throw new DatabaseException("A paged query cannot be split into multiple statements");
+        }
+        this.query = query;
+        this.keys = keys;
+        this.pageSize = pageSize;
+        this.prefetch = prefetch;
+        this.descending = descending;
+        this.executor = executor;
+        this.datasource = datasource;
+        this.priority = priority;
+    }
+
+    /**
+     * Returns a copy that fetches up to the given number of pages ahead on a background task, or on the consuming
+     * thread when zero. The default is one page.
+     *
+     * @param prefetch the prefetch depth
+     * @return a new paged query
+     */
+    @Contract("_ -> new")
+    public PagedQuery withPrefetch(int prefetch) {
+        return new PagedQuery(query, keys, pageSize, prefetch, descending, executor, datasource, priority);
+    }
+
+    /**
+     * @param executor the executor of the background task
+     * @return a new paged query
+     */
+    @Contract("_ -> new")
+    public PagedQuery withExecutor(Executor executor) {
+        return new PagedQuery(query, keys, pageSize, prefetch, descending, executor, datasource, priority);
+    }
+
+    /**
+     * @param datasource the datasource, or null for the default database
+     * @return a new paged query
+     */
+    @Contract("_ -> new")
+    public PagedQuery withDatasource(Datasource datasource) {
+        return new PagedQuery(query, keys, pageSize, prefetch, descending, executor, datasource, priority);
+    }
+
+    /**
+     * @param priority the priority of the connection of every cursor
+     * @return a new paged query
+     */
+    @Contract("_ -> new")
+    public PagedQuery withPriority(Priority priority) {
+        return new PagedQuery(query, keys, pageSize, prefetch, descending, executor, datasource, priority);
+    }
+
+    /**
+     * @return a new paged query that reads the rows in descending order of the keys
+     */
+    @Contract("-> new")
+    public PagedQuery descending() {
+        return new PagedQuery(query, keys, pageSize, prefetch, true, executor, datasource, priority);
+    }
+
+    /**
+     * Opens a cursor over the pages.
+     *
+     * @return the cursor
+     */
+    public Cursor<Table> open() {
+        return open(Mapper.identity());
+    }
+
+    /**
+     * Opens a cursor over the pages, each mapped with the given mapper. Pages are mapped where they are fetched, so
+     * with prefetching also on the background task.
+     *
+     * @param mapper the mapper of the pages
+     * @param <T>    the type of the mapped pages
+     * @return the cursor
+     */
+    public <T> Cursor<T> open(Mapper<T> mapper) {
+        Pages pages = new Pages();
+        return prefetch == 0 ? new DirectCursor<>(pages, mapper) : new PrefetchCursor<>(pages, mapper);
+    }
+
+    /**
+     * Returns a stream of all rows, which must be closed when it is not read to the end.
+     *
+     * @return the stream
+     */
+    public Stream<Tuple> rows() {
+        Cursor<Table> cursor = open();
+        return cursor.stream().flatMap(Table::stream).onClose(cursor::close);
+    }
+
+    Query pageQuery(Object[] after) {
+        String sql = query.toString().strip();
+        if (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1);
+        }
+        List<Object> args = new ArrayList<>(List.of(query.getArgs()));
+        StringBuilder builder = new StringBuilder("SELECT * FROM (").append(sql).append(") AS keyset_page");
+
+        if (after != null) {
+            // (k1 > ?) OR (k1 = ? AND k2 > ?) OR ..., which unlike a row comparison can use an index on every database
+            String operator = descending ? " < ?" : " > ?";
+            builder.append(" WHERE ");
+            for (int i = 0; i < keys.length; i++) {
+                builder.append(i == 0 ? "(" : " OR (");
+                for (int j = 0; j < i; j++) {
+                    builder.append(keys[j]).append(" = ? AND ");
+                    args.add(after[j]);
+                }
+                builder.append(keys[i]).append(operator).append(')');
+                args.add(after[i]);
+            }
+        }
+
+        builder.append(" ORDER BY ");
+        for (int i = 0; i < keys.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(keys[i]).append(descending ? " DESC" : "");
+        }
+        builder.append(" LIMIT ?");
+        args.add(pageSize);
+        return new Query(builder.toString(), args.toArray());
+    }
+
+    /**
+     * Returns the value of a key column as the type of the column, so it is compared as a number and not as a string,
+     * which some databases convert to a double that cannot represent every large integer.
+     */
+    private static Object keyValue(String value, int type) {
+        if (value == null) {
+            return null;
+        }
+        return switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> {
+                try {
+                    yield Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    // unsigned values above the range of a long
+                    yield new BigDecimal(value);
+                }
+            }
+            case Types.DECIMAL, Types.NUMERIC -> new BigDecimal(value);
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> Double.parseDouble(value);
+            default -> value;
+        };
+    }
+
+    /**
+     * Iterator over the pages of a paged query, which must be closed when it is not read to the end.
+     *
+     * @param <T> the type of the pages
+     */
+    public interface Cursor<T> extends Iterator<T>, AutoCloseable {
+
+        @Override
+        void close();
+
+        /**
+         * @return a stream of the remaining pages that closes this cursor when closed
+         */
+        default Stream<T> stream() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+        }
+
+    }
+
+    /**
+     * The state of a single pass over the pages, used by one thread at a time.
+     */
+    private final class Pages {
+
+        private Admission.Permit permit = null;
+        private Database database = null;
+        private Object[] after = null;
+        private boolean done = false;
+
+        /**
+         * Fetches the next page, or returns null and closes the connection after the last page.
+         */
+        private Table next() {
+            if (done) {
+                return null;
+            }
+            try {
+                if (database == null) {
+                    permit = Admission.acquire(priority);
+                    database = Database.getInstance(datasource).connect();
+                }
+                Database open = database;
+                Table page = permit.measure(() -> open.queryStatement(pageQuery(after)));
+                if (page.getRowCount() < pageSize) {
+                    close();
+                }
+                if (page.isEmpty()) {
+                    return null;
+                }
+                Tuple last = page.get(page.getRowCount() - 1);
+                after = new Object[keys.length];
+                for (int i = 0; i < keys.length; i++) {
+                    int index = page.indexOf(keys[i]);
+                    if (index == -1) {
+                        throw new DatabaseException("Key column " + keys[i] + " not found");
+                    }
+                    after[i] = keyValue(last.get(index), page.getShape().getType(index));
+                }
+                return page;
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            done = true;
+            if (database != null) {
+                Database open = database;
+                database = null;
+                try {
+                    open.close();
+                } finally {
+                    permit.close();
+                }
+            } else if (permit != null) {
+                // connecting failed
+                permit.close();
+            }
+            permit = null;
+        }
+
+    }
+
+    private static final class DirectCursor<T> implements Cursor<T> {
+
+        private final PagedQuery.Pages pages;
+        private final Mapper<T> mapper;
+        private Table next = null;
+
+        private DirectCursor(PagedQuery.Pages pages, Mapper<T> mapper) {
+            this.pages = pages;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = pages.next();
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Table page = next;
+            next = null;
+            return mapper.apply(page);
+        }
+
+        @Override
+        public void close() {
+            pages.close();
+        }
+
+    }
+
+    private final class PrefetchCursor<T> implements Cursor<T> {
+
+        // the background task holds the next page while it waits for room, so the queue holds one page less than the
+        // prefetch depth, and none at a depth of one
+        private final BlockingQueue<Object> queue = prefetch == 1
+            ? new SynchronousQueue<>()
+            : new ArrayBlockingQueue<>(prefetch - 1);
+        private volatile boolean closed = false;
+        private Object next = null;
+
+        private PrefetchCursor(Pages pages, Mapper<T> mapper) {
+            executor.execute(() -> {
+                Object last = END;
+                try {
+                    Table page;
+                    while (!closed && (page = pages.next()) != null) {
+                        put(mapper.apply(page));
+                    }
+                } catch (InterruptedException e) {
+                    last = new Failure(new DatabaseException(e));
+                    Thread.currentThread().interrupt();
+                } catch (Throwable e) {
+                    // also errors, as the consumer would otherwise wait for the next page forever
+                    last = new Failure(e);
+                } finally {
+                    pages.close();
+                }
+                putLast(last);
+            });
+        }
+
+        private void put(Object element) throws InterruptedException {
+            if (Thread.interrupted()) {
+                // the queue does not notice interrupts when the consumer is already waiting
+                throw new InterruptedException();
+            }
+            while (!closed && !queue.offer(element, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                // the consumer is behind, keep waiting unless the cursor is closed
+            }
+        }
+
+        /**
+         * Puts the end or the failure of the pages, even if the background task is interrupted, so the consumer does
+         * not take an interrupted task for the end of the pages.
+         */
+        private void putLast(Object element) {
+            boolean interrupted = Thread.interrupted();
+            while (!closed) {
+                try {
+                    put(element);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                if (closed) {
+                    return false;
+                }
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DatabaseException(e);
+                }
+                if (next instanceof Failure failure) {
+                    close();
+                    next = null;
+                    if (failure.error() instanceof RuntimeException e) {
+                        throw e;
+                    }
+                    if (failure.error() instanceof Error e) {
+                        throw e;
+                    }
+                    throw new DatabaseException(failure.error());
+                }
+            }
+            return next != END;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object page = next;
+            next = null;
+            return (T) page;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            queue.clear();
+        }
+
+    }
+
+    /**
+     * The failure of the background task in the queue, which is distinct from the pages even if they are exceptions.
+     */
+    private record Failure(Throwable error) {
+    }
+
+}
\ No newline at end of file
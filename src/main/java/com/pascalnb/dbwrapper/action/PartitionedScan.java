@@ -0,0 +1,559 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.Tuple;
+import com.pascalnb.dbwrapper.priority.Priority;
+import com.pascalnb.dbwrapper.priority.PriorityGate;
+import org.jetbrains.annotations.Contract;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Action that scans the result of a query in ranges of a numeric or date key, concurrently on one connection per
+ * partition.
+ * <br><br>
+ * The key range is split into the given number of partitions between the minimum and maximum key, or at the given
+ * split points. Every worker splits its range further into halves down to a quarter of a partition and keeps the
+ * halves on its own deque, from which idle workers steal the largest ranges, so partitions with few rows do not leave
+ * their workers idle while others are still scanning. Rows with a null key are not scanned. The calling thread is the
+ * first worker and the others run on the executor of the action, and a worker releases its connection while it has
+ * no range to scan.
+ * <br><br>
+ * The query is wrapped as a derived table and filtered on the key, so it must return the key column, and it cannot
+ * have a list argument that is split into multiple statements. The merged result has the rows of the ranges in the
+ * order of the key ranges.
+ *
+ * @param <T> the type of the mapped result
+ */
+@SuppressWarnings("unused")
+public class PartitionedScan<T> implements DatabaseAction<T> {
+
+    // number of ranges every partition is split into at most, to have ranges to steal from skewed partitions
+    private static final int SPLITS = 4;
+    private static final long IDLE_NANOS = 100_000;
+
+    private final Query query;
+    private final String key;
+    private final KeyType keyType;
+    private final int partitions;
+    private final List<?> splitPoints;
+    private final Function<Table, T> mapper;
+    private final Executor executor;
+    private final Datasource datasource;
+    private final Priority priority;
+
+    PartitionedScan(Query query, String key, KeyType keyType, int partitions, List<?> splitPoints,
+        Function<Table, T> mapper, Executor executor, Datasource datasource, Priority priority) {
+        if (partitions <= 0) {
+            throw new DatabaseException("Number of partitions must be positive");
+        }
+        if (query.split().size() > 1) {
+            throw new DatabaseException("A partitioned scan cannot be split into multiple statements");
+        }
+        this.query = query;
+        this.key = key;
+        this.keyType = keyType;
+        this.partitions = partitions;
+        this.splitPoints = splitPoints;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.datasource = datasource;
+        this.priority = priority;
+    }
+
+    /**
+     * @param partitions the number of partitions and connections, by default the number of processors
+     * @return a new action
+     */
+    @Contract("_ -> new")
+    public PartitionedScan<T> withPartitions(int partitions) {
+        return new PartitionedScan<>(query, key, keyType, partitions, splitPoints, mapper, executor, datasource,
+            priority);
+    }
+
+    /**
+     * Returns a copy of this action that splits the key range at the given ascending values instead of between the
+     * minimum and maximum key. The first and last range are open-ended.
+     *
+     * @param splitPoints the numbers, {@link LocalDate}s, {@link LocalDateTime}s or their strings
+     * @return a new action
+     */
+    @Contract("_ -> new")
+    public PartitionedScan<T> withSplitPoints(List<?> splitPoints) {
+        return new PartitionedScan<>(query, key, keyType, partitions, List.copyOf(splitPoints), mapper, executor,
+            datasource, priority);
+    }
+
+    /**
+     * @param keyType the type of the key column, by default {@link KeyType#INTEGER}
+     * @return a new action
+     */
+    @Contract("_ -> new")
+    public PartitionedScan<T> withKeyType(KeyType keyType) {
+        return new PartitionedScan<>(query, key, keyType, partitions, splitPoints, mapper, executor, datasource,
+            priority);
+    }
+
+    @Override
+    public Promise<T> query() {
+        return new Promise<>(() -> {
+            Map<Long, Table> tables = new ConcurrentSkipListMap<>();
+            Table first = scan((range, table) -> tables.put(range.lower, table));
+            return mapper.apply(tables.isEmpty() ? first : Table.concat(new ArrayList<>(tables.values())));
+        }, executor, query.toString());
+    }
+
+    /**
+     * Runs the scan without collecting the rows.
+     *
+     * @return the promise
+     */
+    @Override
+    public Promise<Void> execute() {
+        return forEach(row -> {}).map(count -> null);
+    }
+
+    /**
+     * Runs the scan and passes every row to the given consumer, which is called concurrently by the workers.
+     *
+     * @param consumer the thread-safe consumer of the rows
+     * @return the promise of the number of rows
+     */
+    public Promise<Long> forEach(Consumer<? super Tuple> consumer) {
+        return new Promise<>(() -> {
+            LongAdder count = new LongAdder();
+            scan((range, table) -> {
+                table.forEach(consumer);
+                count.add(table.getRowCount());
+            });
+            return count.sum();
+        }, executor, query.toString());
+    }
+
+    @Override
+    public <U> DatabaseAction<U> mapping(Function<T, U> mapper) {
+        return new PartitionedScan<>(query, key, keyType, partitions, splitPoints, this.mapper.andThen(mapper),
+            executor, datasource, priority);
+    }
+
+    @Override
+    public PartitionedScan<T> withExecutor(Executor executor) {
+        return new PartitionedScan<>(query, key, keyType, partitions, splitPoints, mapper, executor, datasource,
+            priority);
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public PartitionedScan<T> withDatasource(Datasource datasource) {
+        return new PartitionedScan<>(query, key, keyType, partitions, splitPoints, mapper, executor, datasource,
+            priority);
+    }
+
+    @Override
+    public Datasource getDatasource() {
+        return datasource;
+    }
+
+    /**
+     * Returns a copy of this action of which all workers take their connections from the lane of the given priority.
+     *
+     * @param priority the priority
+     * @return a new action
+     */
+    @Override
+    public PartitionedScan<T> withPriority(Priority priority) {
+        return new PartitionedScan<>(query, key, keyType, partitions, splitPoints, mapper, executor, datasource,
+            priority);
+    }
+
+    @Override
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Scans all ranges, returning the empty result of the query if there are no keys at all.
+     */
+    private Table scan(Sink sink) {
+        List<Range> ranges = splitPoints == null ? boundedRanges() : openRanges();
+        if (ranges.isEmpty()) {
+            return emptyResult();
+        }
+        int workers = Math.min(partitions, ranges.size());
+        long grain = 1;
+        for (Range range : ranges) {
+            if (range.isBounded()) {
+                grain = Math.max(grain, Long.divideUnsigned(range.width() - 1, SPLITS) + 1);
+            }
+        }
+
+        List<ConcurrentLinkedDeque<Range>> deques = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            deques.add(new ConcurrentLinkedDeque<>());
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            deques.get(i % workers).add(ranges.get(i));
+        }
+        Scan scan = new Scan(deques, grain, sink, ranges.size());
+
+        // the other workers run on the executor of the action, and this thread is the first worker, which steals the
+        // ranges of workers that have not started, so the scan completes even if the executor has no idle threads
+        for (int i = 1; i < workers; i++) {
+            int worker = i;
+            try {
+                executor.execute(() -> scan.run(worker));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        scan.run(0);
+        scan.await();
+        Throwable error = scan.errors.poll();
+        if (error != null) {
+            for (Throwable other : scan.errors) {
+                if (other != error) {
+                    error.addSuppressed(other);
+                }
+            }
+            if (error instanceof Error e) {
+                throw e;
+            }
+            throw error instanceof RuntimeException e ? e : new DatabaseException(error);
+        }
+        return null;
+    }
+
+    /**
+     * Splits the range between the minimum and maximum key into partitions.
+     */
+    private List<Range> boundedRanges() {
+        Table bounds;
+        PriorityGate.Permit permit = Admission.acquire(priority);
+        try {
+            Database database = Database.getInstance(datasource).connect();
+            try {
+                bounds = database.queryStatement(new Query("SELECT MIN(" + key + "), MAX(" + key + ") FROM ("
+                    + sql() + ") AS partition_scan", query.getArgs()));
+            } finally {
+                database.close();
+            }
+        } finally {
+            permit.close();
+        }
+        if (bounds.isEmpty() || bounds.get(0).get(0) == null) {
+            return List.of();
+        }
+        long min = keyType.toLong(bounds.get(0).get(0));
+        long max = keyType.toLong(bounds.get(0).get(1));
+        // the keys can span more than a long, and an upper bound above the maximum long is open-ended
+        BigInteger end = BigInteger.valueOf(max).add(BigInteger.ONE);
+        BigInteger size = end.subtract(BigInteger.valueOf(min)).add(BigInteger.valueOf(partitions - 1))
+            .divide(BigInteger.valueOf(partitions));
+        List<Range> ranges = new ArrayList<>(partitions);
+        for (BigInteger lower = BigInteger.valueOf(min); lower.compareTo(end) < 0; lower = lower.add(size)) {
+            BigInteger upper = lower.add(size).min(end);
+            ranges.add(new Range(lower.longValue(),
+                upper.bitLength() < Long.SIZE ? upper.longValue() : Long.MAX_VALUE));
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns the columns of the query without rows.
+     */
+    private Table emptyResult() {
+        PriorityGate.Permit permit = Admission.acquire(priority);
+        try {
+            Database database = Database.getInstance(datasource).connect();
+            try {
+                return database.queryStatement(new Query("SELECT * FROM (" + sql() + ") AS partition_scan LIMIT 0",
+                    query.getArgs()));
+            } finally {
+                database.close();
+            }
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Splits the whole key range at the split points.
+     */
+    private List<Range> openRanges() {
+        List<Range> ranges = new ArrayList<>(splitPoints.size() + 1);
+        long lower = Long.MIN_VALUE;
+        for (Object point : splitPoints) {
+            long upper = keyType.toLong(String.valueOf(point));
+            if (upper <= lower && lower != Long.MIN_VALUE) {
+                throw new DatabaseException("Split points must be ascending");
+            }
+            ranges.add(new Range(lower, upper));
+            lower = upper;
+        }
+        ranges.add(new Range(lower, Long.MAX_VALUE));
+        return ranges;
+    }
+
+    private String sql() {
+        String sql = query.toString().strip();
+        return sql.endsWith(";") ? sql.substring(0, sql.length() - 1) : sql;
+    }
+
+    /**
+     * Returns the query of the rows in the given range, where the minimum and maximum long are open ends.
+     */
+    Query rangeQuery(Range range) {
+        List<Object> args = new ArrayList<>(List.of(query.getArgs()));
+        StringBuilder builder = new StringBuilder("SELECT * FROM (").append(sql()).append(") AS partition_scan WHERE ");
+        if (range.lower == Long.MIN_VALUE && range.upper == Long.MAX_VALUE) {
+            builder.append(key).append(" IS NOT NULL");
+        }
+        if (range.lower != Long.MIN_VALUE) {
+            builder.append(key).append(" >= ?");
+            args.add(keyType.toArgument(range.lower));
+        }
+        if (range.upper != Long.MAX_VALUE) {
+            builder.append(range.lower == Long.MIN_VALUE ? "" : " AND ").append(key).append(" < ?");
+            args.add(keyType.toArgument(range.upper));
+        }
+        return new Query(builder.toString(), args.toArray());
+    }
+
+    /**
+     * The type of a key column, of which the values are mapped to longs to split them into ranges.
+     */
+    public enum KeyType {
+
+        /**
+         * Integer or decimal numbers, of which decimals are split at integers.
+         */
+        INTEGER {
+            @Override
+            long toLong(String value) {
+                return new BigDecimal(value).setScale(0, RoundingMode.FLOOR).longValueExact();
+            }
+
+            @Override
+            Object toArgument(long value) {
+                return value;
+            }
+        },
+
+        /**
+         * Dates, split at days.
+         */
+        DATE {
+            @Override
+            long toLong(String value) {
+                return LocalDate.parse(value.substring(0, Math.min(value.length(), 10))).toEpochDay();
+            }
+
+            @Override
+            Object toArgument(long value) {
+                return LocalDate.ofEpochDay(value).toString();
+            }
+        },
+
+        /**
+         * Date-times, split at seconds.
+         */
+        DATETIME {
+            private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+            @Override
+            long toLong(String value) {
+                return LocalDateTime.parse(value.replace(' ', 'T')).truncatedTo(ChronoUnit.SECONDS)
+                    .toEpochSecond(ZoneOffset.UTC);
+            }
+
+            @Override
+            Object toArgument(long value) {
+                return FORMAT.format(LocalDateTime.ofEpochSecond(value, 0, ZoneOffset.UTC));
+            }
+        };
+
+        abstract long toLong(String value);
+
+        abstract Object toArgument(long value);
+
+    }
+
+    /**
+     * The range of keys from the lower bound inclusive to the upper bound exclusive.
+     */
+    record Range(long lower, long upper) {
+
+        private boolean isBounded() {
+            return lower != Long.MIN_VALUE && upper != Long.MAX_VALUE;
+        }
+
+        /**
+         * Returns the number of keys in a bounded range, which is unsigned as it can exceed the maximum long.
+         */
+        private long width() {
+            return upper - lower;
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+
+        void accept(Range range, Table table);
+
+    }
+
+    /**
+     * The shared state of the workers of a single scan.
+     */
+    private final class Scan {
+
+        private final List<ConcurrentLinkedDeque<Range>> deques;
+        private final long grain;
+        private final Sink sink;
+        // ranges that are queued or being scanned
+        private final AtomicInteger pending;
+        // workers that have started and not finished
+        private final AtomicInteger running = new AtomicInteger();
+        private final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        private volatile boolean failed = false;
+
+        private Scan(List<ConcurrentLinkedDeque<Range>> deques, long grain, Sink sink, int ranges) {
+            this.deques = deques;
+            this.grain = grain;
+            this.sink = sink;
+            this.pending = new AtomicInteger(ranges);
+        }
+
+        private void run(int worker) {
+            running.incrementAndGet();
+            try {
+                work(worker);
+            } catch (Throwable e) {
+                failed = true;
+                errors.add(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        /**
+         * Waits for the workers that are still scanning or closing their connections. Workers that start later find
+         * no ranges and stop without connecting.
+         */
+        private void await() {
+            boolean interrupted = false;
+            while (running.get() > 0) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                if (Thread.interrupted()) {
+                    // the workers stop after their current range
+                    interrupted = true;
+                    failed = true;
+                }
+            }
+            if (interrupted) {
+                errors.add(new DatabaseException(new InterruptedException("Partitioned scan interrupted")));
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void work(int worker) {
+            ConcurrentLinkedDeque<Range> own = deques.get(worker);
+            Admission.Permit permit = null;
+            Database database = null;
+            try {
+                while (!failed && pending.get() > 0) {
+                    Range range = own.pollLast();
+                    if (range == null) {
+                        range = steal(worker);
+                    }
+                    if (range == null) {
+                        // another worker may still split its range, without a connection to hold meanwhile
+                        Database idle = database;
+                        Admission.Permit released = permit;
+                        database = null;
+                        permit = null;
+                        close(idle, released);
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new DatabaseException(new InterruptedException("Partitioned scan interrupted"));
+                        }
+                        LockSupport.parkNanos(IDLE_NANOS);
+                        continue;
+                    }
+                    while (range.isBounded() && Long.compareUnsigned(range.width(), grain) > 0) {
+                        long middle = range.lower + (range.width() >>> 1);
+                        pending.incrementAndGet();
+                        own.addLast(new Range(middle, range.upper));
+                        range = new Range(range.lower, middle);
+                    }
+                    if (database == null) {
+                        permit = Admission.acquire(priority);
+                        database = Database.getInstance(datasource).connect();
+                    }
+                    Database open = database;
+                    Range scanned = range;
+                    sink.accept(range, permit.measure(() -> open.queryStatement(rangeQuery(scanned))));
+                    pending.decrementAndGet();
+                }
+            } finally {
+                close(database, permit);
+            }
+        }
+
+        private static void close(Database database, Admission.Permit permit) {
+            try {
+                if (database != null) {
+                    database.close();
+                }
+            } finally {
+                if (permit != null) {
+                    permit.close();
+                }
+            }
+        }
+
+        /**
+         * Takes the oldest, and therefore largest, range of another worker.
+         */
+        private Range steal(int worker) {
+            for (int i = 1; i < deques.size(); i++) {
+                Range range = deques.get((worker + i) % deques.size()).pollFirst();
+                if (range != null) {
+                    return range;
+                }
+            }
+            return null;
+        }
+
+    }
+
+}
\ No newline at end of file
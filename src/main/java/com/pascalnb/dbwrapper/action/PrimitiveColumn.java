@@ -0,0 +1,160 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.ResultRow;
+import com.pascalnb.dbwrapper.RowMapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Row mappers that read a single column of every row into a primitive array with the primitive getters of
+ * {@link ResultRow}, so no string or boxed value is created per row. Every row maps to the same growing array of the
+ * result, which the action takes from the first element of the mapped rows.
+ */
+final class PrimitiveColumn {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private PrimitiveColumn() {
+    }
+
+    static RowMapper<Ints> ints(String column, boolean replaceNull, int nullValue) {
+        return new RowMapper<>() {
+            @Override
+            public Ints map(ResultRow row) {
+                return bind(row).map(row);
+            }
+
+            @Override
+            public RowMapper<Ints> bind(ResultRow row) {
+                int index = indexOf(row, column);
+                Ints values = new Ints();
+                return r -> {
+                    int value = r.getInt(index);
+                    if (r.wasNull()) {
+                        value = nullValue(replaceNull, column, values.size, nullValue);
+                    }
+                    values.add(value);
+                    return values;
+                };
+            }
+        };
+    }
+
+    static RowMapper<Longs> longs(String column, boolean replaceNull, long nullValue) {
+        return new RowMapper<>() {
+            @Override
+            public Longs map(ResultRow row) {
+                return bind(row).map(row);
+            }
+
+            @Override
+            public RowMapper<Longs> bind(ResultRow row) {
+                int index = indexOf(row, column);
+                Longs values = new Longs();
+                return r -> {
+                    long value = r.getLong(index);
+                    if (r.wasNull()) {
+                        value = nullValue(replaceNull, column, values.size, nullValue);
+                    }
+                    values.add(value);
+                    return values;
+                };
+            }
+        };
+    }
+
+    static RowMapper<Doubles> doubles(String column, boolean replaceNull, double nullValue) {
+        return new RowMapper<>() {
+            @Override
+            public Doubles map(ResultRow row) {
+                return bind(row).map(row);
+            }
+
+            @Override
+            public RowMapper<Doubles> bind(ResultRow row) {
+                int index = indexOf(row, column);
+                Doubles values = new Doubles();
+                return r -> {
+                    double value = r.getDouble(index);
+                    if (r.wasNull()) {
+                        value = nullValue(replaceNull, column, values.size, nullValue);
+                    }
+                    values.add(value);
+                    return values;
+                };
+            }
+        };
+    }
+
+    static int[] toInts(List<Ints> rows) {
+        return rows.isEmpty() ? new int[0] : Arrays.copyOf(rows.get(0).values, rows.get(0).size);
+    }
+
+    static long[] toLongs(List<Longs> rows) {
+        return rows.isEmpty() ? new long[0] : Arrays.copyOf(rows.get(0).values, rows.get(0).size);
+    }
+
+    static double[] toDoubles(List<Doubles> rows) {
+        return rows.isEmpty() ? new double[0] : Arrays.copyOf(rows.get(0).values, rows.get(0).size);
+    }
+
+    private static int indexOf(ResultRow row, String column) {
+        int index = row.indexOf(column);
+        if (index == -1) {
+            throw new DatabaseException("Column " + column + " not found");
+        }
+        return index;
+    }
+
+    private static <V> V nullValue(boolean replaceNull, String column, int row, V nullValue) {
+        if (!replaceNull) {
+            throw new DatabaseException("Null value in row " + row + " of column " + column);
+        }
+        return nullValue;
+    }
+
+    static final class Ints {
+
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+    }
+
+    static final class Longs {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size = 0;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+    }
+
+    static final class Doubles {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int size = 0;
+
+        private void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+    }
+
+}
\ No newline at end of file
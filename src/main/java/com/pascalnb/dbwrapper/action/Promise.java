@@ -1,5 +1,8 @@
 package com.pascalnb.dbwrapper.action;
 
+import com.pascalnb.dbwrapper.trace.Stage;
+import com.pascalnb.dbwrapper.trace.Trace;
+
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -11,15 +14,33 @@ public class Promise<T> {
 
     private final Supplier<T> supplier;
     private final Executor executor;
+    private final String name;
 
     protected Promise(Supplier<T> supplier, Executor executor) {
+        this(supplier, executor, null);
+    }
+
+    /**
+     * @param supplier the supplier of the result
+     * @param executor the executor to run the supplier on
+     * @param name     the name of the {@link Trace} of every run, or null to not trace the promise
+     */
+    protected Promise(Supplier<T> supplier, Executor executor, String name) {
         this.supplier = supplier;
         this.executor = executor;
+        this.name = name;
     }
 
     public void async(Consumer<T> consumer) {
+        Trace trace = Trace.start(name);
         CompletableFuture.runAsync(
-            () -> consumer.accept(supplier.get()),
+            () -> Trace.call(trace, () -> {
+                T result = supplier.get();
+                long start = System.nanoTime();
+                consumer.accept(result);
+                Trace.record(Stage.CONTINUATION, start);
+                return null;
+            }),
             this.executor
         );
     }
@@ -29,23 +50,41 @@ public class Promise<T> {
     }
 
     public T await() {
-        return supplier.get();
+        return Trace.call(Trace.start(name), supplier);
     }
 
     public Promise<T> stage() {
-        CompletableFuture<T> future = CompletableFuture.supplyAsync(supplier, executor);
-        return new StagedPromise<>(future);
+        return new StagedPromise<>(toFuture());
+    }
+
+    /**
+     * Runs the promise on its executor without waiting for it.
+     *
+     * @return the future of the result
+     */
+    public CompletableFuture<T> toFuture() {
+        Trace trace = Trace.start(name);
+        return CompletableFuture.supplyAsync(() -> Trace.call(trace, supplier), executor);
     }
 
     public <U> Promise<U> map(Function<T, U> function) {
-        return new Promise<>(() -> function.apply(supplier.get()), executor);
+        return new Promise<>(() -> {
+            T result = supplier.get();
+            long start = System.nanoTime();
+            U mapped = function.apply(result);
+            Trace.record(Stage.CONTINUATION, start);
+            return mapped;
+        }, executor, name);
     }
 
     public Promise<Void> consume(Consumer<T> consumer) {
         return new Promise<>(() -> {
-            consumer.accept(supplier.get());
+            T result = supplier.get();
+            long start = System.nanoTime();
+            consumer.accept(result);
+            Trace.record(Stage.CONTINUATION, start);
             return null;
-        }, executor);
+        }, executor, name);
     }
 
     public Promise<T> catching(Function<Throwable, ? extends T> function) {
@@ -54,10 +93,13 @@ public class Promise<T> {
                 try {
                     return supplier.get();
                 } catch (Throwable e) {
-                    return function.apply(e);
+                    long start = System.nanoTime();
+                    T result = function.apply(e);
+                    Trace.record(Stage.CONTINUATION, start);
+                    return result;
                 }
             },
-            executor);
+            executor, name);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.Results;
+import com.pascalnb.dbwrapper.priority.Priority;
+
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Action that reads all results of a query that returns multiple results, such as a script of multiple statements or
+ * a stored procedure, over a single connection in a single round trip.
+ *
+ * @param <T> the type of the mapped result
+ */
+public class ResultsDatabaseAction<T> extends StatementAction<Results, T> {
+
+    public ResultsDatabaseAction(Query query, Function<Results, T> mapper, Executor executor, Datasource datasource,
+        Priority priority) {
+        super(query, mapper, executor, datasource, priority);
+    }
+
+    @Override
+    Results read(Database database) {
+        return database.queryResults(getQuery());
+    }
+
+    @Override
+    public <U> DatabaseAction<U> mapping(Function<T, U> mapper) {
+        return new ResultsDatabaseAction<>(getQuery(), getMapper().andThen(mapper), getExecutor(), getDatasource(),
+            getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withExecutor(Executor executor) {
+        return new ResultsDatabaseAction<>(getQuery(), getMapper(), executor, getDatasource(), getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withDatasource(Datasource datasource) {
+        return new ResultsDatabaseAction<>(getQuery(), getMapper(), getExecutor(), datasource, getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withPriority(Priority priority) {
+        return new ResultsDatabaseAction<>(getQuery(), getMapper(), getExecutor(), getDatasource(), priority);
+    }
+
+}
\ No newline at end of file
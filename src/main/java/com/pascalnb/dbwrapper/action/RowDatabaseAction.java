@@ -0,0 +1,68 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.RowMapper;
+import com.pascalnb.dbwrapper.priority.Priority;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Action that maps the rows of the result with a {@link RowMapper} while they are read, without creating a table.
+ *
+ * @param <R> the type of the mapped rows
+ * @param <T> the type of the result
+ */
+public class RowDatabaseAction<R, T> extends StatementAction<List<R>, T> {
+
+    private final RowMapper<R> rowMapper;
+
+    public RowDatabaseAction(Query query, RowMapper<R> rowMapper, Function<List<R>, T> mapper, Executor executor) {
+        this(query, rowMapper, mapper, executor, null);
+    }
+
+    public RowDatabaseAction(Query query, RowMapper<R> rowMapper, Function<List<R>, T> mapper, Executor executor,
+        Datasource datasource) {
+        this(query, rowMapper, mapper, executor, datasource, Priority.NORMAL);
+    }
+
+    public RowDatabaseAction(Query query, RowMapper<R> rowMapper, Function<List<R>, T> mapper, Executor executor,
+        Datasource datasource, Priority priority) {
+        super(query, mapper, executor, datasource, priority);
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    List<R> read(Database database) {
+        return database.queryStatement(getQuery(), rowMapper);
+    }
+
+    @Override
+    public <U> DatabaseAction<U> mapping(Function<T, U> mapper) {
+        return new RowDatabaseAction<>(getQuery(), rowMapper, getMapper().andThen(mapper), getExecutor(),
+            getDatasource(), getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withExecutor(Executor executor) {
+        return new RowDatabaseAction<>(getQuery(), rowMapper, getMapper(), executor, getDatasource(), getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withDatasource(Datasource datasource) {
+        return new RowDatabaseAction<>(getQuery(), rowMapper, getMapper(), getExecutor(), datasource, getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withPriority(Priority priority) {
+        return new RowDatabaseAction<>(getQuery(), rowMapper, getMapper(), getExecutor(), getDatasource(), priority);
+    }
+
+    public RowMapper<R> getRowMapper() {
+        return rowMapper;
+    }
+
+}
\ No newline at end of file
@@ -1,72 +1,53 @@
 package com.pascalnb.dbwrapper.action;
 
 import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.Datasource;
 import com.pascalnb.dbwrapper.Query;
 import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.priority.Priority;
 
 import java.util.concurrent.Executor;
 import java.util.function.Function;
 
-public class SingleDatabaseAction<T> implements DatabaseAction<T> {
-
-    private final Query query;
-    private final Function<Table, T> mapper;
-    private final Executor executor;
+public class SingleDatabaseAction<T> extends StatementAction<Table, T> {
 
     public SingleDatabaseAction(Query query, Function<Table, T> mapper, Executor executor) {
-        this.query = query;
-        this.mapper = mapper;
-        this.executor = executor;
+        this(query, mapper, executor, null);
     }
 
-    @Override
-    public Promise<T> query() {
-        return new Promise<>(() -> {
-            Table table;
-            Database database = Database.getInstance().connect();
-            try {
-                table = database.queryStatement(query);
-            } finally {
-                database.close();
-            }
-            return mapper.apply(table);
-        }, executor);
+    public SingleDatabaseAction(Query query, Function<Table, T> mapper, Executor executor, Datasource datasource) {
+        this(query, mapper, executor, datasource, Priority.NORMAL);
+    }
+
+    public SingleDatabaseAction(Query query, Function<Table, T> mapper, Executor executor, Datasource datasource,
+        Priority priority) {
+        super(query, mapper, executor, datasource, priority);
     }
 
     @Override
-    public Promise<Void> execute() {
-        return new Promise<>(() -> {
-            Database database = Database.getInstance().connect();
-            try {
-                database.executeStatement(query);
-            } finally {
-                database.close();
-            }
-            return null;
-        }, executor);
+    Table read(Database database) {
+        return database.queryStatement(getQuery());
     }
 
     @Override
     public <U> DatabaseAction<U> mapping(Function<T, U> mapper) {
-        return new SingleDatabaseAction<>(query, this.mapper.andThen(mapper), executor);
+        return new SingleDatabaseAction<>(getQuery(), getMapper().andThen(mapper), getExecutor(), getDatasource(),
+            getPriority());
     }
 
     @Override
     public DatabaseAction<T> withExecutor(Executor executor) {
-        return new SingleDatabaseAction<>(query, mapper, executor);
+        return new SingleDatabaseAction<>(getQuery(), getMapper(), executor, getDatasource(), getPriority());
     }
 
-    public Query getQuery() {
-        return query;
-    }
-
-    public Function<Table, T> getMapper() {
-        return mapper;
+    @Override
+    public DatabaseAction<T> withDatasource(Datasource datasource) {
+        return new SingleDatabaseAction<>(getQuery(), getMapper(), getExecutor(), datasource, getPriority());
     }
 
     @Override
-    public Executor getExecutor() {
-        return executor;
+    public DatabaseAction<T> withPriority(Priority priority) {
+        return new SingleDatabaseAction<>(getQuery(), getMapper(), getExecutor(), getDatasource(), priority);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.ResultRow;
+import com.pascalnb.dbwrapper.RowMapper;
+import com.pascalnb.dbwrapper.priority.Priority;
+import com.pascalnb.dbwrapper.priority.PriorityGate;
+import org.jetbrains.annotations.Contract;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Query that keeps its result in memory as a map by key column, refreshed with only the rows that changed since the
+ * last refresh instead of reloading the whole result.
+ * <br><br>
+ * Every row must have a watermark column that increases whenever the row changes, such as a modification time or a
+ * version number. After the initial load, a refresh only reads the rows at or past the highest watermark seen so far,
+ * so rows committed late with the same watermark are not missed. Of the rows at that watermark, only those that
+ * differ from the columns last applied are applied again, so a row that changed twice at the same watermark is not
+ * missed either. Rows that the row mapper maps to null are removed
+ * from the map, which allows soft-deleted rows to be dropped; rows deleted from the table are not noticed. The query
+ * cannot have a list argument that is split into multiple statements, as the rows are read in order of the watermark.
+ * <br><br>
+ * Readers see immutable versions of the map: a refresh copies the map, applies the changed rows and publishes the
+ * copy, so reads never lock and never see a partially applied refresh.
+ *
+ * @param <V> the type of the mapped rows
+ */
+@SuppressWarnings("unused")
+public class SnapshotQuery<V> {
+
+    private final Query query;
+    private final String key;
+    private final String watermark;
+    private final RowMapper<V> mapper;
+    private final Datasource datasource;
+    private final Priority priority;
+
+    SnapshotQuery(Query query, String key, String watermark, RowMapper<V> mapper, Datasource datasource,
+        Priority priority) {
+        if (query.split().size() > 1) {
+            throw new DatabaseException("A snapshot query cannot be split into multiple statements");
+        }
+        this.query = query;
+        this.key = key;
+        this.watermark = watermark;
+        this.mapper = mapper;
+        this.datasource = datasource;
+        this.priority = priority;
+    }
+
+    /**
+     * @param datasource the datasource, or null for the default database
+     * @return a new snapshot query
+     */
+    @Contract("_ -> new")
+    public SnapshotQuery<V> withDatasource(Datasource datasource) {
+        return new SnapshotQuery<>(query, key, watermark, mapper, datasource, priority);
+    }
+
+    /**
+     * @param priority the priority of the connections of the load and the refreshes
+     * @return a new snapshot query
+     */
+    @Contract("_ -> new")
+    public SnapshotQuery<V> withPriority(Priority priority) {
+        return new SnapshotQuery<>(query, key, watermark, mapper, datasource, priority);
+    }
+
+    /**
+     * Loads the whole result.
+     *
+     * @return the snapshot of the result
+     * @throws DatabaseException if the query fails
+     */
+    public Snapshot<V> load() {
+        Snapshot<V> snapshot = new Snapshot<>(this);
+        snapshot.refresh();
+        return snapshot;
+    }
+
+    Query deltaQuery(String after) {
+        String sql = query.toString().strip();
+        if (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1);
+        }
+        StringBuilder builder = new StringBuilder("SELECT * FROM (").append(sql).append(") AS snapshot_delta");
+        Object[] args = query.getArgs();
+        if (after != null) {
+            builder.append(" WHERE ").append(watermark).append(" >= ?");
+            args = Arrays.copyOf(args, args.length + 1);
+            args[args.length - 1] = after;
+        }
+        builder.append(" ORDER BY ").append(watermark);
+        return new Query(builder.toString(), args);
+    }
+
+    private List<Row<V>> fetch(String after) {
+        RowMapper<Row<V>> rows = new RowMapper<>() {
+            @Override
+            public Row<V> map(ResultRow row) {
+                return bind(row).map(row);
+            }
+
+            @Override
+            public RowMapper<Row<V>> bind(ResultRow row) {
+                int keyIndex = indexOf(row, key);
+                int watermarkIndex = indexOf(row, watermark);
+                RowMapper<V> bound = mapper.bind(row);
+                return r -> {
+                    String id = r.getString(keyIndex);
+                    String mark = r.getString(watermarkIndex);
+                    if (mark == null) {
+                        throw new DatabaseException("Watermark of row " + id + " is null");
+                    }
+                    String[] columns = new String[r.getColumnCount()];
+                    for (int i = 0; i < columns.length; i++) {
+                        columns[i] = r.getString(i);
+                    }
+                    return new Row<>(id, mark, columns, bound.map(r));
+                };
+            }
+        };
+        PriorityGate.Permit permit = Admission.acquire(priority);
+        try {
+            Database database = Database.getInstance(datasource).connect();
+            try {
+                return database.queryStatement(deltaQuery(after), rows);
+            } finally {
+                database.close();
+            }
+        } finally {
+            permit.close();
+        }
+    }
+
+    private static int indexOf(ResultRow row, String column) {
+        int index = row.indexOf(column);
+        if (index == -1) {
+            throw new DatabaseException("Column " + column + " not found");
+        }
+        return index;
+    }
+
+    private record Row<V>(String key, String watermark, String[] columns, V value) {
+    }
+
+    /**
+     * An immutable version of the result.
+     *
+     * @param number    the number of the version, increased by every refresh that changed rows
+     * @param values    the unmodifiable map of the mapped rows by key
+     * @param watermark the highest watermark in the version, or null if the result was empty
+     * @param <V>       the type of the mapped rows
+     */
+    public record Version<V>(long number, Map<String, V> values, String watermark) {
+
+        /**
+         * @param key the key
+         * @return the mapped row with the given key, or null if there is none
+         */
+        public V get(String key) {
+            return values.get(key);
+        }
+
+        /**
+         * @return the number of rows
+         */
+        public int size() {
+            return values.size();
+        }
+
+    }
+
+    /**
+     * The result of a snapshot query in memory, which must be closed when it is refreshed periodically.
+     *
+     * @param <V> the type of the mapped rows
+     */
+    public static final class Snapshot<V> implements AutoCloseable {
+
+        private final SnapshotQuery<V> source;
+        // serializes refreshes, never held by readers
+        private final Object lock = new Object();
+        private volatile Version<V> version = new Version<>(0, Map.of(), null);
+        // columns of the rows at the current watermark as last applied by key, which the next refresh reads again
+        private Map<String, String[]> atWatermark = Map.of();
+        private ScheduledExecutorService scheduler = null;
+
+        private Snapshot(SnapshotQuery<V> source) {
+            this.source = source;
+        }
+
+        /**
+         * @return the current version
+         */
+        public Version<V> current() {
+            return version;
+        }
+
+        /**
+         * @param key the key
+         * @return the mapped row with the given key in the current version, or null if there is none
+         */
+        public V get(String key) {
+            return version.get(key);
+        }
+
+        /**
+         * Reads the rows that changed since the last refresh and publishes a new version if there are any.
+         *
+         * @return the current version after the refresh
+         * @throws DatabaseException if the query fails, in which case the current version is kept
+         */
+        public Version<V> refresh() {
+            synchronized (lock) {
+                Version<V> current = version;
+                List<Row<V>> rows = source.fetch(current.watermark());
+                Map<String, V> values = null;
+                String last = current.watermark();
+                Map<String, String[]> lastRows = atWatermark;
+                for (Row<V> row : rows) {
+                    if (row.watermark().equals(current.watermark())
+                        && Arrays.equals(atWatermark.get(row.key()), row.columns())) {
+                        // already applied by a previous refresh
+                        continue;
+                    }
+                    if (values == null) {
+                        values = new HashMap<>(current.values());
+                    }
+                    if (row.value() == null) {
+                        values.remove(row.key());
+                    } else {
+                        values.put(row.key(), row.value());
+                    }
+                    if (!row.watermark().equals(last)) {
+                        last = row.watermark();
+                        lastRows = new HashMap<>();
+                    } else if (lastRows == atWatermark) {
+                        lastRows = new HashMap<>(atWatermark);
+                    }
+                    lastRows.put(row.key(), row.columns());
+                }
+                if (values == null) {
+                    return current;
+                }
+                atWatermark = lastRows;
+                version = new Version<>(current.number() + 1, Collections.unmodifiableMap(values), last);
+                return version;
+            }
+        }
+
+        /**
+         * Refreshes this snapshot with the given fixed delay between refreshes on a background thread, until this
+         * snapshot is closed. A failed refresh keeps the current version and is passed to the error handler.
+         *
+         * @param interval     the delay between refreshes
+         * @param errorHandler the handler of failed refreshes
+         * @return this snapshot
+         * @throws DatabaseException if this snapshot is already refreshed periodically
+         */
+        @Contract("_, _ -> this")
+        public Snapshot<V> refreshEvery(Duration interval, Consumer<? super RuntimeException> errorHandler) {
+            synchronized (lock) {
+                if (scheduler != null) {
+                    throw new DatabaseException("Snapshot is already refreshed periodically");
+                }
+                scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "snapshot-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long nanos = interval.toNanos();
+                scheduler.scheduleWithFixedDelay(() -> {
+                    try {
+                        refresh();
+                    } catch (RuntimeException e) {
+                        errorHandler.accept(e);
+                    }
+                }, nanos, nanos, TimeUnit.NANOSECONDS);
+            }
+            return this;
+        }
+
+        /**
+         * Stops the periodic refreshes. The current version stays readable.
+         */
+        @Override
+        public void close() {
+            synchronized (lock) {
+                if (scheduler != null) {
+                    scheduler.shutdownNow();
+                    scheduler = null;
+                }
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
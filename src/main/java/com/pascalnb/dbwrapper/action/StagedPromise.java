@@ -32,6 +32,11 @@ public class StagedPromise<T> extends Promise<T> {
         throw new IllegalStateException("Promise is already staged");
     }
 
+    @Override
+    public CompletableFuture<T> toFuture() {
+        return future;
+    }
+
     @Override
     public <U> Promise<U> map(Function<T, U> function) {
         return new StagedPromise<>(future.thenApply(function));
@@ -45,4 +50,4 @@ public class StagedPromise<T> extends Promise<T> {
         return new StagedPromise<>(future.exceptionally(function));
     }
 
-}
+}
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.Results;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.jfr.MapEvent;
+import com.pascalnb.dbwrapper.metrics.SlowQueryLog;
+import com.pascalnb.dbwrapper.priority.Priority;
+import com.pascalnb.dbwrapper.priority.PriorityGate;
+import com.pascalnb.dbwrapper.trace.Stage;
+import com.pascalnb.dbwrapper.trace.Trace;
+
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Base of the actions that run a single query. The result is read while connected and mapped after the connection is
+ * closed. A {@link MultiDatabaseAction} runs these actions on its own shared connection.
+ *
+ * @param <R> the type of the result read from the database
+ * @param <T> the type of the mapped result
+ */
+abstract class StatementAction<R, T> implements DatabaseAction<T> {
+
+    private final Query query;
+    private final Function<R, T> mapper;
+    private final Executor executor;
+    private final Datasource datasource;
+    private final Priority priority;
+    // the code that created this action, for the slow query log
+    private final String callSite = SlowQueryLog.getInstance().callSite();
+
+    StatementAction(Query query, Function<R, T> mapper, Executor executor, Datasource datasource, Priority priority) {
+        this.query = query;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.datasource = datasource;
+        this.priority = priority;
+    }
+
+    /**
+     * Reads the result of the query from the given connected database.
+     *
+     * @param database the database
+     * @return the result
+     */
+    abstract R read(Database database);
+
+    /**
+     * Reads the result of the query from the given connected database and maps it.
+     *
+     * @param database the database
+     * @return the mapped result
+     */
+    T fetch(Database database) {
+        SlowQueryLog log = SlowQueryLog.getInstance();
+        log.beginAction(callSite);
+        R result;
+        try {
+            result = read(database);
+        } catch (RuntimeException | Error e) {
+            log.endAction(0);
+            throw e;
+        }
+        return map(result);
+    }
+
+    /**
+     * Maps the result read from the database, ending the action in the slow query log.
+     *
+     * @param result the result
+     * @return the mapped result
+     */
+    private T map(R result) {
+        MapEvent event = new MapEvent();
+        event.begin();
+        long start = System.nanoTime();
+        T mapped = null;
+        try {
+            mapped = mapper.apply(result);
+            return mapped;
+        } finally {
+            Trace.record(Stage.MAP, start);
+            SlowQueryLog.getInstance().endAction(System.nanoTime() - start);
+            if (event.isEnabled()) {
+                event.complete(query.toString(), rowsOf(result), mapped == null ? null : mapped.getClass());
+            }
+        }
+    }
+
+    private static int rowsOf(Object result) {
+        if (result instanceof Table table) {
+            return table.getRowCount();
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Results results) {
+            int rows = 0;
+            for (Table table : results) {
+                rows += table.getRowCount();
+            }
+            return rows;
+        }
+        return -1;
+    }
+
+    @Override
+    public Promise<T> query() {
+        return new Promise<>(() -> {
+            SlowQueryLog log = SlowQueryLog.getInstance();
+            log.beginAction(callSite);
+            R result;
+            try {
+                PriorityGate.Permit permit = Admission.acquire(priority);
+                try {
+                    Database database = Database.getInstance(datasource).connect();
+                    try {
+                        result = read(database);
+                    } finally {
+                        database.close();
+                    }
+                } finally {
+                    permit.close();
+                }
+            } catch (RuntimeException | Error e) {
+                log.endAction(0);
+                throw e;
+            }
+            return map(result);
+        }, executor, query.toString());
+    }
+
+    @Override
+    public Promise<Void> execute() {
+        return new Promise<>(() -> {
+            SlowQueryLog log = SlowQueryLog.getInstance();
+            PriorityGate.Permit permit = Admission.acquire(priority);
+            try {
+                Database database = Database.getInstance(datasource).connect();
+                log.beginAction(callSite);
+                try {
+                    database.executeStatement(query);
+                } finally {
+                    database.close();
+                    log.endAction(0);
+                }
+            } finally {
+                permit.close();
+            }
+            return null;
+        }, executor, query.toString());
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public Function<R, T> getMapper() {
+        return mapper;
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public Datasource getDatasource() {
+        return datasource;
+    }
+
+    @Override
+    public Priority getPriority() {
+        return priority;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.UpdateResult;
+import com.pascalnb.dbwrapper.priority.Priority;
+
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Action that executes a statement that modifies rows, of which the result is the update count and the keys generated
+ * by the database, so inserted ids do not need a second query.
+ *
+ * @param <T> the type of the mapped result
+ */
+public class UpdateDatabaseAction<T> extends StatementAction<UpdateResult, T> {
+
+    public UpdateDatabaseAction(Query query, Function<UpdateResult, T> mapper, Executor executor,
+        Datasource datasource, Priority priority) {
+        super(query, mapper, executor, datasource, priority);
+    }
+
+    @Override
+    UpdateResult read(Database database) {
+        return database.updateStatement(getQuery());
+    }
+
+    @Override
+    public <U> DatabaseAction<U> mapping(Function<T, U> mapper) {
+        return new UpdateDatabaseAction<>(getQuery(), getMapper().andThen(mapper), getExecutor(), getDatasource(),
+            getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withExecutor(Executor executor) {
+        return new UpdateDatabaseAction<>(getQuery(), getMapper(), executor, getDatasource(), getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withDatasource(Datasource datasource) {
+        return new UpdateDatabaseAction<>(getQuery(), getMapper(), getExecutor(), datasource, getPriority());
+    }
+
+    @Override
+    public DatabaseAction<T> withPriority(Priority priority) {
+        return new UpdateDatabaseAction<>(getQuery(), getMapper(), getExecutor(), getDatasource(), priority);
+    }
+
+}
\ No newline at end of file
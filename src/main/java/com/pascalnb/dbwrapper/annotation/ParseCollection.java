@@ -0,0 +1,22 @@
+package com.pascalnb.dbwrapper.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link java.util.List}, {@link java.util.Set} or {@link java.util.Collection} field that is filled with the
+ * nested objects of a one-to-many join when mapping to an object graph. The element type is mapped from the same
+ * rows, with its columns optionally prefixed.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ParseCollection {
+
+    /**
+     * @return the prefix of the columns of the nested objects, e.g. {@code item_} for {@code item_id}
+     */
+    String prefix() default "";
+
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.pascalnb.dbwrapper.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the constructor that is used to create instances of a class when mapping rows to objects. The parameters are
+ * mapped to columns by their {@link ParseField} names, or by their parameter names when compiled with
+ * {@code -parameters}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.CONSTRUCTOR)
+public @interface ParseConstructor {
+
+}
\ No newline at end of file
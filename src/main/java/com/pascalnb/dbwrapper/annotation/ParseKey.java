@@ -0,0 +1,16 @@
+package com.pascalnb.dbwrapper.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field as (part of) the identity of an object. When mapping joined rows to an object graph, rows with equal
+ * key values are materialized as a single object.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface ParseKey {
+
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.pascalnb.dbwrapper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for preparing and executing a statement, without fetching its result.
+ */
+@Name("com.pascalnb.dbwrapper.Execute")
+@Label("Database Execute")
+@Description("Preparing and executing a statement")
+@Category({"dbwrapper", "Database"})
+public final class ExecuteEvent extends Event {
+
+    @Label("SQL")
+    private String sql;
+
+    @Label("Arguments")
+    private int arguments;
+
+    @Label("Connection")
+    private int connection;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeds the threshold.
+     *
+     * @param sql        the SQL template of the statement
+     * @param arguments  the number of bound arguments
+     * @param connection the identity of the connection
+     * @param succeeded  whether the statement executed without error
+     */
+    public void complete(String sql, int arguments, int connection, boolean succeeded) {
+        if (shouldCommit()) {
+            this.sql = sql;
+            this.arguments = arguments;
+            this.connection = connection;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+
+}
\ No newline at end of file
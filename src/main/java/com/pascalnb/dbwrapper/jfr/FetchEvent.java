@@ -0,0 +1,50 @@
+package com.pascalnb.dbwrapper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for reading the rows of a result.
+ */
+@Name("com.pascalnb.dbwrapper.Fetch")
+@Label("Database Fetch")
+@Description("Reading the rows of a result")
+@Category({"dbwrapper", "Database"})
+@StackTrace(false)
+public final class FetchEvent extends Event {
+
+    @Label("SQL")
+    private String sql;
+
+    @Label("Rows")
+    private int rows;
+
+    @Label("Columns")
+    private int columns;
+
+    @Label("Connection")
+    private int connection;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeds the threshold.
+     *
+     * @param sql        the SQL template of the statement
+     * @param rows       the number of rows read
+     * @param columns    the number of columns of the result
+     * @param connection the identity of the connection
+     */
+    public void complete(String sql, int rows, int columns, int connection) {
+        if (shouldCommit()) {
+            this.sql = sql;
+            this.rows = rows;
+            this.columns = columns;
+            this.connection = connection;
+            commit();
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.pascalnb.dbwrapper.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for mapping the result of a query after it has been read.
+ */
+@Name("com.pascalnb.dbwrapper.Map")
+@Label("Database Map")
+@Description("Mapping the result of a query")
+@Category({"dbwrapper", "Database"})
+@StackTrace(false)
+public final class MapEvent extends Event {
+
+    @Label("SQL")
+    private String sql;
+
+    @Label("Rows")
+    @Description("Number of rows that were mapped, or -1 if unknown")
+    private int rows;
+
+    @Label("Result Type")
+    private Class<?> resultType;
+
+    /**
+     * Ends the event and commits it if it is enabled and exceeds the threshold.
+     *
+     * @param sql        the SQL template of the query
+     * @param rows       the number of rows mapped, or -1 if unknown
+     * @param resultType the class of the mapped result, or null
+     */
+    public void complete(String sql, int rows, Class<?> resultType) {
+        if (shouldCommit()) {
+            this.sql = sql;
+            this.rows = rows;
+            this.resultType = resultType;
+            commit();
+        }
+    }
+
+}
\ No newline at end of file
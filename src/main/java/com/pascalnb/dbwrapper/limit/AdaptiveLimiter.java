@@ -0,0 +1,424 @@
+package com.pascalnb.dbwrapper.limit;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.priority.Priority;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of database actions that run concurrently to a limit that adapts to the observed latency with
+ * additive increase and multiplicative decrease. The limiter is disabled until enabled.
+ * <br><br>
+ * Every statement is a latency sample. The limiter compares the recent latency, smoothed over a short window of
+ * samples, with the baseline, smoothed over a long window, so the signal is the gradient of the latency rather than
+ * its distance to the fastest statement ever seen, and a database that is permanently slower becomes the new baseline.
+ * When the recent latency exceeds the baseline times the tolerance, the database is considered overloaded and the
+ * limit is multiplied by the backoff, at most once per recent latency. Otherwise the limit grows by one per limit of
+ * samples while at least half of it is used. Actions above the limit wait in a bounded queue, in which the highest
+ * priority is admitted first and actions of the same priority in order of arrival. When the queue is full, the newest
+ * action of the lowest priority is rejected with a {@link LimitExceededException}, so work of a higher priority never
+ * fails because lower priority work filled the queue. Actions that wait longer than the timeout are rejected as well,
+ * before connecting, so overload does not pile up threads and connections.
+ */
+@SuppressWarnings("unused")
+public final class AdaptiveLimiter implements LimiterMXBean {
+
+    private static final Permit NONE = () -> {};
+    // number of samples over which the recent latency and the baseline are smoothed
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 500;
+    private static final AdaptiveLimiter INSTANCE = new AdaptiveLimiter();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // the waiting actions per priority, from highest to lowest priority
+    private final List<ArrayDeque<Waiter>> queues = new ArrayList<>();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean enabled = false;
+    private int minLimit = 1;
+    private int maxLimit = 200;
+    private double limit = 20;
+    private int maxQueue = 100;
+    private long timeoutNanos = TimeUnit.SECONDS.toNanos(1);
+    private double tolerance = 2;
+    private double backoff = 0.9;
+    private int inFlight = 0;
+    private int queued = 0;
+    private double recentNanos = 0;
+    private double baselineNanos = 0;
+    private long lastDecrease = 0;
+    private boolean decreased = false;
+
+    private AdaptiveLimiter() {
+        for (int i = 0; i < Priority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    public static AdaptiveLimiter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enables or disables the limiter. Disabling admits all waiting actions.
+     *
+     * @param enabled whether actions are limited
+     * @return this limiter
+     */
+    public AdaptiveLimiter setEnabled(boolean enabled) {
+        lock.lock();
+        try {
+            this.enabled = enabled;
+            if (!enabled) {
+                while (queued > 0) {
+                    admit(poll());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * @param initial the initial limit, 20 by default
+     * @param min     the lowest limit, 1 by default
+     * @param max     the highest limit, 200 by default
+     * @return this limiter
+     */
+    public AdaptiveLimiter setLimits(int initial, int min, int max) {
+        if (min < 1 || initial < min || max < initial) {
+            throw new DatabaseException("Limits need 1 <= min <= initial <= max");
+        }
+        lock.lock();
+        try {
+            this.limit = initial;
+            this.minLimit = min;
+            this.maxLimit = max;
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * @param maxQueue the maximum number of waiting actions, 100 by default
+     * @param timeout  the maximum time an action waits, 1 second by default
+     * @return this limiter
+     */
+    public AdaptiveLimiter setQueue(int maxQueue, Duration timeout) {
+        lock.lock();
+        try {
+            this.maxQueue = maxQueue;
+            this.timeoutNanos = timeout.toNanos();
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * @param tolerance the factor of the baseline above which a latency signals overload, 2 by default
+     * @param backoff   the factor by which the limit decreases on overload, 0.9 by default
+     * @return this limiter
+     */
+    public AdaptiveLimiter setAdaptation(double tolerance, double backoff) {
+        if (tolerance <= 1 || backoff <= 0 || backoff >= 1) {
+            throw new DatabaseException("Adaptation needs tolerance > 1 and 0 < backoff < 1");
+        }
+        lock.lock();
+        try {
+            this.tolerance = tolerance;
+            this.backoff = backoff;
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Waits until an action of normal priority may run.
+     *
+     * @return the permit that ends the action when closed
+     * @throws LimitExceededException if the queue is full or the action waited longer than the timeout
+     */
+    public Permit acquire() {
+        return acquire(Priority.NORMAL);
+    }
+
+    /**
+     * Waits until an action of the given priority may run.
+     *
+     * @param priority the priority of the action
+     * @return the permit that ends the action when closed
+     * @throws LimitExceededException if the queue is full of actions of the same or a higher priority, if a higher
+     *                                priority action took its place in the queue, or if the action waited longer
+     *                                than the timeout
+     */
+    public Permit acquire(Priority priority) {
+        if (!enabled) {
+            return NONE;
+        }
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return new LimitPermit();
+            }
+            if (queued >= maxQueue && !evictBelow(priority.ordinal())) {
+                rejected.increment();
+                throw new LimitExceededException("Concurrency limit of " + (int) limit + " reached with " + queued
+                    + " waiting actions");
+            }
+            ArrayDeque<Waiter> queue = queues.get(priority.ordinal());
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.add(waiter);
+            queued++;
+            long nanos = timeoutNanos;
+            try {
+                while (!waiter.admitted) {
+                    if (waiter.evicted) {
+                        throw new LimitExceededException("Concurrency limit of " + (int) limit
+                            + " reached, and the queue was taken by actions of a higher priority than " + priority);
+                    }
+                    if (nanos <= 0) {
+                        queue.remove(waiter);
+                        queued--;
+                        rejected.increment();
+                        throw new LimitExceededException("Timed out after " + TimeUnit.NANOSECONDS.toMillis(
+                            timeoutNanos) + "ms waiting for the concurrency limit of " + (int) limit);
+                    }
+                    nanos = waiter.condition.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.admitted) {
+                    inFlight--;
+                    admitWaiters();
+                } else if (!waiter.evicted) {
+                    queue.remove(waiter);
+                    queued--;
+                }
+                Thread.currentThread().interrupt();
+                throw new DatabaseException(e);
+            }
+            return new LimitPermit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejects the newest waiting action of the lowest priority below the given one, if there is any.
+     */
+    private boolean evictBelow(int lane) {
+        for (int lower = queues.size() - 1; lower > lane; lower--) {
+            Waiter waiter = queues.get(lower).pollLast();
+            if (waiter != null) {
+                queued--;
+                rejected.increment();
+                waiter.evicted = true;
+                waiter.condition.signal();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Waiter poll() {
+        for (ArrayDeque<Waiter> queue : queues) {
+            Waiter waiter = queue.poll();
+            if (waiter != null) {
+                queued--;
+                return waiter;
+            }
+        }
+        // not reached while actions are queued
+        return null;
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void sample(long latencyNanos) {
+        lock.lock();
+        try {
+            double latency = Math.max(latencyNanos, 1);
+            if (baselineNanos == 0) {
+                recentNanos = latency;
+                baselineNanos = latency;
+            } else {
+                recentNanos += (latency - recentNanos) / SHORT_WINDOW;
+                baselineNanos += (latency - baselineNanos) / LONG_WINDOW;
+            }
+
+            if (recentNanos > baselineNanos * tolerance) {
+                long now = System.nanoTime();
+                // the statements that started before the last decrease have not seen its effect yet
+                if (!decreased || now - lastDecrease >= recentNanos) {
+                    limit = Math.max(minLimit, limit * backoff);
+                    lastDecrease = now;
+                    decreased = true;
+                }
+            } else if (inFlight >= limit / 2) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void admitWaiters() {
+        while (queued > 0 && inFlight < (int) limit) {
+            admit(poll());
+        }
+    }
+
+    private void admit(Waiter waiter) {
+        waiter.admitted = true;
+        inFlight++;
+        waiter.condition.signal();
+    }
+
+    @Override
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public double getBaselineMillis() {
+        lock.lock();
+        try {
+            return baselineNanos / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public double getRecentMillis() {
+        lock.lock();
+        try {
+            return recentNanos / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clears the adapted limit, latencies and rejection count, keeping the configuration.
+     *
+     * @param initial the limit to restart from
+     */
+    public void reset(int initial) {
+        lock.lock();
+        try {
+            limit = Math.max(minLimit, Math.min(maxLimit, initial));
+            recentNanos = 0;
+            baselineNanos = 0;
+            decreased = false;
+            rejected.reset();
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The admission of an action, which ends when closed.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        /**
+         * Records the latency of a statement of the action, which does nothing if the limiter was disabled when the
+         * permit was acquired.
+         *
+         * @param latencyNanos the latency in nanoseconds
+         */
+        default void sample(long latencyNanos) {
+        }
+
+        @Override
+        void close();
+
+    }
+
+    private static final class Waiter {
+
+        private final Condition condition;
+        private boolean admitted = false;
+        private boolean evicted = false;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+
+    }
+
+    private final class LimitPermit implements Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void sample(long latencyNanos) {
+            if (!released.get()) {
+                AdaptiveLimiter.this.sample(latencyNanos);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
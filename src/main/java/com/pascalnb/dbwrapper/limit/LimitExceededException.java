@@ -0,0 +1,17 @@
+package com.pascalnb.dbwrapper.limit;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+
+/**
+ * Thrown when the {@link AdaptiveLimiter} rejects an action because its queue is full or the action waited too long.
+ * The action has not connected to the database, so it can safely be retried later.
+ */
+public class LimitExceededException extends DatabaseException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.pascalnb.dbwrapper.limit;
+
+/**
+ * Management interface of the adaptive concurrency limiter.
+ */
+public interface LimiterMXBean {
+
+    /**
+     * @return the current number of actions that may run concurrently
+     */
+    int getLimit();
+
+    int getInFlight();
+
+    int getQueueDepth();
+
+    /**
+     * @return the number of actions rejected because the queue was full or they timed out
+     */
+    long getRejected();
+
+    /**
+     * @return the latency the limiter considers normal, smoothed over a long window of statements, in milliseconds
+     */
+    double getBaselineMillis();
+
+    /**
+     * @return the latency smoothed over a short window of statements, in milliseconds
+     */
+    double getRecentMillis();
+
+}
\ No newline at end of file
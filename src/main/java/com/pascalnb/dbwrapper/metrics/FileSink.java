@@ -0,0 +1,52 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sink that appends the entries of the {@link SlowQueryLog} to a file, one line per entry.
+ */
+public class FileSink implements SlowQuerySink, Closeable {
+
+    private final BufferedWriter writer;
+
+    /**
+     * @param path the file to append to, created if it does not exist
+     */
+    public FileSink(Path path) {
+        try {
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    @Override
+    public synchronized void accept(SlowQuery query) {
+        try {
+            writer.write(query.toString());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+}
\ No newline at end of file
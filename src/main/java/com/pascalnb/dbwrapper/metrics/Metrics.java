@@ -0,0 +1,330 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.limit.AdaptiveLimiter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the metrics of all database work: connection times, statement latencies per SQL statement, rows
+ * fetched, errors by SQLState and the number of connections and statements in flight.
+ * <br><br>
+ * Recording is lock-free. The metrics can be published as JMX MXBeans with {@link #publish()}, and every recorded
+ * value is also passed to the registered {@link MetricsListener}s.
+ */
+@SuppressWarnings("unused")
+public final class Metrics implements MetricsMXBean {
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private static final String DOMAIN = "com.pascalnb.dbwrapper";
+    private static final int MAX_TEMPLATES = 1000;
+    private static final String OTHER_TEMPLATE = "<other>";
+    private static final String UNKNOWN_STATE = "unknown";
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final LatencyHistogram statementLatency = new LatencyHistogram();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Map<String, QueryTemplate> templates = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = true;
+    private volatile MBeanServer server = null;
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enables or disables recording. The number of open connections and statements in flight is always tracked.
+     *
+     * @param enabled whether to record metrics
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addListener(MetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(MetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records that a connection was opened.
+     *
+     * @param nanos the time it took to open the connection
+     */
+    public void connected(long nanos) {
+        openConnections.incrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        connections.increment();
+        connectLatency.record(nanos);
+        for (MetricsListener listener : listeners) {
+            listener.connected(nanos);
+        }
+    }
+
+    /**
+     * Records that a connection was closed.
+     */
+    public void disconnected() {
+        openConnections.decrementAndGet();
+    }
+
+    /**
+     * Records the start of a statement. Every call must be followed by a call to {@link #statementFinished}.
+     *
+     * @return the start time to pass to {@link #statementFinished}
+     */
+    public long statementStarted() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the end of a statement.
+     *
+     * @param sql   the SQL of the statement
+     * @param start the start time returned by {@link #statementStarted()}
+     * @param rows  the number of rows fetched, or -1 for statements without result
+     * @param error the error the statement failed with, or null
+     */
+    public void statementFinished(String sql, long start, int rows, Throwable error) {
+        long nanos = System.nanoTime() - start;
+        inFlight.decrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        String state = error == null ? null : sqlStateOf(error);
+
+        statements.increment();
+        statementLatency.record(nanos);
+        if (rows > 0) {
+            this.rows.add(rows);
+        }
+        if (state != null) {
+            errors.computeIfAbsent(state, s -> new LongAdder()).increment();
+        }
+        templateOf(sql).record(nanos, rows, state != null);
+
+        for (MetricsListener listener : listeners) {
+            listener.executed(sql, nanos, rows, state);
+        }
+    }
+
+    private static String sqlStateOf(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return sqlException.getSQLState();
+            }
+        }
+        return UNKNOWN_STATE;
+    }
+
+    private QueryTemplate templateOf(String sql) {
+        QueryTemplate template = templates.get(sql);
+        if (template != null) {
+            return template;
+        }
+        // statements with inlined values would otherwise grow the registry without bound
+        String key = templates.size() < MAX_TEMPLATES ? sql : OTHER_TEMPLATE;
+        return templates.computeIfAbsent(key, s -> {
+            QueryTemplate created = new QueryTemplate(s);
+            register(created);
+            return created;
+        });
+    }
+
+    /**
+     * Returns the metrics of the given SQL statement, or null if it has not been executed.
+     *
+     * @param sql the SQL of the statement
+     * @return the metrics
+     */
+    public QueryTemplate getTemplate(String sql) {
+        return templates.get(sql);
+    }
+
+    /**
+     * @return the metrics of all executed SQL statements
+     */
+    public Collection<QueryTemplate> getTemplates() {
+        return Collections.unmodifiableCollection(templates.values());
+    }
+
+    public LatencyHistogram getConnectLatency() {
+        return connectLatency;
+    }
+
+    public LatencyHistogram getStatementLatency() {
+        return statementLatency;
+    }
+
+    /**
+     * Registers the metrics as MXBeans on the platform MBean server, under the {@code com.pascalnb.dbwrapper}
+     * domain with one {@code QueryTemplate} bean per SQL statement and a {@code Limiter} bean of the
+     * {@link AdaptiveLimiter}.
+     */
+    public synchronized void publish() {
+        if (server != null) {
+            return;
+        }
+        server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(DOMAIN + ":type=Metrics"));
+            server.registerMBean(AdaptiveLimiter.getInstance(), new ObjectName(DOMAIN + ":type=Limiter"));
+        } catch (JMException e) {
+            server = null;
+            throw new DatabaseException(e);
+        }
+        templates.values().forEach(this::register);
+    }
+
+    /**
+     * Unregisters all MXBeans registered by {@link #publish()}.
+     */
+    public synchronized void unpublish() {
+        MBeanServer current = server;
+        if (current == null) {
+            return;
+        }
+        server = null;
+        try {
+            for (ObjectName name : current.queryNames(new ObjectName(DOMAIN + ":*"), null)) {
+                current.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new DatabaseException(e);
+        }
+    }
+
+    private void register(QueryTemplate template) {
+        MBeanServer current = server;
+        if (current == null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=QueryTemplate,name=" +
+                ObjectName.quote(template.getSql()));
+            if (!current.isRegistered(name)) {
+                current.registerMBean(template, name);
+            }
+        } catch (JMException ignored) {
+            // registered concurrently
+        }
+    }
+
+    @Override
+    public long getConnections() {
+        return connections.sum();
+    }
+
+    @Override
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    @Override
+    public double getConnectMeanMillis() {
+        return connectLatency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getConnectP99Millis() {
+        return connectLatency.getPercentileMillis(99);
+    }
+
+    @Override
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    @Override
+    public int getStatementsInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getRowsFetched() {
+        return rows.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        Map<String, Long> result = new TreeMap<>();
+        errors.forEach((state, count) -> result.put(state, count.sum()));
+        return result;
+    }
+
+    @Override
+    public double getStatementMeanMillis() {
+        return statementLatency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getStatementP50Millis() {
+        return statementLatency.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getStatementP99Millis() {
+        return statementLatency.getPercentileMillis(99);
+    }
+
+    /**
+     * Clears all recorded metrics, except for the number of open connections and statements in flight.
+     */
+    @Override
+    public void reset() {
+        connectLatency.reset();
+        statementLatency.reset();
+        connections.reset();
+        statements.reset();
+        rows.reset();
+        errors.clear();
+        templates.clear();
+        MBeanServer current = server;
+        if (current != null) {
+            try {
+                for (ObjectName name : current.queryNames(new ObjectName(DOMAIN + ":type=QueryTemplate,*"), null)) {
+                    current.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                throw new DatabaseException(e);
+            }
+        }
+    }
+
+}
\ No newline at end of file
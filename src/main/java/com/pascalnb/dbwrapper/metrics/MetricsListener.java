@@ -0,0 +1,28 @@
+package com.pascalnb.dbwrapper.metrics;
+
+/**
+ * Listener that is notified of everything that is recorded by {@link Metrics}, e.g. to forward it to another metrics
+ * library. Listeners are called on the thread that did the work, so they should return quickly.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when a connection to the database was opened.
+     *
+     * @param nanos the time it took to open the connection
+     */
+    default void connected(long nanos) {
+    }
+
+    /**
+     * Called when a statement has been executed, successfully or not.
+     *
+     * @param sql   the SQL of the statement
+     * @param nanos the time it took to execute the statement and fetch its result
+     * @param rows  the number of rows fetched, or -1 for statements without result
+     * @param error the SQLState of the error, or null if the statement succeeded
+     */
+    default void executed(String sql, long nanos, int rows, String error) {
+    }
+
+}
\ No newline at end of file
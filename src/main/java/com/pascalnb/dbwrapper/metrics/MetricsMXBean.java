@@ -0,0 +1,37 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the global database metrics.
+ */
+public interface MetricsMXBean {
+
+    long getConnections();
+
+    int getOpenConnections();
+
+    double getConnectMeanMillis();
+
+    double getConnectP99Millis();
+
+    long getStatements();
+
+    int getStatementsInFlight();
+
+    long getRowsFetched();
+
+    /**
+     * @return the number of errors by SQLState
+     */
+    Map<String, Long> getErrors();
+
+    double getStatementMeanMillis();
+
+    double getStatementP50Millis();
+
+    double getStatementP99Millis();
+
+    void reset();
+
+}
\ No newline at end of file
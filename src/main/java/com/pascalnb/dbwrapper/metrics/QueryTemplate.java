@@ -0,0 +1,81 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a single SQL statement.
+ */
+public class QueryTemplate implements QueryTemplateMXBean {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String sql;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    QueryTemplate(String sql) {
+        this.sql = sql;
+    }
+
+    void record(long nanos, int rows, boolean error) {
+        latency.record(nanos);
+        if (rows > 0) {
+            this.rows.add(rows);
+        }
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latency.getPercentileMillis(90);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMax() / NANOS_PER_MILLI;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.pascalnb.dbwrapper.metrics;
+
+/**
+ * Management interface of the metrics of a single SQL statement.
+ */
+public interface QueryTemplateMXBean {
+
+    String getSql();
+
+    long getCount();
+
+    long getRows();
+
+    long getErrors();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+}
\ No newline at end of file
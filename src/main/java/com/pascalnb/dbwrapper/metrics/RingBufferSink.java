@@ -0,0 +1,54 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sink that keeps the most recent entries of the {@link SlowQueryLog} in memory.
+ */
+public class RingBufferSink implements SlowQuerySink {
+
+    private final SlowQuery[] entries;
+    private long written = 0;
+
+    /**
+     * @param capacity the number of entries to keep
+     */
+    public RingBufferSink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.entries = new SlowQuery[capacity];
+    }
+
+    @Override
+    public synchronized void accept(SlowQuery query) {
+        entries[(int) (written++ % entries.length)] = query;
+    }
+
+    /**
+     * @return the kept entries, oldest first
+     */
+    public synchronized List<SlowQuery> getEntries() {
+        int size = (int) Math.min(written, entries.length);
+        List<SlowQuery> result = new ArrayList<>(size);
+        for (long i = written - size; i < written; i++) {
+            result.add(entries[(int) (i % entries.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of entries that have been passed to this sink, including those no longer kept
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(entries, null);
+        written = 0;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An entry of the {@link SlowQueryLog}.
+ *
+ * @param time          the time the statement finished
+ * @param fingerprint   the {@link SqlFingerprint} of the statement
+ * @param sql           the SQL of the statement
+ * @param argumentTypes the simple class names of the bound arguments, or {@code null} for null arguments
+ * @param rows          the number of rows returned, or -1 for statements without result
+ * @param executeNanos  the time it took to execute the statement
+ * @param fetchNanos    the time it took to fetch the rows
+ * @param mapNanos      the time it took to map the result, or 0 if it was not mapped by an action
+ * @param callSite      the class, method, file and line of the code that created the action that ran the statement,
+ *                      or null if it was run directly or the log was disabled when the action was created
+ * @param thread        the name of the thread that ran the statement
+ */
+public record SlowQuery(Instant time, String fingerprint, String sql, List<String> argumentTypes, int rows,
+    long executeNanos, long fetchNanos, long mapNanos, String callSite, String thread) {
+
+    /**
+     * @return the total time of the statement in nanoseconds
+     */
+    public long totalNanos() {
+        return executeNanos + fetchNanos + mapNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s %.3fms (execute %.3fms, fetch %.3fms, map %.3fms) rows=%d site=%s thread=%s args=%s %s",
+            time, millis(totalNanos()), millis(executeNanos), millis(fetchNanos), millis(mapNanos), rows, callSite,
+            thread, argumentTypes, fingerprint);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,280 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import com.pascalnb.dbwrapper.Query;
+
+import java.security.CodeSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log of the statements that exceed the execute time, fetch time or row count thresholds.
+ * <br><br>
+ * The log is disabled until a sink is set. Statements that exceed a threshold are sampled with the sample rate and the
+ * number of entries per second is limited, so only the threshold checks run for every statement. When a statement is
+ * run by a database action, the entry is completed with the time the action took to map the result and the call site
+ * that created the action before it is logged.
+ * <br><br>
+ * The sink is called on the thread that ran the statement. Entries that the sink fails to accept are dropped and
+ * counted, so a failing sink, such as a file on a full disk, never fails the statement.
+ */
+@SuppressWarnings("unused")
+public final class SlowQueryLog {
+
+    private static final SlowQueryLog INSTANCE = new SlowQueryLog();
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final CodeSource LIBRARY = SlowQueryLog.class.getProtectionDomain().getCodeSource();
+    // whether the frames of a class are part of this library or the platform, and therefore not a call site
+    private static final ClassValue<Boolean> INTERNAL = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            String name = type.getName();
+            if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.")) {
+                return true;
+            }
+            return name.startsWith("com.pascalnb.dbwrapper.")
+                && Objects.equals(type.getProtectionDomain().getCodeSource(), LIBRARY);
+        }
+    };
+
+    private final ThreadLocal<Pending> pending = ThreadLocal.withInitial(Pending::new);
+    // the time at which the rate limiter has no permits left
+    private final AtomicLong permitsExhaustedAt = new AtomicLong(System.nanoTime() - NANOS_PER_SECOND);
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile SlowQuerySink sink = null;
+    private volatile long executeThreshold = TimeUnit.MILLISECONDS.toNanos(100);
+    private volatile long fetchThreshold = TimeUnit.MILLISECONDS.toNanos(100);
+    private volatile int rowThreshold = 10_000;
+    private volatile double sampleRate = 1;
+    private volatile int maxPerSecond = 10;
+
+    private SlowQueryLog() {
+    }
+
+    public static SlowQueryLog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the sink that entries are logged to, or disables the log if null.
+     *
+     * @param sink the sink
+     * @return this
+     */
+    public SlowQueryLog setSink(SlowQuerySink sink) {
+        this.sink = sink;
+        return this;
+    }
+
+    public SlowQuerySink getSink() {
+        return sink;
+    }
+
+    public SlowQueryLog setExecuteThreshold(Duration threshold) {
+        this.executeThreshold = threshold.toNanos();
+        return this;
+    }
+
+    public SlowQueryLog setFetchThreshold(Duration threshold) {
+        this.fetchThreshold = threshold.toNanos();
+        return this;
+    }
+
+    public SlowQueryLog setRowThreshold(int rows) {
+        this.rowThreshold = rows;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of the statements exceeding a threshold that are logged.
+     *
+     * @param sampleRate a value between 0 and 1
+     * @return this
+     */
+    public SlowQueryLog setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of entries logged per second. Bursts of up to this number of entries are allowed.
+     *
+     * @param maxPerSecond the maximum number of entries per second
+     * @return this
+     */
+    public SlowQueryLog setMaxPerSecond(int maxPerSecond) {
+        if (maxPerSecond <= 0) {
+            throw new IllegalArgumentException("Maximum per second must be positive");
+        }
+        this.maxPerSecond = maxPerSecond;
+        return this;
+    }
+
+    /**
+     * @return the number of entries that the sink failed to accept
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the call site of the current thread outside of this library, to be passed to
+     * {@link #beginAction(String)} when the action runs. Database actions call this when they are created, and only
+     * walk the stack while the log is enabled.
+     *
+     * @return the class, method, file and line of the call site, or null if the log is disabled or there is none
+     */
+    public String callSite() {
+        if (sink == null) {
+            return null;
+        }
+        return WALKER.walk(frames -> frames
+            .filter(frame -> !INTERNAL.get(frame.getDeclaringClass()))
+            .findFirst()
+            .map(frame -> frame.getClassName() + "." + frame.getMethodName() + "(" + frame.getFileName() + ":"
+                + frame.getLineNumber() + ")")
+            .orElse(null));
+    }
+
+    /**
+     * Marks the start of a database action on the current thread. The next statement on this thread is held until
+     * {@link #endAction(long)} is called.
+     *
+     * @param callSite the call site that created the action, as returned by {@link #callSite()}, or null if unknown
+     */
+    public void beginAction(String callSite) {
+        if (sink == null) {
+            return;
+        }
+        Pending current = pending.get();
+        current.flush(this);
+        current.inAction = true;
+        current.callSite = callSite;
+    }
+
+    /**
+     * Marks the end of the database action started on the current thread and logs its statement if it exceeded a
+     * threshold.
+     *
+     * @param mapNanos the time it took to map the result
+     */
+    public void endAction(long mapNanos) {
+        if (sink == null) {
+            return;
+        }
+        Pending current = pending.get();
+        current.mapNanos = mapNanos;
+        current.flush(this);
+        current.inAction = false;
+        current.callSite = null;
+    }
+
+    /**
+     * Records a successfully executed statement.
+     *
+     * @param query        the query
+     * @param executeNanos the time it took to execute the statement
+     * @param fetchNanos   the time it took to fetch the rows
+     * @param rows         the number of rows, or -1 for statements without result
+     */
+    public void statement(Query query, long executeNanos, long fetchNanos, int rows) {
+        if (sink == null) {
+            return;
+        }
+        Pending current = pending.get();
+        current.flush(this);
+        current.query = query;
+        current.executeNanos = executeNanos;
+        current.fetchNanos = fetchNanos;
+        current.rows = rows;
+        if (!current.inAction) {
+            current.flush(this);
+        }
+    }
+
+    private boolean exceeds(Pending pending) {
+        return pending.executeNanos > executeThreshold
+            || pending.fetchNanos > fetchThreshold
+            || pending.rows > rowThreshold;
+    }
+
+    private boolean sample() {
+        double rate = sampleRate;
+        if (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            return false;
+        }
+        // token bucket: every entry moves the exhaustion time forward by one interval, up to a second ahead
+        long interval = NANOS_PER_SECOND / maxPerSecond;
+        long now = System.nanoTime();
+        while (true) {
+            long exhaustedAt = permitsExhaustedAt.get();
+            long earliest = now - NANOS_PER_SECOND;
+            long next = (exhaustedAt - earliest > 0 ? exhaustedAt : earliest) + interval;
+            if (next - now > 0) {
+                return false;
+            }
+            if (permitsExhaustedAt.compareAndSet(exhaustedAt, next)) {
+                return true;
+            }
+        }
+    }
+
+    private void log(Pending pending) {
+        SlowQuerySink current = sink;
+        if (current == null) {
+            return;
+        }
+        Query query = pending.query;
+        List<String> types = new ArrayList<>(query.getArgs().length);
+        for (Object arg : query.getArgs()) {
+            types.add(arg == null ? null : arg.getClass().getSimpleName());
+        }
+        SlowQuery entry = new SlowQuery(Instant.now(), SqlFingerprint.of(query.toString()), query.toString(),
+            Collections.unmodifiableList(types), pending.rows, pending.executeNanos, pending.fetchNanos,
+            pending.mapNanos, pending.callSite, Thread.currentThread().getName());
+        try {
+            current.accept(entry);
+        } catch (RuntimeException e) {
+            // the statement succeeded, so a failing sink must not fail it
+            dropped.increment();
+        }
+    }
+
+    /**
+     * The statement of the current thread that is waiting for its action to finish.
+     */
+    private static final class Pending {
+
+        private boolean inAction;
+        private String callSite;
+        private Query query;
+        private long executeNanos;
+        private long fetchNanos;
+        private long mapNanos;
+        private int rows;
+
+        private void flush(SlowQueryLog log) {
+            if (query != null && log.exceeds(this) && log.sample()) {
+                log.log(this);
+            }
+            query = null;
+            mapNanos = 0;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.pascalnb.dbwrapper.metrics;
+
+/**
+ * Destination of the entries of the {@link SlowQueryLog}. Entries are passed on the thread that ran the statement, and
+ * entries of which the sink throws are dropped.
+ */
+@FunctionalInterface
+public interface SlowQuerySink {
+
+    void accept(SlowQuery query);
+
+}
\ No newline at end of file
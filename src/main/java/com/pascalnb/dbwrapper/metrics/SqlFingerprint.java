@@ -0,0 +1,103 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL statements so that statements that only differ in their literals have the same fingerprint. String
+ * and numeric literals are replaced by {@code ?}, lists of placeholders by a single placeholder, comments are removed
+ * and whitespace is collapsed.
+ * <br><br>
+ * E.g. {@code SELECT * FROM users WHERE id IN (1, 2, 3) AND name = 'x'} becomes
+ * {@code SELECT * FROM users WHERE id IN (?) AND name = ?}.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\( ?\\?(?: ?, ?\\?)+ ?\\)");
+
+    private SqlFingerprint() {
+    }
+
+    /**
+     * Returns the fingerprint of the given SQL statement.
+     *
+     * @param sql the SQL statement
+     * @return the fingerprint
+     */
+    public static String of(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+                builder.append('?');
+            } else if (c == '`') {
+                int end = sql.indexOf('`', i + 1);
+                end = end == -1 ? length : end + 1;
+                builder.append(sql, i, end);
+                i = end;
+            } else if (c == '-' && sql.startsWith("--", i) || c == '#') {
+                int end = sql.indexOf('\n', i);
+                i = end == -1 ? length : end;
+            } else if (c == '/' && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end == -1 ? length : end + 2;
+                appendSpace(builder);
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(builder);
+                i++;
+            } else if (Character.isDigit(c) && !endsWithIdentifier(builder)) {
+                i++;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                builder.append('?');
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+
+        int end = builder.length();
+        while (end > 0 && (builder.charAt(end - 1) == ' ' || builder.charAt(end - 1) == ';')) {
+            end--;
+        }
+        builder.setLength(end);
+        return PLACEHOLDER_LIST.matcher(builder).replaceAll("(?)");
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    private static void appendSpace(StringBuilder builder) {
+        if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ' ') {
+            builder.append(' ');
+        }
+    }
+
+    private static boolean endsWithIdentifier(StringBuilder builder) {
+        if (builder.length() == 0) {
+            return false;
+        }
+        char last = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+    }
+
+}
\ No newline at end of file
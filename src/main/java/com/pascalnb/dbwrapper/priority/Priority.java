@@ -0,0 +1,24 @@
+package com.pascalnb.dbwrapper.priority;
+
+/**
+ * The priority class of a database action, from highest to lowest priority. Actions of a priority get connections
+ * from their own lane of the {@link PriorityGate}.
+ */
+public enum Priority {
+
+    /**
+     * User-facing work that should not wait for other work.
+     */
+    INTERACTIVE,
+
+    /**
+     * The priority of actions without explicit priority.
+     */
+    NORMAL,
+
+    /**
+     * Background work such as batch jobs, exports and reindexing.
+     */
+    BATCH
+
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.pascalnb.dbwrapper.priority;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of connections that database actions hold at the same time, with a lane per {@link Priority}.
+ * The gate is disabled until a capacity is set.
+ * <br><br>
+ * Every lane has a number of reserved connections that it can always use, and a maximum. Above its reservation, a lane
+ * uses unreserved capacity and borrows the idle reservations of lanes with a lower priority, but never those of lanes
+ * with a higher priority or of lanes that are waiting. Borrowed connections are returned when the action that uses
+ * them closes its connection. When a connection is released, waiting actions with a higher priority get it first,
+ * so interactive work never waits behind queued batch work.
+ */
+@SuppressWarnings("unused")
+public final class PriorityGate {
+
+    private static final int LANES = Priority.values().length;
+    private static final Permit NONE = () -> {};
+    private static final PriorityGate INSTANCE = new PriorityGate();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] conditions = new Condition[LANES];
+    private final int[] reserved = new int[LANES];
+    private final int[] max = new int[LANES];
+    private final int[] used = new int[LANES];
+    private final int[] waiting = new int[LANES];
+    private volatile int capacity = 0;
+    private volatile long timeoutNanos = -1;
+    private int total = 0;
+
+    private PriorityGate() {
+        for (int i = 0; i < LANES; i++) {
+            conditions[i] = lock.newCondition();
+            max[i] = Integer.MAX_VALUE;
+        }
+    }
+
+    public static PriorityGate getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the total number of connections, or disables the gate if 0.
+     *
+     * @param capacity the number of connections
+     * @return this gate
+     */
+    public PriorityGate setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new DatabaseException("Capacity cannot be negative");
+        }
+        lock.lock();
+        try {
+            this.capacity = capacity;
+            signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Sets the reserved and maximum number of connections of a lane. By default lanes have no reservation and no
+     * maximum other than the capacity.
+     *
+     * @param priority the priority of the lane
+     * @param reserved the number of connections reserved for the lane
+     * @param max      the maximum number of connections of the lane
+     * @return this gate
+     */
+    public PriorityGate setLane(Priority priority, int reserved, int max) {
+        if (reserved < 0 || max < reserved) {
+            throw new DatabaseException("Lane needs 0 <= reserved <= max");
+        }
+        lock.lock();
+        try {
+            this.reserved[priority.ordinal()] = reserved;
+            this.max[priority.ordinal()] = max;
+            signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum time to wait for a connection, after which a {@link DatabaseException} is thrown.
+     *
+     * @param timeout the timeout, or null to wait indefinitely
+     * @return this gate
+     */
+    public PriorityGate setTimeout(Duration timeout) {
+        this.timeoutNanos = timeout == null ? -1 : timeout.toNanos();
+        return this;
+    }
+
+    /**
+     * Waits until a connection of the given priority is available and takes it.
+     *
+     * @param priority the priority
+     * @return the permit that releases the connection when closed
+     * @throws DatabaseException if interrupted or timed out
+     */
+    public Permit acquire(Priority priority) {
+        if (capacity == 0) {
+            return NONE;
+        }
+        int lane = priority.ordinal();
+        lock.lock();
+        try {
+            if (!canAcquire(lane)) {
+                waiting[lane]++;
+                try {
+                    long nanos = timeoutNanos;
+                    long deadline = System.nanoTime() + nanos;
+                    while (!canAcquire(lane)) {
+                        if (nanos < 0) {
+                            conditions[lane].await();
+                        } else if (conditions[lane].awaitNanos(deadline - System.nanoTime()) <= 0
+                            && !canAcquire(lane)) {
+                            throw new DatabaseException("Timed out after " + TimeUnit.NANOSECONDS.toMillis(nanos)
+                                + "ms waiting for a " + priority + " connection");
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DatabaseException(e);
+                } finally {
+                    waiting[lane]--;
+                }
+            }
+            if (capacity == 0) {
+                return NONE;
+            }
+            used[lane]++;
+            total++;
+            return new LanePermit(lane);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canAcquire(int lane) {
+        if (capacity == 0) {
+            return true;
+        }
+        if (used[lane] >= max[lane] || total >= capacity) {
+            return false;
+        }
+        if (used[lane] < reserved[lane]) {
+            return true;
+        }
+        int free = capacity - total;
+        for (int other = 0; other < LANES; other++) {
+            // idle reservations of higher lanes and of waiting lanes are not lent out
+            if (other != lane && (other < lane || waiting[other] > 0)) {
+                free -= Math.max(reserved[other] - used[other], 0);
+            }
+        }
+        if (free <= 0) {
+            return false;
+        }
+        for (int higher = 0; higher < lane; higher++) {
+            if (waiting[higher] > 0 && used[higher] < max[higher]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void release(int lane) {
+        lock.lock();
+        try {
+            used[lane]--;
+            total--;
+            signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // wakes the waiting lanes in priority order
+    private void signalAll() {
+        for (Condition condition : conditions) {
+            condition.signalAll();
+        }
+    }
+
+    /**
+     * @param priority the priority of the lane
+     * @return the number of connections the lane holds
+     */
+    public int getUsed(Priority priority) {
+        lock.lock();
+        try {
+            return used[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority the priority of the lane
+     * @return the number of actions waiting for a connection of the lane
+     */
+    public int getWaiting(Priority priority) {
+        lock.lock();
+        try {
+            return waiting[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A connection taken from the gate, released when closed.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+    private final class LanePermit implements Permit {
+
+        private final int lane;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private LanePermit(int lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(lane);
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.pascalnb.dbwrapper.shard;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the datasources of an application by name.
+ */
+@SuppressWarnings("unused")
+public final class Datasources {
+
+    private static final Map<String, Datasource> DATASOURCES = new ConcurrentHashMap<>();
+
+    private Datasources() {
+    }
+
+    /**
+     * Registers a datasource under its name, replacing any datasource with the same name.
+     *
+     * @param datasource the datasource
+     * @return the datasource
+     */
+    public static Datasource register(Datasource datasource) {
+        DATASOURCES.put(datasource.getName(), datasource);
+        return datasource;
+    }
+
+    /**
+     * Returns the datasource with the given name.
+     *
+     * @param name the name
+     * @return the datasource
+     * @throws DatabaseException if no datasource with the name is registered
+     */
+    public static Datasource get(String name) {
+        Datasource datasource = DATASOURCES.get(name);
+        if (datasource == null) {
+            throw new DatabaseException("Datasource " + name + " not registered");
+        }
+        return datasource;
+    }
+
+    /**
+     * Returns the datasources with the given names, in the same order.
+     *
+     * @param names the names
+     * @return the datasources
+     * @throws DatabaseException if a datasource is not registered
+     */
+    public static List<Datasource> get(String... names) {
+        List<Datasource> result = new ArrayList<>(names.length);
+        for (String name : names) {
+            result.add(get(name));
+        }
+        return result;
+    }
+
+    public static Collection<Datasource> getAll() {
+        return Collections.unmodifiableCollection(DATASOURCES.values());
+    }
+
+    public static void unregister(String name) {
+        DATASOURCES.remove(name);
+    }
+
+}
\ No newline at end of file
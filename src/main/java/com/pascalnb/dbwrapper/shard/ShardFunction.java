@@ -0,0 +1,60 @@
+package com.pascalnb.dbwrapper.shard;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Function that maps a shard key to the index of the shard that holds it.
+ *
+ * @param <K> the type of the shard keys
+ */
+@FunctionalInterface
+public interface ShardFunction<K> {
+
+    /**
+     * Returns the shard of the given key.
+     *
+     * @param key    the shard key
+     * @param shards the number of shards
+     * @return the index of the shard, between 0 and the number of shards
+     */
+    int shardOf(K key, int shards);
+
+    /**
+     * Spreads keys evenly over the shards by the hash code of the key. Adding a shard moves most keys.
+     *
+     * @param <K> the type of the shard keys
+     * @return the function
+     */
+    static <K> ShardFunction<K> hash() {
+        return (key, shards) -> {
+            // mix the bits, as many hash codes, such as those of small integers, are sequential
+            int hash = key.hashCode() * 0x9E3779B9;
+            return Math.floorMod(hash ^ (hash >>> 16), shards);
+        };
+    }
+
+    /**
+     * Assigns keys to shards by range. Shard {@code i} holds the keys below {@code upperBounds[i]} and at or above the
+     * bound of the previous shard, the last shard holds all keys at or above the last bound.
+     *
+     * @param upperBounds the sorted exclusive upper bounds of all shards but the last
+     * @param <K>         the type of the shard keys
+     * @return the function
+     */
+    static <K extends Comparable<? super K>> ShardFunction<K> range(List<K> upperBounds) {
+        List<K> bounds = List.copyOf(upperBounds);
+        return (key, shards) -> {
+            if (bounds.size() != shards - 1) {
+                throw new DatabaseException("Expected " + (shards - 1) + " range bounds for " + shards
+                    + " shards, got " + bounds.size());
+            }
+            int index = Collections.binarySearch(bounds, key);
+            // a key equal to a bound belongs to the next shard
+            return index >= 0 ? index + 1 : -index - 1;
+        };
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,238 @@
+package com.pascalnb.dbwrapper.shard;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.Tuple;
+import com.pascalnb.dbwrapper.action.DatabaseAction;
+import com.pascalnb.dbwrapper.action.MultiDatabaseAction;
+import org.jetbrains.annotations.Contract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Routes actions to the shard that holds their shard key, and runs queries on all shards at once.
+ * <br><br>
+ * A scatter query runs on every shard in parallel, each on its own connection, and the resulting tables are
+ * concatenated in shard order. When the shards return their rows sorted, the tables can instead be merged into one
+ * sorted table. A limit is pushed down to every shard and applied again to the merged table. A query that is split
+ * into multiple statements because of a long list argument runs every statement as a separate query on every shard.
+ *
+ * @param <K> the type of the shard keys
+ */
+@SuppressWarnings("unused")
+public class ShardRouter<K> {
+
+    private final List<Datasource> shards;
+    private final ShardFunction<K> function;
+
+    /**
+     * @param function the function that maps shard keys to shards
+     * @param shards   the datasources of the shards, in order of their index
+     */
+    public ShardRouter(ShardFunction<K> function, List<Datasource> shards) {
+        if (shards.isEmpty()) {
+            throw new DatabaseException("A shard router needs at least one shard");
+        }
+        this.function = function;
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * Creates a router over the registered {@link Datasources} with the given names.
+     *
+     * @param function the function that maps shard keys to shards
+     * @param names    the names of the datasources of the shards, in order of their index
+     * @param <K>      the type of the shard keys
+     * @return a new router
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public static <K> ShardRouter<K> of(ShardFunction<K> function, String... names) {
+        return new ShardRouter<>(function, Datasources.get(names));
+    }
+
+    /**
+     * @param key the shard key
+     * @return the datasource of the shard that holds the key
+     */
+    public Datasource route(K key) {
+        int shard = function.shardOf(key, shards.size());
+        if (shard < 0 || shard >= shards.size()) {
+            throw new DatabaseException("Shard " + shard + " of key " + key + " does not exist");
+        }
+        return shards.get(shard);
+    }
+
+    /**
+     * Returns a copy of the action that runs on the shard that holds the key.
+     *
+     * @param key    the shard key
+     * @param action the action
+     * @param <T>    the type of the result
+     * @return a new action
+     */
+    @Contract("_, _ -> new")
+    public <T> DatabaseAction<T> route(K key, DatabaseAction<T> action) {
+        return action.withDatasource(route(key));
+    }
+
+    public List<Datasource> getShards() {
+        return shards;
+    }
+
+    /**
+     * Creates an action that runs the query on all shards and concatenates the results.
+     *
+     * @param query the query
+     * @return a new action
+     */
+    @Contract(value = "_ -> new", pure = true)
+    public DatabaseAction<Table> scatter(Query query) {
+        return scatter(query, null, -1);
+    }
+
+    /**
+     * Creates an action that runs the query on all shards and returns at most the given number of rows. The query is
+     * run with {@code LIMIT limit} appended, so it must not have a limit itself.
+     *
+     * @param query the query
+     * @param limit the maximum number of rows
+     * @return a new action
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public DatabaseAction<Table> scatter(Query query, int limit) {
+        return scatter(query, null, limit);
+    }
+
+    /**
+     * Creates an action that runs the query on all shards and merges the results in the given order. The query
+     * must sort its rows in the same order, e.g. with {@code ORDER BY}.
+     *
+     * @param query the query
+     * @param order the order of the rows of every shard
+     * @return a new action
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    public DatabaseAction<Table> scatter(Query query, Comparator<Tuple> order) {
+        return scatter(query, order, -1);
+    }
+
+    /**
+     * Creates an action that runs the query on all shards and merges the results in the given order, returning at
+     * most the given number of rows. The query must sort its rows in the same order and is run with
+     * {@code LIMIT limit} appended, so it must not have a limit itself.
+     *
+     * @param query the query
+     * @param order the order of the rows of every shard, or null to concatenate the results
+     * @param limit the maximum number of rows, or -1 for no limit
+     * @return a new action
+     */
+    @Contract(value = "_, _, _ -> new", pure = true)
+    public DatabaseAction<Table> scatter(Query query, Comparator<Tuple> order, int limit) {
+        // every statement of a split query is its own sorted and limited result to merge
+        List<Query> parts = query.split();
+        List<DatabaseAction<Table>> actions = new ArrayList<>(shards.size() * parts.size());
+        for (Datasource shard : shards) {
+            for (Query part : parts) {
+                actions.add(DatabaseAction.of(limit < 0 ? part : withLimit(part, limit)).withDatasource(shard));
+            }
+        }
+        Function<List<Table>, Table> merge = tables -> order == null
+            ? limit(Table.concat(tables), limit)
+            : merge(tables, order, limit);
+        return new MultiDatabaseAction<>(actions, merge, DatabaseAction.DEFAULT_EXECUTOR,
+            () -> Executors.newFixedThreadPool(shards.size()));
+    }
+
+    /**
+     * Compares rows by the parsed values of a column, with nulls first as in ascending SQL order.
+     *
+     * @param column the name of the column
+     * @param parser the function that parses the values
+     * @param <U>    the type of the parsed values
+     * @return the comparator
+     */
+    public static <U extends Comparable<? super U>> Comparator<Tuple> byColumn(String column,
+        Function<String, U> parser) {
+        return Comparator.comparing(tuple -> {
+            String value = tuple.get(column);
+            return value == null ? null : parser.apply(value);
+        }, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    private static Query withLimit(Query query, int limit) {
+        String sql = query.toString().strip();
+        if (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1);
+        }
+        Object[] args = Arrays.copyOf(query.getArgs(), query.getArgs().length + 1);
+        args[args.length - 1] = limit;
+        return new Query(sql + " LIMIT ?", args);
+    }
+
+    private static Table limit(Table table, int limit) {
+        if (limit < 0 || table.getRowCount() <= limit) {
+            return table;
+        }
+        List<String[]> rows = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            rows.add(cells(table.get(i), table.getColumnCount()));
+        }
+        return new Table(table.getShape(), rows);
+    }
+
+    /**
+     * Merges sorted tables with a k-way merge, stopping at the limit.
+     */
+    private static Table merge(List<Table> tables, Comparator<Tuple> order, int limit) {
+        String[] attributes = tables.get(0).getAttributes();
+        int total = 0;
+        for (Table table : tables) {
+            if (!Arrays.equals(attributes, table.getAttributes())) {
+                throw new DatabaseException("Cannot merge tables with columns " + Arrays.toString(attributes)
+                    + " and " + Arrays.toString(table.getAttributes()));
+            }
+            total += table.getRowCount();
+        }
+        int size = limit < 0 ? total : Math.min(limit, total);
+
+        // cursors are the table index and the row index, ties are broken by table index to keep the merge stable
+        PriorityQueue<int[]> heads = new PriorityQueue<>(tables.size(), (a, b) -> {
+            int compared = order.compare(tables.get(a[0]).get(a[1]), tables.get(b[0]).get(b[1]));
+            return compared != 0 ? compared : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < tables.size(); i++) {
+            if (!tables.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+
+        List<String[]> rows = new ArrayList<>(size);
+        while (rows.size() < size) {
+            int[] head = heads.poll();
+            Table table = tables.get(head[0]);
+            rows.add(cells(table.get(head[1]), table.getColumnCount()));
+            if (++head[1] < table.getRowCount()) {
+                heads.add(head);
+            }
+        }
+        // the shape of the first table keeps the labels and types of the columns
+        return new Table(tables.get(0).getShape(), rows);
+    }
+
+    private static String[] cells(Tuple tuple, int columns) {
+        String[] cells = new String[columns];
+        for (int i = 0; i < columns; i++) {
+            cells[i] = tuple.get(i);
+        }
+        return cells;
+    }
+
+}
\ No newline at end of file
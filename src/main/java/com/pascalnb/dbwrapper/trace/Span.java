@@ -0,0 +1,12 @@
+package com.pascalnb.dbwrapper.trace;
+
+/**
+ * A stage in the timeline of a {@link Trace}.
+ *
+ * @param stage         the stage
+ * @param thread        the name of the thread that ran the stage
+ * @param offsetNanos   the start of the stage, relative to the start of the trace
+ * @param durationNanos the duration of the stage
+ */
+public record Span(Stage stage, String thread, long offsetNanos, long durationNanos) {
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.pascalnb.dbwrapper.trace;
+
+/**
+ * The phases of running a database action that are recorded in a {@link Trace}.
+ */
+public enum Stage {
+
+    /**
+     * Waiting for the executor to run the action.
+     */
+    QUEUE,
+
+    /**
+     * Opening the connection to the database.
+     */
+    CONNECT,
+
+    /**
+     * Preparing and executing the statement.
+     */
+    EXECUTE,
+
+    /**
+     * Reading the rows of the result.
+     */
+    FETCH,
+
+    /**
+     * Applying the mapper of the action to the result.
+     */
+    MAP,
+
+    /**
+     * Running the functions passed to {@code Promise.map}, {@code consume}, {@code catching} and {@code async}.
+     */
+    CONTINUATION
+
+}
\ No newline at end of file
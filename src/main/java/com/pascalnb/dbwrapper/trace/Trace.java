@@ -0,0 +1,244 @@
+package com.pascalnb.dbwrapper.trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timeline of a single run of a promise, split into {@link Stage}s. Tracing is opt-in: traces are only created while a
+ * listener is set.
+ * <br><br>
+ * A trace starts when a promise is run with {@code await}, {@code async} or {@code stage} and is the current trace of
+ * the thread that runs it. The stages on that thread, including the continuations added with {@code Promise.map}, are
+ * recorded in it. Promises that are run while a trace is current, such as the children of a
+ * {@code MultiDatabaseAction}, get a child trace. The listener receives the root trace when it finishes.
+ */
+@SuppressWarnings("unused")
+public final class Trace {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private static volatile TraceListener listener = null;
+
+    private final String name;
+    private final Trace parent;
+    private final long start = System.nanoTime();
+    private final List<Span> spans = new ArrayList<>();
+    private final List<Trace> children = new ArrayList<>();
+    private volatile long durationNanos = -1;
+    private volatile Throwable error = null;
+
+    private Trace(String name, Trace parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    /**
+     * Sets the listener that receives the finished traces and enables tracing, or disables it if null.
+     *
+     * @param listener the listener
+     */
+    public static void setListener(TraceListener listener) {
+        Trace.listener = listener;
+    }
+
+    public static boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * @return the trace of the current thread, or null if there is none
+     */
+    public static Trace current() {
+        return listener == null ? null : CURRENT.get();
+    }
+
+    /**
+     * Starts a trace as a child of the current trace, when tracing is enabled. The trace is started when it is
+     * created, so the time until it is run is recorded as {@link Stage#QUEUE}.
+     *
+     * @param name the name of the trace, or null to not trace
+     * @return the trace, or null if not traced
+     */
+    public static Trace start(String name) {
+        if (listener == null || name == null) {
+            return null;
+        }
+        Trace parent = CURRENT.get();
+        Trace trace = new Trace(name, parent);
+        if (parent != null) {
+            synchronized (parent) {
+                parent.children.add(trace);
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Runs the supplier with the given trace as current trace and finishes the trace afterwards.
+     *
+     * @param trace    the trace, or null to run without trace
+     * @param supplier the supplier
+     * @param <T>      the type of the result
+     * @return the result of the supplier
+     */
+    public static <T> T call(Trace trace, Supplier<T> supplier) {
+        if (trace == null) {
+            return supplier.get();
+        }
+        trace.record(Stage.QUEUE, trace.start, System.nanoTime());
+        Trace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            return supplier.get();
+        } catch (RuntimeException | Error e) {
+            trace.error = e;
+            throw e;
+        } finally {
+            CURRENT.set(previous);
+            trace.finish();
+        }
+    }
+
+    /**
+     * Starts an asynchronous computation with the given trace as current trace and finishes the trace when the
+     * returned future completes, so promises started by the computation become children of the trace.
+     *
+     * @param trace    the trace, or null to run without trace
+     * @param supplier the supplier that starts the computation without waiting for it
+     * @param <T>      the type of the result
+     * @return the future of the result
+     */
+    public static <T> CompletableFuture<T> callAsync(Trace trace, Supplier<CompletableFuture<T>> supplier) {
+        if (trace == null) {
+            return supplier.get();
+        }
+        trace.record(Stage.QUEUE, trace.start, System.nanoTime());
+        Trace previous = CURRENT.get();
+        CURRENT.set(trace);
+        CompletableFuture<T> future;
+        try {
+            future = supplier.get();
+        } catch (RuntimeException | Error e) {
+            trace.error = e;
+            trace.finish();
+            throw e;
+        } finally {
+            CURRENT.set(previous);
+        }
+        return future.whenComplete((result, error) -> {
+            if (error != null) {
+                trace.error = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            }
+            trace.finish();
+        });
+    }
+
+    /**
+     * Records a stage from the given start until now in the current trace, if any.
+     *
+     * @param stage the stage
+     * @param start the start of the stage as returned by {@link System#nanoTime()}
+     */
+    public static void record(Stage stage, long start) {
+        Trace trace = current();
+        if (trace != null) {
+            trace.record(stage, start, System.nanoTime());
+        }
+    }
+
+    private synchronized void record(Stage stage, long from, long to) {
+        spans.add(new Span(stage, Thread.currentThread().getName(), from - start, to - from));
+    }
+
+    private void finish() {
+        durationNanos = System.nanoTime() - start;
+        TraceListener current = listener;
+        if (parent == null && current != null) {
+            current.finished(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Trace getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the duration of the trace, or -1 if it has not finished
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the error the trace finished with, or null
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return the recorded stages of this trace, in the order they finished
+     */
+    public synchronized List<Span> getSpans() {
+        return Collections.unmodifiableList(new ArrayList<>(spans));
+    }
+
+    public synchronized List<Trace> getChildren() {
+        return Collections.unmodifiableList(new ArrayList<>(children));
+    }
+
+    /**
+     * Returns the total time spent in the given stage by this trace, excluding its children.
+     *
+     * @param stage the stage
+     * @return the total time in nanoseconds
+     */
+    public synchronized long getNanos(Stage stage) {
+        long total = 0;
+        for (Span span : spans) {
+            if (span.stage() == stage) {
+                total += span.durationNanos();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        append(builder, "");
+        return builder.toString();
+    }
+
+    private void append(StringBuilder builder, String indent) {
+        builder.append(indent).append(name).append(' ').append(millis(durationNanos)).append("ms");
+        if (error != null) {
+            builder.append(" failed: ").append(error);
+        }
+        for (Span span : getSpans()) {
+            builder.append('\n').append(indent).append("  +").append(millis(span.offsetNanos())).append("ms ")
+                .append(span.stage()).append(' ').append(millis(span.durationNanos())).append("ms [")
+                .append(span.thread()).append(']');
+        }
+        for (Trace child : getChildren()) {
+            builder.append('\n');
+            child.append(builder, indent + "  ");
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+}
\ No newline at end of file
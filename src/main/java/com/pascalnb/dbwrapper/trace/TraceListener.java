@@ -0,0 +1,12 @@
+package com.pascalnb.dbwrapper.trace;
+
+/**
+ * Listener that receives every finished trace, including its children. It is called on the thread that finished the
+ * trace, so it should return quickly.
+ */
+@FunctionalInterface
+public interface TraceListener {
+
+    void finished(Trace trace);
+
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.metrics.Metrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class JDBCTest {
+
+    private static final Table TABLE = new Table(new String[]{"id", "name"},
+        List.of(new String[]{"1", "a"}, new String[]{"2", "b"}));
+
+    @Test
+    public void testStatementsClosed() {
+        StubDriver.Server server = StubDriver.register("statements", TABLE);
+        Database database = Database.getInstance(
+            Datasource.of("statements", StubDriver.PREFIX + "statements", "", "")).connect();
+        try {
+            List<String> names = database.queryStatement(new Query("SELECT * FROM t"),
+                row -> row.getString(row.indexOf("name")));
+            Assertions.assertEquals(List.of("a", "b"), names);
+            Assertions.assertEquals(2, database.queryStatement(new Query("SELECT * FROM t")).getRowCount());
+            database.executeStatement(new Query("DELETE FROM t"));
+            Assertions.assertEquals(0, server.getOpenStatements());
+        } finally {
+            database.close();
+        }
+        Assertions.assertEquals(0, server.getOpenConnections());
+    }
+
+    @Test
+    public void testFailedConnectClosed() {
+        StubDriver.Server server = StubDriver.register("connect", TABLE);
+        server.setFailAutoCommit(true);
+        Database database = Database.getInstance(Datasource.of("connect", StubDriver.PREFIX + "connect", "", ""));
+        int open = Metrics.getInstance().getOpenConnections();
+        Assertions.assertThrows(DatabaseException.class, database::connect);
+        Assertions.assertEquals(0, server.getOpenConnections());
+        Assertions.assertEquals(open, Metrics.getInstance().getOpenConnections());
+    }
+
+}
\ No newline at end of file
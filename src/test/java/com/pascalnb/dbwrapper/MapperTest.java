@@ -0,0 +1,278 @@
+package com.pascalnb.dbwrapper;
+
+import com.pascalnb.dbwrapper.action.DatabaseAction;
+import com.pascalnb.dbwrapper.annotation.ParseCollection;
+import com.pascalnb.dbwrapper.annotation.ParseConstructor;
+import com.pascalnb.dbwrapper.annotation.ParseField;
+import com.pascalnb.dbwrapper.annotation.ParseKey;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MapperTest {
+
+    private static Table table(String[] attributes, String[]... rows) {
+        return new Table(attributes, List.of(rows));
+    }
+
+    @Test
+    public void testObjectMapping() {
+        Table table = table(new String[]{"text", "id", "flag"},
+            new String[]{"a", "1", "t"},
+            new String[]{null, null, "0"}
+        );
+        List<Parsable> parsables = Mapper.toObjects(Parsable.class).apply(table);
+        Assertions.assertEquals(2, parsables.size());
+
+        Parsable first = parsables.get(0);
+        Assertions.assertEquals(1, first.id);
+        Assertions.assertEquals("a", first.value);
+        Assertions.assertTrue(first.flag);
+        Assertions.assertNull(first.missing);
+
+        Parsable second = parsables.get(1);
+        Assertions.assertEquals(0, second.id);
+        Assertions.assertNull(second.value);
+        Assertions.assertFalse(second.flag);
+    }
+
+    @Test
+    public void testObjectMappingEmpty() {
+        Table table = table(new String[]{"id"});
+        Assertions.assertNull(Mapper.toObject(Parsable.class).apply(table));
+        Assertions.assertEquals(List.of(), Mapper.toObjects(Parsable.class).apply(table));
+    }
+
+    @Test
+    public void testRecordMapping() {
+        Table table = table(new String[]{"id", "text"},
+            new String[]{"3", "record"},
+            new String[]{null, null}
+        );
+        Assertions.assertEquals(
+            List.of(new ParsableRecord(3, "record"), new ParsableRecord(0, null)),
+            Mapper.toObjects(ParsableRecord.class).apply(table)
+        );
+    }
+
+    @Test
+    public void testConstructorMapping() {
+        Table table = table(new String[]{"id", "text"}, new String[]{"5", "constructor"});
+        Immutable immutable = Mapper.toObject(Immutable.class).apply(table);
+        Assertions.assertEquals(5L, immutable.id);
+        Assertions.assertEquals("constructor", immutable.value);
+    }
+
+    @Test
+    public void testPrimitiveArrays() {
+        Table table = table(new String[]{"id", "value"},
+            new String[]{"1", "1.5"},
+            new String[]{"2", null},
+            new String[]{"3", "2.5"}
+        );
+        Assertions.assertArrayEquals(new int[]{1, 2, 3}, Mapper.intArray("id").apply(table));
+        Assertions.assertArrayEquals(new long[]{1, 2, 3}, Mapper.longArray(0).apply(table));
+        Assertions.assertArrayEquals(new double[]{1.5, -1, 2.5}, Mapper.doubleArray("value", -1).apply(table));
+        Assertions.assertEquals(4.0, Mapper.doubleStream(1).apply(table).sum());
+        Assertions.assertEquals(6L, Mapper.longStream("id").apply(table).sum());
+        Assertions.assertEquals(1, Mapper.nullMask("value").apply(table).cardinality());
+        Assertions.assertThrows(DatabaseException.class, () -> Mapper.doubleArray(1).apply(table));
+        Assertions.assertThrows(DatabaseException.class, () -> Mapper.intArray("missing").apply(table));
+        Assertions.assertEquals(1, Mapper.<Integer>toPrimitive(Integer.TYPE).apply(table));
+    }
+
+    @Test
+    public void testPrimitiveRows() {
+        Table table = table(new String[]{"id", "value"},
+            new String[]{"1", "1.5"},
+            new String[]{"2", null},
+            new String[]{"3", "2.5"}
+        );
+        // reads the rows with the primitive getters only, like a database that maps while reading the result
+        Datasource datasource = Datasource.of("primitive", () -> new StubDatabase(query -> table) {
+            @Override
+            public <T> List<T> queryStatement(Query query, RowMapper<T> mapper) {
+                TupleRow row = new TupleRow(table);
+                ResultRow numeric = new NumericRow(row);
+                RowMapper<T> bound = mapper.bind(numeric);
+                List<T> result = new ArrayList<>();
+                for (Tuple tuple : table) {
+                    row.of(tuple);
+                    result.add(bound.map(numeric));
+                }
+                return result;
+            }
+        });
+
+        Query query = new Query("SELECT id, value FROM t");
+        Assertions.assertArrayEquals(new int[]{1, 2, 3},
+            DatabaseAction.ofInts(query, "id").withDatasource(datasource).query().await());
+        Assertions.assertArrayEquals(new long[]{1, 2, 3},
+            DatabaseAction.ofLongs(query, "id").withDatasource(datasource).query().await());
+        Assertions.assertArrayEquals(new double[]{1.5, -1, 2.5},
+            DatabaseAction.ofDoubles(query, "value", -1).withDatasource(datasource).query().await());
+        Assertions.assertThrows(DatabaseException.class,
+            () -> DatabaseAction.ofDoubles(query, "value").withDatasource(datasource).query().await());
+        Assertions.assertThrows(DatabaseException.class,
+            () -> DatabaseAction.ofInts(query, "missing").withDatasource(datasource).query().await());
+        Assertions.assertArrayEquals(new int[0], DatabaseAction.ofInts(query, "id", 0)
+            .withDatasource(StubDatabase.datasource("empty", q -> table(new String[]{"id"})))
+            .query()
+            .await());
+    }
+
+    /**
+     * Row of which the values can only be read as numbers.
+     */
+    private record NumericRow(ResultRow row) implements ResultRow {
+
+        @Override
+        public int indexOf(String column) {
+            return row.indexOf(column);
+        }
+
+        @Override
+        public int getColumnCount() {
+            return row.getColumnCount();
+        }
+
+        @Override
+        public String getString(int index) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getInt(int index) {
+            return row.getInt(index);
+        }
+
+        @Override
+        public long getLong(int index) {
+            return row.getLong(index);
+        }
+
+        @Override
+        public double getDouble(int index) {
+            return row.getDouble(index);
+        }
+
+        @Override
+        public float getFloat(int index) {
+            return row.getFloat(index);
+        }
+
+        @Override
+        public short getShort(int index) {
+            return row.getShort(index);
+        }
+
+        @Override
+        public byte getByte(int index) {
+            return row.getByte(index);
+        }
+
+        @Override
+        public boolean getBoolean(int index) {
+            return row.getBoolean(index);
+        }
+
+        @Override
+        public boolean wasNull() {
+            return row.wasNull();
+        }
+
+    }
+
+    @Test
+    public void testGraphMapping() {
+        Table table = table(new String[]{"id", "customer", "item_id", "item_sku"},
+            new String[]{"1", "a", "10", "x"},
+            new String[]{"1", "a", "11", "y"},
+            new String[]{"2", "b", "12", "z"},
+            new String[]{"3", "c", null, null}
+        );
+        List<Order> orders = Mapper.toGraph(Order.class).apply(table);
+        Assertions.assertEquals(3, orders.size());
+        Assertions.assertEquals("a", orders.get(0).customer);
+        Assertions.assertEquals(List.of(new Item(10, "x"), new Item(11, "y")), orders.get(0).items);
+        Assertions.assertEquals(List.of(new Item(12, "z")), orders.get(1).items);
+        Assertions.assertEquals(List.of(), orders.get(2).items);
+
+        Table keyless = table(new String[]{"id", "customer", "item_id", "item_sku"},
+            new String[]{null, "a", "10", "x"});
+        Assertions.assertThrows(DatabaseException.class, () -> Mapper.toGraph(Order.class).apply(keyless));
+        DatabaseException record = Assertions.assertThrows(DatabaseException.class,
+            () -> Mapper.toGraph(OrderRecord.class));
+        Assertions.assertTrue(record.getMessage().contains("cannot have a"), record.getMessage());
+    }
+
+    @Test
+    public void testRowMapping() {
+        Table table = table(new String[]{"text", "id"}, new String[]{"row", "7"}, new String[]{null, null});
+        TupleRow row = new TupleRow(table);
+        RowMapper<ParsableRecord> mapper = RowMapper.toObject(ParsableRecord.class).bind(row);
+        Assertions.assertEquals(new ParsableRecord(7, "row"), mapper.map(row.of(table.get(0))));
+        Assertions.assertEquals(new ParsableRecord(0, null), mapper.map(row.of(table.get(1))));
+    }
+
+    @Test
+    public void testPlanCached() {
+        Assertions.assertSame(MappingPlan.of(Parsable.class), MappingPlan.of(Parsable.class));
+    }
+
+    @Test
+    public void testUnsupportedField() {
+        Assertions.assertThrows(DatabaseException.class, () -> Mapper.toObject(Unsupported.class));
+    }
+
+    private static class Parsable {
+
+        @ParseField private int id;
+        @ParseField("text") private String value;
+        @ParseField private Boolean flag;
+        @ParseField private Long missing;
+
+    }
+
+    private record ParsableRecord(int id, @ParseField("text") String value) {
+
+    }
+
+    private static class Immutable {
+
+        private final long id;
+        private final String value;
+
+        @ParseConstructor
+        private Immutable(@ParseField("id") long id, @ParseField("text") String value) {
+            this.id = id;
+            this.value = value;
+        }
+
+    }
+
+    private static class Order {
+
+        @ParseKey @ParseField private int id;
+        @ParseField private String customer;
+        @ParseCollection(prefix = "item_") private List<Item> items;
+
+    }
+
+    private record Item(@ParseKey int id, String sku) {
+
+    }
+
+    private record OrderRecord(@ParseKey int id, @ParseCollection(prefix = "item_") List<Item> items) {
+
+    }
+
+    private static class Unsupported {
+
+        @ParseField private Object value;
+
+    }
+
+}
\ No newline at end of file
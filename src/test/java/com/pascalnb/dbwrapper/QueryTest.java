@@ -0,0 +1,66 @@
+package com.pascalnb.dbwrapper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class QueryTest {
+
+    @Test
+    public void testBuckets() {
+        Assertions.assertEquals(1, Query.bucketOf(0));
+        Assertions.assertEquals(1, Query.bucketOf(1));
+        Assertions.assertEquals(2, Query.bucketOf(2));
+        Assertions.assertEquals(4, Query.bucketOf(3));
+        Assertions.assertEquals(1024, Query.bucketOf(1000));
+    }
+
+    @Test
+    public void testExpansion() {
+        Query query = new Query("SELECT * FROM t WHERE a = ? AND b = '?' AND id IN (?) AND c = ?;",
+            1, List.of(5, 6, 7, 6), 2);
+        Assertions.assertEquals("SELECT * FROM t WHERE a = ? AND b = '?' AND id IN (?, ?, ?, ?) AND c = ?;",
+            query.toString());
+        Assertions.assertArrayEquals(new Object[]{1, 5, 6, 7, 7, 2}, query.getArgs());
+        Assertions.assertEquals(List.of(query), query.split());
+
+        Query other = query.withArgs(1, Set.of(8), 2);
+        Assertions.assertEquals("SELECT * FROM t WHERE a = ? AND b = '?' AND id IN (?) AND c = ?;", other.toString());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Query("SELECT * FROM t WHERE id NOT IN (?)", List.of()));
+
+        Query plain = new Query("SELECT * FROM t WHERE id = ?", 1);
+        Assertions.assertEquals("SELECT * FROM t WHERE id = ?", plain.toString());
+    }
+
+    @Test
+    public void testLiterals() {
+        Query query = new Query("SELECT 'it''s ?', 'a\\'?', `?` -- don't ?\n"
+            + "FROM t /* it's ? */ WHERE id IN (?) # ?\nAND a = ?", List.of(1, 2), "x");
+        Assertions.assertEquals("SELECT 'it''s ?', 'a\\'?', `?` -- don't ?\n"
+            + "FROM t /* it's ? */ WHERE id IN (?, ?) # ?\nAND a = ?", query.toString());
+        Assertions.assertArrayEquals(new Object[]{1, 2, "x"}, query.getArgs());
+    }
+
+    @Test
+    public void testSplit() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            ids.add(i);
+        }
+        Query query = new Query("SELECT * FROM t WHERE id IN (?) AND a = ?", ids, "x");
+        List<Query> parts = query.split();
+        Assertions.assertEquals(3, parts.size());
+        Assertions.assertEquals(query.toString(), parts.get(0).toString());
+        Assertions.assertEquals(Query.MAX_LIST_SIZE + 1, parts.get(0).getArgs().length);
+        // the last 452 values are padded to 512
+        Assertions.assertEquals(513, parts.get(2).getArgs().length);
+        Assertions.assertEquals(2048, parts.get(2).getArgs()[0]);
+        Assertions.assertEquals("x", parts.get(2).getArgs()[512]);
+    }
+
+}
\ No newline at end of file
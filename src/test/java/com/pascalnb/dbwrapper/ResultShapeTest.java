@@ -0,0 +1,72 @@
+package com.pascalnb.dbwrapper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ResultShapeTest {
+
+    @Test
+    public void testInterning() {
+        Table first = new Table(new String[]{"id", "text"}, List.<String[]>of(new String[]{"1", "a"}));
+        Table second = new Table(new String[]{"id", "text"}, List.of());
+        Assertions.assertSame(first.getShape(), second.getShape());
+        Assertions.assertNotSame(first.getShape(), new Table(new String[]{"text", "id"}, List.of()).getShape());
+
+        ResultShape typed = ResultShape.of(new String[]{"id", "text"}, new String[]{"id", "label"},
+            new int[]{Types.INTEGER, Types.VARCHAR});
+        Assertions.assertNotSame(first.getShape(), typed);
+        Assertions.assertSame(typed, ResultShape.of(new String[]{"id", "text"}, new String[]{"id", "label"},
+            new int[]{Types.INTEGER, Types.VARCHAR}));
+        Assertions.assertEquals(1, typed.indexOf("text"));
+        Assertions.assertEquals(-1, typed.indexOf("label"));
+        Assertions.assertEquals("label", typed.getLabel(1));
+        Assertions.assertEquals(Types.INTEGER, typed.getType(0));
+        Assertions.assertThrows(DatabaseException.class, () -> ResultShape.of(new String[]{"id"}, new String[0],
+            new int[]{Types.INTEGER}));
+    }
+
+    @Test
+    public void testBindings() {
+        ResultShape shape = ResultShape.of("a", "b", "c");
+        String[] columns = {"c", "a"};
+        AtomicInteger computed = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            int[] indices = shape.binding(columns, s -> {
+                computed.incrementAndGet();
+                return new int[]{s.indexOf(columns[0]), s.indexOf(columns[1])};
+            });
+            Assertions.assertArrayEquals(new int[]{2, 0}, indices);
+        }
+        Assertions.assertEquals(1, computed.get());
+
+        // mapping plans resolve their columns once per shape
+        MappingPlan<Parsable> plan = MappingPlan.of(Parsable.class);
+        Table table = new Table(new String[]{"text", "id"}, List.<String[]>of(new String[]{"a", "1"}));
+        Table other = new Table(new String[]{"text", "id"}, List.<String[]>of(new String[]{"b", "2"}));
+        Assertions.assertSame(plan.indicesOf(table), plan.indicesOf(other));
+        Assertions.assertSame(plan.indicesOf(table), plan.indicesOf(new TupleRow(other)));
+        Assertions.assertEquals(2, new ObjectMapper<>(Parsable.class).apply(other).id);
+    }
+
+    @Test
+    public void testLruCache() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        Assertions.assertEquals(1, cache.get("a"));
+        Assertions.assertNull(cache.putIfAbsent("c", 3));
+        // b is the least recently used
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals(1, cache.get("a"));
+        Assertions.assertEquals(3, cache.putIfAbsent("c", 4));
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    private record Parsable(int id, String text) {
+    }
+
+}
\ No newline at end of file
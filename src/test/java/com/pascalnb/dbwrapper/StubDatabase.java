@@ -0,0 +1,61 @@
+package com.pascalnb.dbwrapper;
+
+import java.util.function.Function;
+
+/**
+ * Database without connection that answers queries with the given function and ignores other statements. Tests
+ * override the other statements where they need them.
+ */
+public class StubDatabase extends Database {
+
+    private final Function<Query, Table> queries;
+
+    /**
+     * @param queries the function that returns the result of every query
+     */
+    public StubDatabase(Function<Query, Table> queries) {
+        this.queries = queries;
+    }
+
+    /**
+     * @param name    the name of the datasource
+     * @param queries the function that returns the result of every query
+     * @return a datasource of stub databases
+     */
+    public static Datasource datasource(String name, Function<Query, Table> queries) {
+        return Datasource.of(name, () -> new StubDatabase(queries));
+    }
+
+    @Override
+    public Database connect() {
+        return this;
+    }
+
+    @Override
+    public Database connect(boolean autoCommit) {
+        return this;
+    }
+
+    @Override
+    public Database commit() {
+        return this;
+    }
+
+    @Override
+    protected void checkConnection() {
+    }
+
+    @Override
+    public Table queryStatement(Query query) {
+        return queries.apply(query);
+    }
+
+    @Override
+    public void executeStatement(Query query) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.pascalnb.dbwrapper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver of {@code jdbc:stub:} URLs, of which every query returns the rows of a table, so tests can run the JDBC
+ * implementation without a database. The server of a URL counts the connections and statements that are open.
+ */
+public final class StubDriver implements Driver {
+
+    public static final String PREFIX = "jdbc:stub:";
+
+    private static final Map<String, Server> SERVERS = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new StubDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Registers a server of which every query returns the given table.
+     *
+     * @param name  the name of the server, which is the URL without {@link #PREFIX}
+     * @param table the result of every query
+     * @return the server
+     */
+    public static Server register(String name, Table table) {
+        Server server = new Server(table);
+        SERVERS.put(name, server);
+        return server;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Server server = SERVERS.get(url.substring(PREFIX.length()));
+        return server == null ? null : server.connect();
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Method method) throws SQLFeatureNotSupportedException {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        throw new SQLFeatureNotSupportedException(method.getName());
+    }
+
+    /**
+     * The connections of a URL.
+     */
+    public static final class Server {
+
+        private final Table table;
+        private final AtomicInteger openConnections = new AtomicInteger();
+        private final AtomicInteger openStatements = new AtomicInteger();
+        private volatile boolean failAutoCommit = false;
+
+        private Server(Table table) {
+            this.table = table;
+        }
+
+        /**
+         * @param failAutoCommit whether setting the auto-commit mode of a connection fails
+         */
+        public void setFailAutoCommit(boolean failAutoCommit) {
+            this.failAutoCommit = failAutoCommit;
+        }
+
+        public int getOpenConnections() {
+            return openConnections.get();
+        }
+
+        public int getOpenStatements() {
+            return openStatements.get();
+        }
+
+        private Connection connect() {
+            openConnections.incrementAndGet();
+            boolean[] closed = {false};
+            return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+                case "prepareStatement" -> statement();
+                case "setAutoCommit" -> {
+                    if (failAutoCommit) {
+                        throw new SQLException("Simulated failure", "08S01");
+                    }
+                    yield null;
+                }
+                case "close" -> {
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        openConnections.decrementAndGet();
+                    }
+                    yield null;
+                }
+                case "isClosed" -> closed[0];
+                default -> defaultValue(method);
+            });
+        }
+
+        private PreparedStatement statement() {
+            openStatements.incrementAndGet();
+            boolean[] closed = {false};
+            return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+                case "executeQuery" -> resultSet();
+                case "close" -> {
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        openStatements.decrementAndGet();
+                    }
+                    yield null;
+                }
+                default -> defaultValue(method);
+            });
+        }
+
+        private ResultSet resultSet() {
+            ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "getColumnCount" -> table.getColumnCount();
+                    case "getColumnName", "getColumnLabel" -> table.getAttributes()[(int) args[0] - 1];
+                    case "getColumnType" -> Types.VARCHAR;
+                    default -> defaultValue(method);
+                });
+            int[] row = {-1};
+            return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+                case "next" -> ++row[0] < table.getRowCount();
+                case "getString" -> table.get(row[0]).get((int) args[0] - 1);
+                case "getMetaData" -> metaData;
+                default -> defaultValue(method);
+            });
+        }
+
+    }
+
+}
\ No newline at end of file
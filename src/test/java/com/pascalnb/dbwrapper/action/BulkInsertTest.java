@@ -0,0 +1,80 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.ObjectWriter;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.annotation.ParseField;
+import com.pascalnb.dbwrapper.annotation.ParseKey;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkInsertTest {
+
+    public record User(@ParseKey int id, @ParseField("user_name") String name, char grade) {
+    }
+
+    public static class Item {
+
+        @ParseKey
+        @ParseField
+        private final long id;
+        @ParseField
+        private Double price;
+        private String ignored = "ignored";
+
+        public Item(long id, Double price) {
+            this.id = id;
+            this.price = price;
+        }
+
+    }
+
+    @Test
+    public void testObjectWriter() {
+        ObjectWriter<User> users = new ObjectWriter<>(User.class);
+        Assertions.assertArrayEquals(new String[]{"id", "user_name", "grade"}, users.getColumns());
+        Assertions.assertTrue(users.isKey(0));
+        Assertions.assertFalse(users.isKey(1));
+        Assertions.assertArrayEquals(new Object[]{1, "a", "B"}, users.values(new User(1, "a", 'B')));
+
+        ObjectWriter<Item> items = new ObjectWriter<>(Item.class);
+        Assertions.assertArrayEquals(new String[]{"id", "price"}, items.getColumns());
+        Assertions.assertArrayEquals(new Object[]{2L, null}, items.values(new Item(2, null)));
+    }
+
+    @Test
+    public void testQueries() {
+        List<User> users = List.of(new User(1, "a", 'A'), new User(2, "b", 'B'), new User(3, "c", 'C'));
+        List<Query> queries = BulkInsert.into("users", User.class).queries(users);
+        Assertions.assertEquals(1, queries.size());
+        Assertions.assertEquals("INSERT INTO users (id, user_name, grade) VALUES (?, ?, ?), (?, ?, ?), (?, ?, ?)",
+            queries.get(0).toString());
+        Assertions.assertArrayEquals(new Object[]{1, "a", "A", 2, "b", "B", 3, "c", "C"}, queries.get(0).getArgs());
+
+        List<Query> upserts = BulkInsert.into("users", User.class).upsert().withMaxPlaceholders(6).queries(users);
+        Assertions.assertEquals(2, upserts.size());
+        Assertions.assertEquals("INSERT INTO users (id, user_name, grade) VALUES (?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE user_name = VALUES(user_name), grade = VALUES(grade)",
+            upserts.get(1).toString());
+        Assertions.assertEquals(6, upserts.get(0).getArgs().length);
+    }
+
+    @Test
+    public void testPacketSize() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(new Item(i, (double) i));
+        }
+        List<Query> queries = BulkInsert.into("items", Item.class).withMaxPacket(10_000).queries(items);
+        Assertions.assertTrue(queries.size() > 1);
+        int rows = 0;
+        for (Query query : queries) {
+            Assertions.assertTrue(query.toString().length() * 4L < 10_000);
+            rows += query.getArgs().length / 2;
+        }
+        Assertions.assertEquals(1000, rows);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.Database;
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Mapper;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.priority.Priority;
+import com.pascalnb.dbwrapper.priority.PriorityGate;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultiDatabaseActionTest {
+
+    /**
+     * Datasource that returns the first argument of every query as a single value, after waiting for the latch.
+     */
+    private static Datasource datasource(CountDownLatch latch, Semaphore running) {
+        return StubDatabase.datasource("multi", query -> {
+            running.release();
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new DatabaseException(e);
+            }
+            if (query.getArgs()[0] == null) {
+                throw new DatabaseException("failed");
+            }
+            return new Table(new String[]{"value"}, List.<String[]>of(new String[]{(String) query.getArgs()[0]}));
+        });
+    }
+
+    /**
+     * Creates a tree of combined actions of the given depth and width, of which the leaves query their path.
+     */
+    private static DatabaseAction<List<Object>> tree(Datasource datasource, String path, int depth, int width) {
+        List<DatabaseAction<?>> children = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            children.add(depth == 1
+                ? DatabaseAction.of(new Query("SELECT ?", path + i), Mapper.stringValue()).withDatasource(datasource)
+                : tree(datasource, path + i, depth - 1, width));
+        }
+        return DatabaseAction.allOf(children);
+    }
+
+    @Test
+    public void testNestedWithoutWaitingThreads() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        Semaphore running = new Semaphore(0);
+        Promise<List<Object>> promise = tree(datasource(latch, running), "", 3, 2).query().stage();
+
+        // every leaf combination runs its queries one at a time on its own thread
+        Assertions.assertTrue(running.tryAcquire(4, 5, TimeUnit.SECONDS));
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            for (StackTraceElement element : entry.getValue()) {
+                Assertions.assertFalse(element.getClassName().endsWith("Promise")
+                    && element.getMethodName().equals("await"), entry.getKey() + " waits for a promise");
+            }
+        }
+        latch.countDown();
+
+        Assertions.assertEquals("[[[000, 001], [010, 011]], [[100, 101], [110, 111]]]", promise.await().toString());
+    }
+
+    @Test
+    public void testNestedWithBoundedGate() {
+        PriorityGate gate = PriorityGate.getInstance();
+        gate.setCapacity(1).setTimeout(Duration.ofSeconds(5));
+        try {
+            Datasource datasource = datasource(new CountDownLatch(0), new Semaphore(0));
+            DatabaseAction<List<Object>> action = DatabaseAction.allOf(List.of(
+                DatabaseAction.of(new Query("SELECT ?", "a"), Mapper.stringValue()).withDatasource(datasource),
+                tree(datasource, "", 2, 2)));
+
+            // the nested combined actions share the connection, and so the single permit, of the outermost action
+            Assertions.assertEquals("[a, [[00, 01], [10, 11]]]", action.query().await().toString());
+            Assertions.assertEquals("[a, [[00, 01], [10, 11]]]", action.mapping(List::toString).query().await());
+            action.execute().await();
+            Assertions.assertEquals(0, gate.getUsed(Priority.NORMAL));
+        } finally {
+            gate.setCapacity(0).setTimeout(null);
+        }
+    }
+
+    @Test
+    public void testSharedConnectionHoldsPermit() throws InterruptedException {
+        PriorityGate gate = PriorityGate.getInstance();
+        gate.setCapacity(10);
+        try {
+            CountDownLatch latch = new CountDownLatch(1);
+            Semaphore running = new Semaphore(0);
+            AtomicInteger connections = new AtomicInteger();
+            Datasource datasource = Datasource.of("counted", () -> new StubDatabase(query -> {
+                running.release();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new DatabaseException(e);
+                }
+                return new Table(new String[]{"value"}, List.<String[]>of(new String[]{(String) query.getArgs()[0]}));
+            }) {
+                @Override
+                public Database connect() {
+                    connections.incrementAndGet();
+                    return this;
+                }
+            });
+            Promise<List<Object>> promise = tree(datasource, "", 3, 2).query().stage();
+
+            // the permit is held while the connection is open, not only while its statements run
+            Assertions.assertTrue(running.tryAcquire(4, 5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, gate.getUsed(Priority.NORMAL));
+            latch.countDown();
+            promise.await();
+            Assertions.assertEquals(1, connections.get());
+            Assertions.assertEquals(0, gate.getUsed(Priority.NORMAL));
+        } finally {
+            gate.setCapacity(0);
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        CountDownLatch latch = new CountDownLatch(0);
+        Datasource datasource = datasource(latch, new Semaphore(0));
+        DatabaseAction<List<Object>> action = DatabaseAction.allOf(List.of(
+            DatabaseAction.of(new Query("SELECT ?", "a")).withDatasource(datasource),
+            DatabaseAction.allOf(List.of(
+                DatabaseAction.of(new Query("SELECT ?", (Object) null)).withDatasource(datasource)))));
+
+        DatabaseException e = Assertions.assertThrows(DatabaseException.class, () -> action.query().await());
+        Assertions.assertEquals("failed", e.getMessage());
+        Assertions.assertEquals("recovered", action.query().catching(t -> List.of("recovered")).await().get(0));
+    }
+
+    @Test
+    public void testExecutor() {
+        Datasource datasource = datasource(new CountDownLatch(0), new Semaphore(0));
+        Executor executor = runnable -> new Thread(runnable, "mapping").start();
+        DatabaseAction<String> action = DatabaseAction.allOf(List.of(
+                DatabaseAction.of(new Query("SELECT ?", "a")).withDatasource(datasource),
+                DatabaseAction.of(new Query("SELECT ?", "b")).withDatasource(datasource)))
+            .mapping(results -> Thread.currentThread().getName())
+            .withExecutor(executor);
+
+        Assertions.assertEquals("mapping", action.query().await());
+        Assertions.assertSame(executor, action.getExecutor());
+
+        // the completion of the statements without result continues on the executor as well
+        AtomicInteger completions = new AtomicInteger();
+        DatabaseAction.allOf(List.of(DatabaseAction.of(new Query("SELECT ?", "a")).withDatasource(datasource)))
+            .withExecutor(runnable -> {
+                completions.incrementAndGet();
+                executor.execute(runnable);
+            })
+            .execute()
+            .await();
+        Assertions.assertEquals(1, completions.get());
+    }
+
+}
\ No newline at end of file
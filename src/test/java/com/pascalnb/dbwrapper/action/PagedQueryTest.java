@@ -0,0 +1,167 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.ResultShape;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.Tuple;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class PagedQueryTest {
+
+    /**
+     * Datasource of a table with ids 1 to the given count that answers keyset page queries on the id column.
+     */
+    private static Datasource table(int count, List<Query> queries) {
+        return StubDatabase.datasource("paged", query -> {
+            synchronized (queries) {
+                queries.add(query);
+            }
+            Object[] args = query.getArgs();
+            int limit = (Integer) args[args.length - 1];
+            int after = args.length > 1 ? Integer.parseInt((String) args[args.length - 2]) : 0;
+            List<String[]> rows = new ArrayList<>();
+            for (int id = after + 1; id <= count && rows.size() < limit; id++) {
+                rows.add(new String[]{String.valueOf(id), "name" + id});
+            }
+            return new Table(new String[]{"id", "name"}, rows);
+        });
+    }
+
+    @Test
+    public void testPageQueries() {
+        PagedQuery paged = DatabaseAction.paged(new Query("SELECT * FROM t WHERE a = ?;", 1), 10, "x", "y");
+        Query first = paged.pageQuery(null);
+        Assertions.assertEquals("SELECT * FROM (SELECT * FROM t WHERE a = ?) AS keyset_page ORDER BY x, y LIMIT ?",
+            first.toString());
+        Assertions.assertArrayEquals(new Object[]{1, 10}, first.getArgs());
+
+        Query next = paged.descending().pageQuery(new String[]{"3", "4"});
+        Assertions.assertEquals("SELECT * FROM (SELECT * FROM t WHERE a = ?) AS keyset_page"
+            + " WHERE (x < ?) OR (x = ? AND y < ?) ORDER BY x DESC, y DESC LIMIT ?", next.toString());
+        Assertions.assertArrayEquals(new Object[]{1, "3", "3", "4", 10}, next.getArgs());
+    }
+
+    @Test
+    public void testPages() {
+        for (int prefetch = 0; prefetch <= 3; prefetch++) {
+            List<Query> queries = new ArrayList<>();
+            PagedQuery paged = DatabaseAction.paged(new Query("SELECT * FROM t"), 10, "id")
+                .withPrefetch(prefetch)
+                .withDatasource(table(25, queries));
+
+            List<Integer> sizes = new ArrayList<>();
+            try (PagedQuery.Cursor<Integer> cursor = paged.open(Table::getRowCount)) {
+                cursor.forEachRemaining(sizes::add);
+            }
+            Assertions.assertEquals(List.of(10, 10, 5), sizes);
+            Assertions.assertEquals(3, queries.size());
+
+            try (Stream<Tuple> rows = paged.rows()) {
+                Assertions.assertEquals(25, rows.count());
+            }
+        }
+    }
+
+    @Test
+    public void testTypedKeys() {
+        long first = (1L << 53) + 1;
+        ResultShape shape = ResultShape.of(new String[]{"id", "name"}, new String[]{"id", "name"},
+            new int[]{Types.BIGINT, Types.VARCHAR});
+        List<Query> queries = new ArrayList<>();
+        Datasource datasource = StubDatabase.datasource("typed", query -> {
+            queries.add(query);
+            Object[] args = query.getArgs();
+            long after = args.length > 1 ? (Long) args[args.length - 2] : first - 1;
+            List<String[]> rows = new ArrayList<>();
+            for (long id = after + 1; id < first + 3 && rows.size() < 2; id++) {
+                rows.add(new String[]{String.valueOf(id), "name" + id});
+            }
+            return new Table(shape, rows);
+        });
+
+        PagedQuery paged = DatabaseAction.paged(new Query("SELECT * FROM t"), 2, "id").withPrefetch(0)
+            .withDatasource(datasource);
+        try (Stream<Tuple> rows = paged.rows()) {
+            Assertions.assertEquals(3, rows.count());
+        }
+        Assertions.assertEquals(2, queries.size());
+        Assertions.assertArrayEquals(new Object[]{first + 1, 2}, queries.get(1).getArgs());
+    }
+
+    @Test
+    public void testClose() {
+        List<Query> queries = new ArrayList<>();
+        PagedQuery paged = DatabaseAction.paged(new Query("SELECT * FROM t"), 1, "id")
+            .withPrefetch(2)
+            .withDatasource(table(1000, queries));
+        try (Stream<Tuple> rows = paged.rows()) {
+            Assertions.assertEquals("5", rows.skip(4).findFirst().orElseThrow().get("id"));
+        }
+    }
+
+    @Test
+    public void testPrefetchDepth() throws InterruptedException {
+        for (int prefetch = 1; prefetch <= 3; prefetch++) {
+            List<Query> queries = new ArrayList<>();
+            PagedQuery paged = DatabaseAction.paged(new Query("SELECT * FROM t"), 1, "id")
+                .withPrefetch(prefetch)
+                .withDatasource(table(100, queries));
+            try (PagedQuery.Cursor<Table> cursor = paged.open()) {
+                Assertions.assertTrue(cursor.hasNext());
+                // the page taken by the consumer and the prefetched pages
+                Thread.sleep(200);
+                synchronized (queries) {
+                    Assertions.assertEquals(prefetch + 1, queries.size());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBackgroundFailures() throws InterruptedException {
+        PagedQuery paged = DatabaseAction.paged(new Query("SELECT * FROM t"), 10, "id")
+            .withDatasource(table(100, new ArrayList<>()));
+        try (PagedQuery.Cursor<Object> cursor = paged.open(table -> {
+            throw new AssertionError("mapper");
+        })) {
+            Assertions.assertThrows(AssertionError.class, cursor::hasNext);
+        }
+
+        BlockingQueue<Thread> threads = new LinkedBlockingQueue<>();
+        Executor executor = runnable -> {
+            Thread thread = new Thread(runnable);
+            threads.add(thread);
+            thread.start();
+        };
+        try (PagedQuery.Cursor<Table> cursor = paged.withExecutor(executor).open()) {
+            // the background task waits for the consumer to take the first page
+            Thread thread = threads.take();
+            Thread.sleep(100);
+            thread.interrupt();
+            // the interrupt fails the cursor instead of ending it, possibly after the page that was handed over
+            Assertions.assertThrows(DatabaseException.class, () -> cursor.forEachRemaining(page -> {
+            }));
+        }
+    }
+
+    @Test
+    public void testSplitQuery() {
+        List<Integer> ids = IntStream.rangeClosed(0, Query.MAX_LIST_SIZE).boxed().toList();
+        Assertions.assertThrows(DatabaseException.class,
+            () -> DatabaseAction.paged(new Query("SELECT * FROM t WHERE id IN (?)", ids), 10, "id"));
+    }
+
+}
\ No newline at end of file
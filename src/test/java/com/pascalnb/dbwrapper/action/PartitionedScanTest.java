@@ -0,0 +1,142 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class PartitionedScanTest {
+
+    /**
+     * Datasource of a table with ids 1 to the given count that answers bound and range queries on the id column.
+     */
+    private static Datasource table(int count, AtomicInteger queries) {
+        return StubDatabase.datasource("partitioned", query -> {
+            queries.incrementAndGet();
+            String sql = query.toString();
+            if (sql.startsWith("SELECT MIN")) {
+                return new Table(new String[]{"min", "max"},
+                    List.<String[]>of(new String[]{"1", String.valueOf(count)}));
+            }
+            Object[] args = query.getArgs();
+            long lower = Long.MIN_VALUE;
+            long upper = Long.MAX_VALUE;
+            int arg = 0;
+            if (sql.contains(">= ?")) {
+                lower = (Long) args[arg++];
+            }
+            if (sql.contains("< ?")) {
+                upper = (Long) args[arg];
+            }
+            List<String[]> rows = new ArrayList<>();
+            for (long id = Math.max(lower, 1); id <= count && id < upper; id++) {
+                rows.add(new String[]{String.valueOf(id)});
+            }
+            return new Table(new String[]{"id"}, rows);
+        });
+    }
+
+    @Test
+    public void testRangeQueries() {
+        PartitionedScan<Table> scan = DatabaseAction.partitioned(new Query("SELECT * FROM t WHERE a = ?;", 1), "id");
+        Query bounded = scan.rangeQuery(new PartitionedScan.Range(10, 20));
+        Assertions.assertEquals("SELECT * FROM (SELECT * FROM t WHERE a = ?) AS partition_scan"
+            + " WHERE id >= ? AND id < ?", bounded.toString());
+        Assertions.assertArrayEquals(new Object[]{1, 10L, 20L}, bounded.getArgs());
+
+        Query open = scan.withKeyType(PartitionedScan.KeyType.DATE)
+            .rangeQuery(new PartitionedScan.Range(Long.MIN_VALUE, 19000));
+        Assertions.assertEquals("SELECT * FROM (SELECT * FROM t WHERE a = ?) AS partition_scan WHERE id < ?",
+            open.toString());
+        Assertions.assertArrayEquals(new Object[]{1, "2022-01-08"}, open.getArgs());
+    }
+
+    @Test
+    public void testScan() {
+        AtomicInteger queries = new AtomicInteger();
+        PartitionedScan<Table> scan = DatabaseAction.partitioned(new Query("SELECT * FROM t"), "id")
+            .withPartitions(4)
+            .withDatasource(table(1000, queries));
+
+        Table table = scan.query().await();
+        Assertions.assertEquals(1000, table.getRowCount());
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(String.valueOf(i + 1), table.get(i).get(0));
+        }
+        // the bounds and every partition split into quarters
+        Assertions.assertEquals(1 + 16, queries.get());
+
+        AtomicInteger rows = new AtomicInteger();
+        Assertions.assertEquals(1000, scan.forEach(row -> rows.incrementAndGet()).await());
+        Assertions.assertEquals(1000, rows.get());
+
+        Table split = scan.withSplitPoints(List.of(10, 500)).query().await();
+        Assertions.assertEquals(1000, split.getRowCount());
+        Assertions.assertEquals("1", split.get(0).get(0));
+        Assertions.assertEquals("1000", split.get(999).get(0));
+    }
+
+    @Test
+    public void testExecutor() {
+        AtomicInteger queries = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        PartitionedScan<Table> scan = DatabaseAction.partitioned(new Query("SELECT * FROM t"), "id")
+            .withPartitions(4)
+            .withExecutor(tasks::add)
+            .withDatasource(table(1000, queries));
+
+        // the calling thread scans the ranges of the workers that never start
+        Assertions.assertEquals(1000, scan.query().await().getRowCount());
+        Assertions.assertEquals(3, tasks.size());
+        int scanned = queries.get();
+        tasks.forEach(Runnable::run);
+        Assertions.assertEquals(scanned, queries.get());
+    }
+
+    @Test
+    public void testWideKeys() {
+        List<Long> ids = List.of(Long.MIN_VALUE + 1, -1L, 0L, Long.MAX_VALUE - 1);
+        Datasource datasource = StubDatabase.datasource("wide", query -> {
+            String sql = query.toString();
+            if (sql.startsWith("SELECT MIN")) {
+                return new Table(new String[]{"min", "max"}, List.<String[]>of(
+                    new String[]{String.valueOf(ids.get(0)), String.valueOf(ids.get(ids.size() - 1))}));
+            }
+            Object[] args = query.getArgs();
+            long lower = sql.contains(">= ?") ? (Long) args[0] : Long.MIN_VALUE;
+            long upper = sql.contains("< ?") ? (Long) args[args.length - 1] : Long.MAX_VALUE;
+            List<String[]> rows = new ArrayList<>();
+            for (long id : ids) {
+                if (id >= lower && id < upper) {
+                    rows.add(new String[]{String.valueOf(id)});
+                }
+            }
+            return new Table(new String[]{"id"}, rows);
+        });
+
+        for (int partitions = 1; partitions <= 3; partitions++) {
+            Table table = DatabaseAction.partitioned(new Query("SELECT * FROM t"), "id")
+                .withPartitions(partitions)
+                .withDatasource(datasource)
+                .query().await();
+            Assertions.assertEquals(ids.stream().map(String::valueOf).toList(),
+                table.stream().map(row -> row.get(0)).toList());
+        }
+    }
+
+    @Test
+    public void testSplitQuery() {
+        List<Integer> ids = IntStream.rangeClosed(0, Query.MAX_LIST_SIZE).boxed().toList();
+        Assertions.assertThrows(DatabaseException.class,
+            () -> DatabaseAction.partitioned(new Query("SELECT * FROM t WHERE id IN (?)", ids), "id"));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Mapper;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.Results;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultsDatabaseActionTest {
+
+    /**
+     * Datasource that returns a count for every statement of a script, and only supports multiple results if given.
+     */
+    private static Datasource counts(boolean multiple, List<Query> queried) {
+        return Datasource.of("results", () -> new StubDatabase(query -> {
+            queried.add(query);
+            return new Table(new String[]{"count"}, List.<String[]>of(new String[]{"0"}));
+        }) {
+            @Override
+            public Results queryResults(Query query) {
+                if (!multiple) {
+                    return super.queryResults(query);
+                }
+                queried.add(query);
+                String[] statements = query.toString().split(";");
+                List<Table> tables = new ArrayList<>();
+                for (int i = 0; i < statements.length; i++) {
+                    List<String[]> rows = new ArrayList<>();
+                    for (int j = 0; j <= i; j++) {
+                        rows.add(new String[]{String.valueOf(j)});
+                    }
+                    tables.add(new Table(new String[]{"count"}, rows));
+                }
+                return new Results(tables);
+            }
+        });
+    }
+
+    @Test
+    public void testResults() {
+        List<Query> queried = new ArrayList<>();
+        Results results = DatabaseAction.ofResults("SELECT 1; SELECT 2; SELECT 3")
+            .withDatasource(counts(true, queried))
+            .query()
+            .await();
+        Assertions.assertEquals(1, queried.size());
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertEquals(3, results.get(2).getRowCount());
+        Assertions.assertEquals("0", results.get(1, Mapper.stringValue()));
+        Assertions.assertThrows(DatabaseException.class, () -> results.get(3));
+
+        List<Object> mapped = DatabaseAction.ofMappedResults(new Query("SELECT 1; SELECT 2"), Mapper.stringValue(),
+                Mapper.toPrimitive(Integer.class))
+            .withDatasource(counts(true, queried))
+            .query()
+            .await();
+        Assertions.assertEquals(List.of("0", 0), mapped);
+        Assertions.assertThrows(DatabaseException.class, () -> results.map(Mapper.stringValue()));
+
+        // databases without support for multiple results return only the first
+        Results single = DatabaseAction.ofResults("SELECT 1; SELECT 2")
+            .withDatasource(counts(false, queried))
+            .query()
+            .await();
+        Assertions.assertEquals(1, single.size());
+    }
+
+}
\ No newline at end of file
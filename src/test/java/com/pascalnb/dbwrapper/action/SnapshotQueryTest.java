@@ -0,0 +1,153 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.RowMapper;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+public class SnapshotQueryTest {
+
+    private static final RowMapper<String> NAME = row -> row.getString(row.indexOf("name"));
+
+    /**
+     * Datasource of a table with id, version and name columns that answers snapshot delta queries on the version.
+     */
+    private static Datasource table(Map<String, String[]> rows, List<Query> queries) {
+        return StubDatabase.datasource("snapshot", query -> {
+            synchronized (rows) {
+                queries.add(query);
+                Object[] args = query.getArgs();
+                int after = args.length > 0 ? Integer.parseInt((String) args[0]) : Integer.MIN_VALUE;
+                List<String[]> result = new ArrayList<>();
+                for (String[] row : rows.values()) {
+                    if (Integer.parseInt(row[1]) >= after) {
+                        result.add(row);
+                    }
+                }
+                result.sort(Comparator.comparingInt(row -> Integer.parseInt(row[1])));
+                return new Table(new String[]{"id", "version", "name"}, result);
+            }
+        });
+    }
+
+    private static void put(Map<String, String[]> rows, String id, int version, String name) {
+        synchronized (rows) {
+            rows.put(id, new String[]{id, String.valueOf(version), name});
+        }
+    }
+
+    @Test
+    public void testDeltaQuery() {
+        SnapshotQuery<String> query = DatabaseAction.snapshot(new Query("SELECT * FROM t WHERE a = ?;", 1), "id",
+            "version", NAME);
+        Query load = query.deltaQuery(null);
+        Assertions.assertEquals("SELECT * FROM (SELECT * FROM t WHERE a = ?) AS snapshot_delta ORDER BY version",
+            load.toString());
+        Assertions.assertArrayEquals(new Object[]{1}, load.getArgs());
+
+        Query delta = query.deltaQuery("7");
+        Assertions.assertEquals("SELECT * FROM (SELECT * FROM t WHERE a = ?) AS snapshot_delta"
+            + " WHERE version >= ? ORDER BY version", delta.toString());
+        Assertions.assertArrayEquals(new Object[]{1, "7"}, delta.getArgs());
+    }
+
+    @Test
+    public void testRefresh() {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        List<Query> queries = new ArrayList<>();
+        put(rows, "1", 1, "a");
+        put(rows, "2", 2, "b");
+        // soft-deleted rows are mapped to null
+        RowMapper<String> mapper = row -> {
+            String name = row.getString(row.indexOf("name"));
+            return "deleted".equals(name) ? null : name;
+        };
+
+        SnapshotQuery.Snapshot<String> snapshot = DatabaseAction.snapshot(new Query("SELECT * FROM t"), "id",
+            "version", mapper).withDatasource(table(rows, queries)).load();
+        SnapshotQuery.Version<String> first = snapshot.current();
+        Assertions.assertEquals(Map.of("1", "a", "2", "b"), first.values());
+        Assertions.assertEquals("2", first.watermark());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> first.values().put("3", "c"));
+
+        // rows at the watermark are read again but not applied again
+        Assertions.assertSame(first, snapshot.refresh());
+        Assertions.assertEquals("2", queries.get(1).getArgs()[0]);
+
+        put(rows, "1", 3, "x");
+        put(rows, "3", 3, "c");
+        put(rows, "2", 4, "deleted");
+        SnapshotQuery.Version<String> second = snapshot.refresh();
+        Assertions.assertEquals(Map.of("1", "x", "3", "c"), second.values());
+        Assertions.assertEquals(first.number() + 1, second.number());
+        Assertions.assertEquals("4", second.watermark());
+        Assertions.assertEquals(Map.of("1", "a", "2", "b"), first.values());
+
+        // a row committed late at the current watermark is still picked up
+        put(rows, "4", 4, "d");
+        Assertions.assertEquals("d", snapshot.refresh().get("4"));
+        Assertions.assertSame(snapshot.current(), snapshot.refresh());
+        Assertions.assertEquals(3, snapshot.current().size());
+    }
+
+    @Test
+    public void testUpdateAtWatermark() {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        put(rows, "1", 1, "a");
+        put(rows, "2", 1, "b");
+        SnapshotQuery.Snapshot<String> snapshot = DatabaseAction.snapshot(new Query("SELECT * FROM t"), "id",
+            "version", NAME).withDatasource(table(rows, new ArrayList<>())).load();
+
+        // a row that changes again without a higher watermark is applied again
+        put(rows, "1", 1, "x");
+        SnapshotQuery.Version<String> second = snapshot.refresh();
+        Assertions.assertEquals(Map.of("1", "x", "2", "b"), second.values());
+        Assertions.assertSame(second, snapshot.refresh());
+
+        put(rows, "1", 1, "y");
+        Assertions.assertEquals(Map.of("1", "y", "2", "b"), snapshot.refresh().values());
+        Assertions.assertEquals("1", snapshot.current().watermark());
+    }
+
+    @Test
+    public void testRefreshEvery() throws Exception {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        put(rows, "1", 1, "a");
+        try (SnapshotQuery.Snapshot<String> snapshot = DatabaseAction.snapshot(new Query("SELECT * FROM t"), "id",
+            "version", NAME).withDatasource(table(rows, new ArrayList<>())).load()) {
+            snapshot.refreshEvery(Duration.ofMillis(5), e -> {
+            });
+            Assertions.assertThrows(DatabaseException.class, () -> snapshot.refreshEvery(Duration.ofMillis(5), e -> {
+            }));
+
+            put(rows, "2", 2, "b");
+            CompletableFuture.runAsync(() -> {
+                while (snapshot.get("2") == null) {
+                    Thread.onSpinWait();
+                }
+            }).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testSplitQuery() {
+        List<Integer> ids = IntStream.rangeClosed(0, Query.MAX_LIST_SIZE).boxed().toList();
+        Assertions.assertThrows(DatabaseException.class,
+            () -> DatabaseAction.snapshot(new Query("SELECT * FROM t WHERE id IN (?)", ids), "id", "version", NAME));
+    }
+
+}
\ No newline at end of file
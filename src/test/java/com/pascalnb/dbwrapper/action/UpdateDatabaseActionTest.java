@@ -0,0 +1,86 @@
+package com.pascalnb.dbwrapper.action;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.UpdateResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class UpdateDatabaseActionTest {
+
+    /**
+     * Datasource that inserts a row with the next id for every statement, and only implements updates if given.
+     */
+    private static Datasource table(boolean updates, List<Query> executed) {
+        AtomicLong ids = new AtomicLong();
+        return Datasource.of("update", () -> new StubDatabase(query -> {
+            throw new UnsupportedOperationException();
+        }) {
+            @Override
+            public void executeStatement(Query query) {
+                executed.add(query);
+            }
+
+            @Override
+            public UpdateResult updateStatement(Query query) {
+                if (!updates) {
+                    return super.updateStatement(query);
+                }
+                executed.add(query);
+                List<String[]> keys = List.<String[]>of(new String[]{String.valueOf(ids.incrementAndGet())});
+                return new UpdateResult(new long[]{1}, new Table(new String[]{"GENERATED_KEY"}, keys));
+            }
+        });
+    }
+
+    @Test
+    public void testUpdate() {
+        List<Query> executed = new ArrayList<>();
+        long id = DatabaseAction.update("INSERT INTO t (a) VALUES (?)", 1)
+            .withDatasource(table(true, executed))
+            .mapping(UpdateResult::getKey)
+            .query()
+            .await();
+        Assertions.assertEquals(1, id);
+        Assertions.assertEquals(1, executed.size());
+
+        UpdateResult unknown = DatabaseAction.update("UPDATE t SET a = ?", 2)
+            .withDatasource(table(false, executed))
+            .query()
+            .await();
+        Assertions.assertEquals(-1, unknown.getUpdateCount());
+        Assertions.assertThrows(DatabaseException.class, unknown::getKey);
+    }
+
+    @Test
+    public void testBatch() {
+        List<Query> executed = new ArrayList<>();
+        List<Query> queries = List.of(new Query("INSERT INTO t (a) VALUES (?)", 1),
+            new Query("INSERT INTO t (a) VALUES (?)", 2), new Query("INSERT INTO u (a) VALUES (?)", 3));
+        UpdateResult result = DatabaseAction.batch(queries)
+            .withDatasource(table(true, executed))
+            .query()
+            .await();
+        Assertions.assertEquals(queries, executed);
+        Assertions.assertEquals(3, result.getUpdateCount());
+        Assertions.assertArrayEquals(new long[]{1, 1, 1}, result.getUpdateCounts());
+        Assertions.assertArrayEquals(new long[]{1, 2, 3}, result.getLongKeys());
+        Assertions.assertEquals("GENERATED_KEY", result.getKeys().getAttribute(0));
+
+        UpdateResult empty = DatabaseAction.batch(List.of()).query().await();
+        Assertions.assertEquals(0, empty.getUpdateCount());
+        Assertions.assertTrue(empty.getKeys().isEmpty());
+
+        UpdateResult unknown = UpdateResult.combine(List.of(result, UpdateResult.unknown()));
+        Assertions.assertEquals(-1, unknown.getUpdateCount());
+        Assertions.assertEquals(3, unknown.getKeys().getRowCount());
+    }
+
+}
\ No newline at end of file
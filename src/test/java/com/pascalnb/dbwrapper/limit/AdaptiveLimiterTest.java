@@ -0,0 +1,178 @@
+package com.pascalnb.dbwrapper.limit;
+
+import com.pascalnb.dbwrapper.priority.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AdaptiveLimiter limiter = AdaptiveLimiter.getInstance();
+
+    @AfterEach
+    public void reset() {
+        limiter.setEnabled(false).setLimits(20, 1, 200).setQueue(100, Duration.ofSeconds(1)).setAdaptation(2, 0.9);
+        limiter.reset(20);
+    }
+
+    @Test
+    public void testRejection() {
+        limiter.setEnabled(true).setLimits(1, 1, 1).setQueue(0, Duration.ofMillis(10));
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        Assertions.assertThrows(LimitExceededException.class, limiter::acquire);
+
+        limiter.setQueue(1, Duration.ofMillis(10));
+        Assertions.assertThrows(LimitExceededException.class, limiter::acquire);
+        Assertions.assertEquals(2, limiter.getRejected());
+        Assertions.assertEquals(0, limiter.getQueueDepth());
+
+        permit.close();
+        limiter.acquire().close();
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testQueue() throws InterruptedException {
+        limiter.setEnabled(true).setLimits(1, 1, 1);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> limiter.acquire().close());
+        while (limiter.getQueueDepth() == 0) {
+            Thread.sleep(1);
+        }
+        permit.close();
+        waiting.join();
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        limiter.setEnabled(true).setLimits(1, 1, 1);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        List<Priority> admitted = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> {
+            limiter.acquire(Priority.BATCH).close();
+            admitted.add(Priority.BATCH);
+        });
+        while (limiter.getQueueDepth() < 1) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<Void> interactive = CompletableFuture.runAsync(() -> {
+            AdaptiveLimiter.Permit own = limiter.acquire(Priority.INTERACTIVE);
+            admitted.add(Priority.INTERACTIVE);
+            own.close();
+        });
+        while (limiter.getQueueDepth() < 2) {
+            Thread.sleep(1);
+        }
+
+        // the interactive action is admitted first, although it arrived last
+        permit.close();
+        CompletableFuture.allOf(batch, interactive).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of(Priority.INTERACTIVE, Priority.BATCH), admitted);
+    }
+
+    @Test
+    public void testEvictLowestPriority() throws Exception {
+        limiter.setEnabled(true).setLimits(1, 1, 1).setQueue(1, Duration.ofSeconds(5));
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> limiter.acquire(Priority.BATCH).close());
+        while (limiter.getQueueDepth() < 1) {
+            Thread.sleep(1);
+        }
+
+        // the full queue rejects the batch action to make room for the interactive one
+        CompletableFuture<Void> interactive = CompletableFuture.runAsync(
+            () -> limiter.acquire(Priority.INTERACTIVE).close());
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+            () -> batch.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(LimitExceededException.class, e.getCause());
+        Assertions.assertEquals(1, limiter.getQueueDepth());
+
+        // but not the other way around
+        Assertions.assertThrows(LimitExceededException.class, () -> limiter.acquire(Priority.BATCH));
+        Assertions.assertEquals(2, limiter.getRejected());
+
+        permit.close();
+        interactive.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Runs the given number of statements one after another with the given latency.
+     */
+    private void statements(int count, long latencyNanos) {
+        for (int i = 0; i < count; i++) {
+            try (AdaptiveLimiter.Permit permit = limiter.acquire()) {
+                permit.sample(latencyNanos);
+            }
+        }
+    }
+
+    @Test
+    public void testAdaptation() {
+        limiter.setEnabled(true).setLimits(10, 2, 100);
+
+        // increases while at least half of the limit is used at normal latency
+        for (int i = 0; i < 100; i++) {
+            List<AdaptiveLimiter.Permit> permits = new ArrayList<>();
+            for (int j = 0; j < 6; j++) {
+                permits.add(limiter.acquire());
+            }
+            for (AdaptiveLimiter.Permit permit : permits) {
+                permit.sample(10 * MILLIS);
+                permit.close();
+            }
+        }
+        Assertions.assertTrue(limiter.getLimit() > 10, "limit " + limiter.getLimit());
+        Assertions.assertEquals(10, limiter.getBaselineMillis(), 0.01);
+        Assertions.assertEquals(10, limiter.getRecentMillis(), 0.01);
+
+        // decreases once per recent latency when the recent latency rises
+        int limit = limiter.getLimit();
+        statements(1, Duration.ofSeconds(1).toNanos());
+        Assertions.assertEquals((int) (limit * 0.9), limiter.getLimit(), 1);
+        statements(1, Duration.ofSeconds(1).toNanos());
+        Assertions.assertEquals((int) (limit * 0.9), limiter.getLimit(), 1);
+    }
+
+    @Test
+    public void testGradient() {
+        limiter.setEnabled(true).setLimits(10, 2, 100);
+        statements(100, 10 * MILLIS);
+
+        // a single fast statement does not lower the baseline
+        statements(1, 0);
+        int limit = limiter.getLimit();
+        statements(10, 10 * MILLIS);
+        Assertions.assertEquals(limit, limiter.getLimit());
+        Assertions.assertEquals(10, limiter.getBaselineMillis(), 0.1);
+
+        // a database that is permanently slower becomes the baseline
+        statements(5000, 40 * MILLIS);
+        Assertions.assertEquals(40, limiter.getBaselineMillis(), 0.1);
+        Assertions.assertEquals(40, limiter.getRecentMillis(), 0.1);
+        limit = limiter.getLimit();
+        statements(10, 40 * MILLIS);
+        Assertions.assertEquals(limit, limiter.getLimit());
+    }
+
+    @Test
+    public void testSampleAfterClose() {
+        limiter.setEnabled(true);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        permit.close();
+        permit.sample(10 * MILLIS);
+        Assertions.assertEquals(0, limiter.getBaselineMillis());
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MetricsTest {
+
+    @AfterEach
+    public void reset() {
+        Metrics.getInstance().reset();
+    }
+
+    @Test
+    public void testBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getPercentile(50));
+        Assertions.assertEquals(0, histogram.getMean());
+
+        // values below 8 have a bucket each
+        for (int i = 0; i < 8; i++) {
+            histogram.record(i);
+        }
+        for (int i = 0; i < 8; i++) {
+            Assertions.assertEquals(i, histogram.getPercentile((i + 1) * 100.0 / 8));
+        }
+        Assertions.assertEquals(0, histogram.getPercentile(0));
+
+        // above that every power of two is split into 8 buckets, so 16 and 17 share a bucket with upper bound 17
+        histogram.reset();
+        histogram.record(16);
+        Assertions.assertEquals(16, histogram.getPercentile(100));
+        histogram.record(16);
+        histogram.record(18);
+        Assertions.assertEquals(17, histogram.getPercentile(50));
+        Assertions.assertEquals(18, histogram.getPercentile(100));
+
+        histogram.record(-5);
+        Assertions.assertEquals(0, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        Assertions.assertEquals(1000, histogram.getCount());
+        Assertions.assertEquals(1_000_000, histogram.getMax());
+        Assertions.assertEquals(500_500, histogram.getMean());
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            long exact = (long) Math.ceil(percentile * 10) * 1000;
+            long value = histogram.getPercentile(percentile);
+            Assertions.assertTrue(value >= exact && value <= exact * 1.125, percentile + ": " + value);
+        }
+        Assertions.assertEquals(1_000_000, histogram.getPercentile(100));
+        Assertions.assertEquals(1.0, histogram.getPercentileMillis(100));
+
+        histogram.record(Long.MAX_VALUE);
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.getMax());
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getMax());
+        Assertions.assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testTemplateCap() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.reset();
+        for (int i = 0; i < 1005; i++) {
+            metrics.statementFinished("SELECT " + i, metrics.statementStarted(), 1, null);
+        }
+        metrics.statementFinished("SELECT 0", metrics.statementStarted(), 1, null);
+
+        Assertions.assertEquals(1001, metrics.getTemplates().size());
+        Assertions.assertEquals(2, metrics.getTemplate("SELECT 0").getCount());
+        Assertions.assertEquals(1, metrics.getTemplate("SELECT 999").getCount());
+        Assertions.assertNull(metrics.getTemplate("SELECT 1000"));
+        QueryTemplate other = metrics.getTemplate("<other>");
+        Assertions.assertEquals(5, other.getCount());
+        Assertions.assertEquals(5, other.getRows());
+        Assertions.assertEquals(1006, metrics.getStatements());
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.pascalnb.dbwrapper.metrics;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.action.DatabaseAction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+public class SlowQueryLogTest {
+
+    @AfterEach
+    public void disable() {
+        SlowQueryLog.getInstance().setSink(null);
+    }
+
+    @Test
+    public void testFingerprint() {
+        Assertions.assertEquals("SELECT * FROM users WHERE id IN (?) AND name = ? AND `col1` > ?",
+            SqlFingerprint.of("SELECT  *\nFROM users WHERE id IN (1, 2,3) AND name = 'it''s' AND `col1` > 1.5;"));
+        Assertions.assertEquals("SELECT a FROM t2 LIMIT ?", SqlFingerprint.of("SELECT a /* hint */ FROM t2 LIMIT 10"));
+    }
+
+    @Test
+    public void testThresholds() {
+        RingBufferSink sink = new RingBufferSink(2);
+        SlowQueryLog.getInstance()
+            .setSink(sink)
+            .setExecuteThreshold(Duration.ofMillis(10))
+            .setFetchThreshold(Duration.ofMillis(10))
+            .setRowThreshold(100)
+            .setSampleRate(1)
+            .setMaxPerSecond(1000);
+
+        Query query = new Query("SELECT * FROM users WHERE id=?", 5);
+        SlowQueryLog.getInstance().statement(query, 1, 1, 1);
+        Assertions.assertEquals(0, sink.getWritten());
+
+        SlowQueryLog.getInstance().beginAction(SlowQueryLog.getInstance().callSite());
+        SlowQueryLog.getInstance().statement(query, Duration.ofMillis(20).toNanos(), 1, 1);
+        Assertions.assertEquals(0, sink.getWritten());
+        SlowQueryLog.getInstance().endAction(3);
+
+        SlowQueryLog.getInstance().statement(query, 1, 1, 500);
+        SlowQueryLog.getInstance().statement(query, 1, Duration.ofMillis(20).toNanos(), 1);
+
+        List<SlowQuery> entries = sink.getEntries();
+        Assertions.assertEquals(3, sink.getWritten());
+        Assertions.assertEquals(2, entries.size());
+        Assertions.assertEquals(500, entries.get(0).rows());
+        Assertions.assertNull(entries.get(0).callSite());
+        Assertions.assertEquals(Arrays.asList("Integer"), entries.get(1).argumentTypes());
+        Assertions.assertEquals("SELECT * FROM users WHERE id=?", entries.get(1).fingerprint());
+    }
+
+    @Test
+    public void testCallSite() {
+        Assertions.assertNull(SlowQueryLog.getInstance().callSite());
+
+        RingBufferSink sink = new RingBufferSink(1);
+        SlowQueryLog.getInstance().setSink(sink).setRowThreshold(0).setSampleRate(1).setMaxPerSecond(1000);
+        DatabaseAction<Table> action = DatabaseAction.of(new Query("SELECT 1")).withDatasource(
+            StubDatabase.datasource("slow", query -> {
+                SlowQueryLog.getInstance().statement(query, 1, 1, 1);
+                return new Table(new String[0], List.of());
+            }));
+        action.query().await();
+
+        // the line of this test that created the action, not a class of the library
+        String callSite = sink.getEntries().get(0).callSite();
+        String expected = SlowQueryLogTest.class.getName() + ".testCallSite(SlowQueryLogTest.java:";
+        Assertions.assertTrue(callSite.startsWith(expected), callSite);
+    }
+
+    @Test
+    public void testFailingSink() {
+        SlowQueryLog log = SlowQueryLog.getInstance().setRowThreshold(0).setSampleRate(1).setMaxPerSecond(1000)
+            .setSink(entry -> {
+                throw new DatabaseException("disk full");
+            });
+        long dropped = log.getDropped();
+
+        // the statement succeeded, so the failure of the sink does not reach it
+        log.statement(new Query("SELECT 1"), 1, 1, 1);
+        log.beginAction(null);
+        log.statement(new Query("SELECT 1"), 1, 1, 1);
+        log.endAction(1);
+        Assertions.assertEquals(dropped + 2, log.getDropped());
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.pascalnb.dbwrapper.priority;
+
+import com.pascalnb.dbwrapper.DatabaseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class PriorityGateTest {
+
+    private final PriorityGate gate = PriorityGate.getInstance();
+
+    @AfterEach
+    public void reset() {
+        gate.setCapacity(0).setTimeout(null);
+        for (Priority priority : Priority.values()) {
+            gate.setLane(priority, 0, Integer.MAX_VALUE);
+        }
+    }
+
+    private static void awaitWaiting(PriorityGate gate, Priority priority) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gate.getWaiting(priority) == 0) {
+            Assertions.assertTrue(System.nanoTime() < deadline, priority + " is not waiting");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testReservation() {
+        gate.setCapacity(2).setLane(Priority.INTERACTIVE, 1, 2).setTimeout(Duration.ofMillis(50));
+
+        PriorityGate.Permit batch = gate.acquire(Priority.BATCH);
+        // the other connection is reserved for interactive work
+        Assertions.assertThrows(DatabaseException.class, () -> gate.acquire(Priority.BATCH));
+        PriorityGate.Permit interactive = gate.acquire(Priority.INTERACTIVE);
+        Assertions.assertEquals(1, gate.getUsed(Priority.INTERACTIVE));
+        Assertions.assertEquals(1, gate.getUsed(Priority.BATCH));
+
+        batch.close();
+        batch.close();
+        // interactive work borrows the capacity batch work does not use
+        PriorityGate.Permit borrowed = gate.acquire(Priority.INTERACTIVE);
+        Assertions.assertEquals(0, gate.getUsed(Priority.BATCH));
+        interactive.close();
+        borrowed.close();
+    }
+
+    @Test
+    public void testLowerReservationIsLent() {
+        gate.setCapacity(2).setLane(Priority.BATCH, 1, 2).setTimeout(Duration.ofMillis(50));
+
+        PriorityGate.Permit first = gate.acquire(Priority.INTERACTIVE);
+        PriorityGate.Permit second = gate.acquire(Priority.INTERACTIVE);
+        Assertions.assertThrows(DatabaseException.class, () -> gate.acquire(Priority.BATCH));
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testPriorityOrder() throws InterruptedException {
+        gate.setCapacity(1);
+        PriorityGate.Permit held = gate.acquire(Priority.NORMAL);
+
+        List<Priority> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> {
+            gate.acquire(Priority.BATCH).close();
+            order.add(Priority.BATCH);
+        });
+        awaitWaiting(gate, Priority.BATCH);
+        CompletableFuture<Void> interactive = CompletableFuture.runAsync(() -> {
+            try (PriorityGate.Permit permit = gate.acquire(Priority.INTERACTIVE)) {
+                order.add(Priority.INTERACTIVE);
+            }
+        });
+        awaitWaiting(gate, Priority.INTERACTIVE);
+
+        held.close();
+        CompletableFuture.allOf(batch, interactive).join();
+        Assertions.assertEquals(List.of(Priority.INTERACTIVE, Priority.BATCH), order);
+    }
+
+}
\ No newline at end of file
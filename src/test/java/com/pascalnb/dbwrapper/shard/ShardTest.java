@@ -0,0 +1,103 @@
+package com.pascalnb.dbwrapper.shard;
+
+import com.pascalnb.dbwrapper.Datasource;
+import com.pascalnb.dbwrapper.Query;
+import com.pascalnb.dbwrapper.ResultShape;
+import com.pascalnb.dbwrapper.StubDatabase;
+import com.pascalnb.dbwrapper.Table;
+import com.pascalnb.dbwrapper.action.DatabaseAction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class ShardTest {
+
+    private static final ResultShape SHAPE = ResultShape.of(new String[]{"id", "name"},
+        new String[]{"id", "user_name"}, new int[]{Types.INTEGER, Types.VARCHAR});
+
+    private static Datasource shard(String name, List<Query> queries, String[]... rows) {
+        Table table = new Table(SHAPE, List.of(rows));
+        return StubDatabase.datasource(name, query -> {
+            synchronized (queries) {
+                queries.add(query);
+            }
+            return table;
+        });
+    }
+
+    @Test
+    public void testShardFunctions() {
+        ShardFunction<Integer> range = ShardFunction.range(List.of(10, 20));
+        Assertions.assertEquals(0, range.shardOf(5, 3));
+        Assertions.assertEquals(1, range.shardOf(10, 3));
+        Assertions.assertEquals(2, range.shardOf(25, 3));
+
+        ShardFunction<Integer> hash = ShardFunction.hash();
+        int[] counts = new int[4];
+        for (int i = 0; i < 1000; i++) {
+            counts[hash.shardOf(i, 4)]++;
+        }
+        for (int count : counts) {
+            Assertions.assertTrue(count > 150, Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    public void testRoute() {
+        List<Query> queries = new ArrayList<>();
+        Datasource low = shard("low", queries, new String[]{"1", "a"});
+        Datasource high = shard("high", queries, new String[]{"15", "b"});
+        ShardRouter<Integer> router = new ShardRouter<>(ShardFunction.range(List.of(10)), List.of(low, high));
+
+        DatabaseAction<Table> action = router.route(15, DatabaseAction.of("SELECT * FROM t WHERE id=?;", 15));
+        Assertions.assertSame(high, action.getDatasource());
+        Assertions.assertEquals("15", action.query().await().get(0).get("id"));
+    }
+
+    @Test
+    public void testScatterMerge() {
+        List<Query> queries = new ArrayList<>();
+        ShardRouter<Integer> router = new ShardRouter<>(ShardFunction.hash(), List.of(
+            shard("a", queries, new String[]{"1", "a"}, new String[]{"4", "d"}),
+            shard("b", queries, new String[]{"2", "b"}, new String[]{"3", "c"}, new String[]{"9", "i"})
+        ));
+
+        Table all = router.scatter(new Query("SELECT * FROM t ORDER BY id;")).query().await();
+        Assertions.assertEquals(5, all.getRowCount());
+
+        Table merged = router.scatter(new Query("SELECT * FROM t WHERE x=? ORDER BY id;", 1),
+            ShardRouter.byColumn("id", Integer::parseInt), 3).query().await();
+        Assertions.assertArrayEquals(new String[]{"1", "2", "3"}, merged.getColumn("id"));
+        Assertions.assertSame(SHAPE, merged.getShape());
+        Assertions.assertEquals("SELECT * FROM t WHERE x=? ORDER BY id LIMIT ?", queries.get(2).toString());
+        Assertions.assertArrayEquals(new Object[]{1, 3}, queries.get(2).getArgs());
+    }
+
+    @Test
+    public void testScatterSplitQuery() {
+        List<Query> queries = new ArrayList<>();
+        ShardRouter<Integer> router = new ShardRouter<>(ShardFunction.hash(), List.of(
+            shard("a", queries, new String[]{"1", "a"}, new String[]{"4", "d"}),
+            shard("b", queries, new String[]{"2", "b"}, new String[]{"3", "c"})
+        ));
+        List<Integer> ids = IntStream.rangeClosed(0, Query.MAX_LIST_SIZE).boxed().toList();
+        Query query = new Query("SELECT * FROM t WHERE id IN (?) ORDER BY id", ids);
+
+        // every statement of every shard is limited and merged, the stub returns the same rows for both statements
+        Table merged = router.scatter(query, ShardRouter.byColumn("id", Integer::parseInt), 3).query().await();
+        Assertions.assertArrayEquals(new String[]{"1", "1", "2"}, merged.getColumn("id"));
+        Assertions.assertSame(SHAPE, merged.getShape());
+        Assertions.assertEquals(4, queries.size());
+        for (Query executed : queries) {
+            Assertions.assertTrue(executed.toString().endsWith(" ORDER BY id LIMIT ?"), executed.toString());
+            Assertions.assertEquals(3, executed.getArgs()[executed.getArgs().length - 1]);
+        }
+        Assertions.assertTrue(queries.stream().anyMatch(executed -> executed.getArgs()[0].equals(Query.MAX_LIST_SIZE)));
+    }
+
+}
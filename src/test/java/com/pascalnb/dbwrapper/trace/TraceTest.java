@@ -0,0 +1,53 @@
+package com.pascalnb.dbwrapper.trace;
+
+import com.pascalnb.dbwrapper.action.Promise;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+public class TraceTest {
+
+    private static final Executor EXECUTOR = Runnable::run;
+
+    private static <T> Promise<T> promise(Supplier<T> supplier, String name) {
+        return new Promise<>(supplier, EXECUTOR, name) {};
+    }
+
+    @AfterEach
+    public void disable() {
+        Trace.setListener(null);
+    }
+
+    @Test
+    public void testPromiseChain() {
+        List<Trace> traces = new CopyOnWriteArrayList<>();
+        Trace.setListener(traces::add);
+
+        int result = promise(() -> promise(() -> 2, "child").stage().await(), "root")
+            .map(i -> i * 2)
+            .await();
+
+        Assertions.assertEquals(4, result);
+        Assertions.assertEquals(1, traces.size());
+        Trace root = traces.get(0);
+        Assertions.assertEquals("root", root.getName());
+        Assertions.assertTrue(root.getDurationNanos() >= 0);
+        Assertions.assertEquals(List.of(Stage.QUEUE, Stage.CONTINUATION),
+            root.getSpans().stream().map(Span::stage).toList());
+        Assertions.assertEquals(1, root.getChildren().size());
+        Assertions.assertEquals("child", root.getChildren().get(0).getName());
+        Assertions.assertSame(root, root.getChildren().get(0).getParent());
+    }
+
+    @Test
+    public void testDisabled() {
+        Assertions.assertNull(Trace.start("name"));
+        Assertions.assertEquals(1, promise(() -> 1, "root").await());
+    }
+
+}